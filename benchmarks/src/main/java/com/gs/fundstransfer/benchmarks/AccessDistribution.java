@@ -0,0 +1,45 @@
+package com.gs.fundstransfer.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * How benchmark operations pick the accounts they touch.
+ */
+public enum AccessDistribution {
+    /**
+     * Every account is equally likely to be picked.
+     */
+    UNIFORM,
+    /**
+     * A few hot accounts receive most operations (Zipf law, exponent 0.99), like payroll or merchant accounts.
+     */
+    ZIPFIAN;
+
+    private static final double ZIPF_EXPONENT = 0.99;
+
+    /**
+     * Creates a sampler of account indexes in {@code [0, size)}. Samplers are immutable and can be shared by threads.
+     */
+    public Sampler sampler(int size) {
+        if (this == UNIFORM) {
+            return random -> random.nextInt(size);
+        }
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / Math.pow(rank + 1, ZIPF_EXPONENT);
+            cumulative[rank] = sum;
+        }
+        double total = sum;
+        return random -> {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            return Math.min(index < 0 ? -index - 1 : index, size - 1);
+        };
+    }
+
+    @FunctionalInterface
+    public interface Sampler {
+        int next(SplittableRandom random);
+    }
+}
@@ -0,0 +1,43 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.mapper.MonetaryAmountType;
+import org.hibernate.metamodel.spi.ValueAccess;
+import org.openjdk.jmh.annotations.*;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-row cost of turning balance columns into a MonetaryAmount: the legacy "amount|currency" VARCHAR
+ * parsing, kept here as a baseline, against the native DECIMAL and CHAR(3) columns read by MonetaryAmountType.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountMappingBenchmark {
+
+    private final MonetaryAmountType monetaryAmountType = new MonetaryAmountType();
+    private final String legacyColumn = "1234567.8900000000|USD";
+    private final Object[] columns = {new BigDecimal("1234567.8900000000"), "USD"};
+    private final ValueAccess valueAccess = () -> columns;
+
+    @Benchmark
+    public MonetaryAmount legacyStringColumn() {
+        String[] parts = legacyColumn.split("\\|");
+        BigDecimal amount = new BigDecimal(parts[0]);
+        return Monetary.getDefaultAmountFactory()
+                .setCurrency(parts[1])
+                .setNumber(amount)
+                .create();
+    }
+
+    @Benchmark
+    public MonetaryAmount nativeColumns() {
+        return monetaryAmountType.instantiate(valueAccess, null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.configs.JacksonConfig;
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.AccountPageDto;
+import com.gs.fundstransfer.mapper.AccountMapper;
+import com.gs.fundstransfer.model.Account;
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a large page of accounts into the getAll JSON payload: the legacy conversion of every balance
+ * through a double, kept here as a baseline, against the BigDecimal the balance already holds. Run it with
+ * {@code -prof gc} to compare the bytes allocated per payload.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccountSerializationBenchmark {
+
+    @Param("10000")
+    public int accounts;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    private final AccountMapper accountMapper = AccountMapper.INSTANCE;
+    private List<Account> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        page = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            page.add(new Account(1_000_000_000L + i, Money.of(new BigDecimal(i * 1_000_003L).movePointLeft(2), "USD")));
+        }
+    }
+
+    @Benchmark
+    public AccountPageDto legacyDoubleRoundTrip() throws IOException {
+        List<AccountDto> dtos = new ArrayList<>(page.size());
+        for (Account account : page) {
+            dtos.add(new AccountDto(account.getOwnerId(), account.getMoney()
+                    .getCurrency()
+                    .getCurrencyCode(), BigDecimal.valueOf(account.getMoney()
+                                                                   .getNumber()
+                                                                   .doubleValueExact())));
+        }
+        return write(new AccountPageDto(dtos, null));
+    }
+
+    @Benchmark
+    public AccountPageDto exactDecimal() throws IOException {
+        return write(new AccountPageDto(accountMapper.toDtos(page), null));
+    }
+
+    private AccountPageDto write(AccountPageDto payload) throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), payload);
+        return payload;
+    }
+}
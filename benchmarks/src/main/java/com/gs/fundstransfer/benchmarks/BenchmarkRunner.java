@@ -0,0 +1,43 @@
+package com.gs.fundstransfer.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks once per thread count and writes one JSON result file per run, named after the
+ * thread count, so that results can be compared between releases.
+ *
+ * Arguments: the JMH include regexp, the comma separated thread counts and the output directory.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String include = args.length > 0 ? args[0] : ".*";
+        int[] threadCounts = Arrays.stream((args.length > 1 ? args[1] : "1,2,4,8,16,32,64").split(","))
+                .map(String::trim)
+                .mapToInt(Integer::parseInt)
+                .toArray();
+        File outputDirectory = new File(args.length > 2 ? args[2] : "target/jmh");
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IllegalStateException("Unable to create " + outputDirectory);
+        }
+
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder().include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(new File(outputDirectory, "results-" + threads + "-threads.json").getPath())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
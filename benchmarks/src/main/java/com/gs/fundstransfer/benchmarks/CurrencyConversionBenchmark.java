@@ -0,0 +1,64 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.services.impl.CurrencyConverter;
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.*;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of one amount into another currency: the legacy unrounded BigDecimal product, kept here as a baseline,
+ * the same product rounded to the minor unit, and the scaled-integer conversion of CurrencyConverter, for a quoted
+ * rate and for an inverted one with 16 significant digits. Run it with {@code -prof gc} to compare the bytes
+ * allocated per conversion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CurrencyConversionBenchmark {
+
+    private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+
+    @Param({"1.0842", "0.9223390518354547"})
+    public String rate;
+
+    private final MonetaryAmount amount = Money.of(new BigDecimal("1234.56"), "EUR");
+    private final CurrencyConverter converter = new CurrencyConverter(RoundingMode.HALF_EVEN);
+    private BigDecimal factor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        factor = new BigDecimal(rate);
+    }
+
+    @Benchmark
+    public MonetaryAmount legacyUnrounded() {
+        return Monetary.getDefaultAmountFactory()
+                .setCurrency(USD)
+                .setNumber(amount.getNumber()
+                                   .numberValue(BigDecimal.class)
+                                   .multiply(factor))
+                .create();
+    }
+
+    @Benchmark
+    public MonetaryAmount bigDecimalRounded() {
+        return Money.of(amount.getNumber()
+                                .numberValue(BigDecimal.class)
+                                .multiply(factor)
+                                .setScale(USD.getDefaultFractionDigits(), RoundingMode.HALF_EVEN), USD);
+    }
+
+    @Benchmark
+    public MonetaryAmount scaledInteger() {
+        return converter.convert(amount, USD, factor);
+    }
+}
@@ -0,0 +1,43 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.repository.AccountRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of AccountRepository.findAll, dominated by the per-row balance mapping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindAllBenchmark {
+
+    @Param("10000")
+    public int accounts;
+
+    private FundsTransferContext context;
+    private AccountRepository accountRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = FundsTransferContext.start();
+        accountRepository = context.getBean(AccountRepository.class);
+        context.createAccounts(accounts, "USD");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Account> findAll() {
+        return accountRepository.findAll();
+    }
+}
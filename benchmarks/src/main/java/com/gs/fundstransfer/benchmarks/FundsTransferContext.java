@@ -0,0 +1,95 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.FundsTransferApplication;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Boots the real application on an in-memory H2 database and seeds accounts.
+ */
+public final class FundsTransferContext implements AutoCloseable {
+
+    public static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000");
+
+    private final ConfigurableApplicationContext context;
+
+    private FundsTransferContext(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Starts the application without the web layer. Extra arguments use the command line syntax, e.g. {@code --fx.provider=moneta}.
+     */
+    public static FundsTransferContext start(String... extraArguments) {
+        return start(List.of("--spring.main.web-application-type=none"), extraArguments);
+    }
+
+    /**
+     * Starts the application with its web server on a random port, see {@link #getPort()}.
+     */
+    public static FundsTransferContext startWebServer(String... extraArguments) {
+        return start(List.of("--server.port=0"), extraArguments);
+    }
+
+    private static FundsTransferContext start(List<String> mode, String... extraArguments) {
+        List<String> arguments = new ArrayList<>(mode);
+        arguments.addAll(List.of(
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN"));
+        // In memory, unless the benchmark sets its own database
+        if (Arrays.stream(extraArguments)
+                .noneMatch(argument -> argument.startsWith("--spring.datasource.url="))) {
+            arguments.add("--spring.datasource.url=jdbc:h2:mem:benchmark;LOCK_TIMEOUT=60000");
+        }
+        arguments.addAll(List.of(extraArguments));
+        return new FundsTransferContext(SpringApplication.run(FundsTransferApplication.class, arguments.toArray(String[]::new)));
+    }
+
+    /**
+     * Returns the port of the web server started by {@link #startWebServer(String...)}.
+     */
+    public int getPort() {
+        return context.getEnvironment()
+                .getRequiredProperty("local.server.port", Integer.class);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public <T> T getBean(String name, Class<T> type) {
+        return context.getBean(name, type);
+    }
+
+    /**
+     * Creates accounts in the given currency, each funded with {@link #INITIAL_BALANCE}.
+     *
+     * @return the owner IDs of the new accounts
+     */
+    public long[] createAccounts(int count, String currency) {
+        AccountService accountService = getBean(AccountService.class);
+        TransactionService transactionService = getBean(TransactionService.class);
+        long[] ownerIds = new long[count];
+        for (int i = 0; i < count; i++) {
+            Long ownerId = accountService.save(new CreateAccountRequest(currency))
+                    .getOwnerId();
+            transactionService.deposit(new OrderRequest(ownerId, INITIAL_BALANCE, currency));
+            ownerIds[i] = ownerId;
+        }
+        return ownerIds;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
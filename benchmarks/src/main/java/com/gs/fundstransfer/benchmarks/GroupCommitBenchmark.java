@@ -0,0 +1,106 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Throughput and latency percentiles of deposits spread over many accounts, committed one by one with
+ * {@code deposit} or in group commits of up to {@code maxBatchSize} deposits with {@code depositAsync}.
+ *
+ * The {@code file} database writes H2 to a temporary directory, so that every commit also writes to disk. Run it with
+ * several thread counts: a batch only fills up with as many deposits as there are waiting callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupCommitBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"1", "8", "64", "256"})
+    public int maxBatchSize;
+
+    @Param("2ms")
+    public String window;
+
+    @Param({"mem", "file"})
+    public String database;
+
+    @Param("1000")
+    public int accounts;
+
+    private Path directory;
+    private FundsTransferContext context;
+    private TransactionService transactionService;
+    private long[] ownerIds;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String url = "jdbc:h2:mem:benchmark;LOCK_TIMEOUT=60000";
+        if (database.equals("file")) {
+            directory = Files.createTempDirectory("group-commit-benchmark");
+            url = "jdbc:h2:file:" + directory.resolve("benchmark") + ";LOCK_TIMEOUT=60000";
+        }
+        // The schema is only created by default for in-memory databases
+        context = FundsTransferContext.start("--spring.datasource.url=" + url,
+                                             "--spring.jpa.hibernate.ddl-auto=create-drop",
+                                             "--transactions.group-commit.enabled=true",
+                                             "--transactions.group-commit.max-batch-size=" + maxBatchSize,
+                                             "--transactions.group-commit.window=" + window);
+        transactionService = context.getBean(TransactionService.class);
+        ownerIds = context.createAccounts(accounts, "USD");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+        if (directory != null) {
+            delete(directory);
+        }
+    }
+
+    @Benchmark
+    public TransferDto deposit(ThreadState state) {
+        return transactionService.deposit(order(state.random));
+    }
+
+    @Benchmark
+    public TransferDto depositAsync(ThreadState state) {
+        return transactionService.depositAsync(order(state.random), null)
+                .join();
+    }
+
+    private OrderRequest order(SplittableRandom random) {
+        return new OrderRequest(ownerIds[random.nextInt(ownerIds.length)], AMOUNT, "USD");
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile()
+                            .delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.SplitAccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of deposits which all target a single account, like a merchant settlement
+ * account, depending on the number of slots that account is split into. One slot means that the account is not split.
+ * Run it with several thread counts: a single thread shows the cost of the slot lookup, more threads show how much
+ * the slots relieve the contention on the account row. {@code depositAsync} waits for coalesced deposits instead:
+ * with more threads, more deposits share each transaction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotAccountBenchmark {
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"1", "4", "16"})
+    public int slots;
+
+    private FundsTransferContext context;
+    private TransactionService transactionService;
+    private long hotAccount;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = FundsTransferContext.start();
+        transactionService = context.getBean(TransactionService.class);
+        hotAccount = context.createAccounts(1, "USD")[0];
+        if (slots > 1) {
+            context.getBean(SplitAccountService.class)
+                    .split(hotAccount, slots);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferDto deposit() {
+        return transactionService.deposit(new OrderRequest(hotAccount, AMOUNT, "USD"));
+    }
+
+    @Benchmark
+    public TransferDto depositAsync() {
+        return transactionService.depositAsync(new OrderRequest(hotAccount, AMOUNT, "USD"), null)
+                .join();
+    }
+}
@@ -0,0 +1,152 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.journal.BalanceJournal;
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append throughput and replay speed of the memory-mapped balance journal, on the local disk.
+ *
+ * {@code append} only copies the record into the mapped segment, {@code appendAndSync} also waits until the group
+ * commit has forced it to disk, which is what a request pays. {@code replay} reads back {@code entries} movements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JournalBenchmark {
+
+    private static final int SEGMENT_SIZE = 256 * 1024 * 1024;
+    private static final int ACCOUNTS = 1000;
+    private static final Duration SYNC_INTERVAL = Duration.ofNanos(200_000);
+
+    @Param("256")
+    public int syncBatchSize;
+
+    private Path directory;
+    private BalanceJournal journal;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = BalanceJournal.open(directory, SEGMENT_SIZE, SYNC_INTERVAL, syncBatchSize, new Counter());
+        for (int i = 0; i < ACCOUNTS; i++) {
+            journal.appendAccountOpened(1000000000L + i, "USD");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        journal.close();
+        delete(directory);
+    }
+
+    @Benchmark
+    public Object append(ThreadState state) {
+        return journal.appendMovement(transfer(state.random));
+    }
+
+    @Benchmark
+    public Object appendAndSync(ThreadState state) {
+        return journal.appendMovement(transfer(state.random))
+                .join();
+    }
+
+    private static TransferDto transfer(SplittableRandom random) {
+        return TransferDto.builder()
+                .debitAccountId(1000000000L + random.nextInt(ACCOUNTS))
+                .creditAccountId(1000000000L + random.nextInt(ACCOUNTS))
+                .debitedAmount(Money.of(BigDecimal.valueOf(random.nextInt(1, 100_000), 2), "USD"))
+                .creditedAmount(Money.of(BigDecimal.valueOf(random.nextInt(1, 100_000), 2), "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+    }
+
+    /**
+     * Opens a journal of {@code entries} movements, reading them all back.
+     */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    @Fork(1)
+    public static class Replay {
+
+        @Param({"1000000"})
+        public int entries;
+
+        private Path directory;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("journal-replay-benchmark");
+            SplittableRandom random = new SplittableRandom(42);
+            try (BalanceJournal journal = BalanceJournal.open(directory, SEGMENT_SIZE, SYNC_INTERVAL, 4096, new Counter())) {
+                for (int i = 0; i < ACCOUNTS; i++) {
+                    journal.appendAccountOpened(1000000000L + i, "USD");
+                }
+                for (int i = 0; i < entries; i++) {
+                    journal.appendMovement(transfer(random));
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            delete(directory);
+        }
+
+        @Benchmark
+        public long replay() {
+            Counter counter = new Counter();
+            BalanceJournal.open(directory, SEGMENT_SIZE, SYNC_INTERVAL, 4096, counter)
+                    .close();
+            return counter.records;
+        }
+    }
+
+    private static final class Counter implements BalanceJournal.Visitor {
+
+        private long records;
+
+        @Override
+        public void accountOpened(long ownerId, String currency) {
+            records++;
+        }
+
+        @Override
+        public void balanceMoved(long debitAccountId, BigDecimal debited, long creditAccountId, BigDecimal credited) {
+            records++;
+        }
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder())
+                    .forEach(path -> path.toFile()
+                            .delete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
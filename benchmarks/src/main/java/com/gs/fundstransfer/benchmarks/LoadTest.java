@@ -0,0 +1,170 @@
+package com.gs.fundstransfer.benchmarks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load test comparing platform and virtual request threads on the same workload.
+ *
+ * Each client loops for the whole duration, sending either a transfer between two hot accounts, which waits on
+ * row locks, or a read of a random account. The application is started once per thread mode and the throughput
+ * and latency percentiles are printed for each request type.
+ *
+ * Arguments: the number of clients, the duration in seconds, the share of transfers in percent and the modes to
+ * run, e.g. {@code 2000 30 20 platform,virtual}.
+ */
+public final class LoadTest {
+
+    private static final int ACCOUNTS = 1000;
+    private static final int HOT_ACCOUNTS = 8;
+    private static final Duration WARM_UP = Duration.ofSeconds(5);
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        Duration duration = Duration.ofSeconds(args.length > 1 ? Long.parseLong(args[1]) : 30);
+        int transferPercent = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        String[] modes = (args.length > 3 ? args[3] : "platform,virtual").split(",");
+
+        for (String mode : modes) {
+            boolean virtual = "virtual".equals(mode.trim());
+            try (FundsTransferContext context = FundsTransferContext.startWebServer("--spring.threads.virtual.enabled=" + virtual)) {
+                long[] accounts = context.createAccounts(ACCOUNTS, "USD");
+                String baseUrl = "http://localhost:" + context.getPort() + "/api/v1";
+                run(baseUrl, accounts, clients, transferPercent, WARM_UP);
+                Result[] results = run(baseUrl, accounts, clients, transferPercent, duration);
+                System.out.printf("%s threads, %d clients, %d%% transfers%n", mode.trim(), clients, transferPercent);
+                for (Result result : results) {
+                    result.print(duration);
+                }
+            }
+        }
+    }
+
+    private static Result[] run(String baseUrl, long[] accounts, int clients, int transferPercent, Duration duration)
+            throws Exception {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Result[]>> futures = new ArrayList<>(clients);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int client = 0; client < clients; client++) {
+                SplittableRandom random = new SplittableRandom(client);
+                futures.add(executor.submit(() -> {
+                    Result transfers = new Result("transfer");
+                    Result reads = new Result("read");
+                    while (System.nanoTime() < deadline) {
+                        boolean transfer = random.nextInt(100) < transferPercent;
+                        HttpRequest request = transfer ? transfer(baseUrl, accounts, random) : read(baseUrl, accounts, random);
+                        long start = System.nanoTime();
+                        int status = send(httpClient, request);
+                        (transfer ? transfers : reads).record(System.nanoTime() - start, status);
+                    }
+                    return new Result[]{transfers, reads};
+                }));
+            }
+        }
+        Result transfers = new Result("transfer");
+        Result reads = new Result("read");
+        for (Future<Result[]> future : futures) {
+            Result[] results = future.get();
+            transfers.merge(results[0]);
+            reads.merge(results[1]);
+        }
+        return new Result[]{transfers, reads};
+    }
+
+    private static HttpRequest transfer(String baseUrl, long[] accounts, SplittableRandom random) {
+        int debit = random.nextInt(HOT_ACCOUNTS);
+        int credit = (debit + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+        String body = "{\"debitAccountId\":" + accounts[debit] + ",\"creditAccountId\":" + accounts[credit]
+                + ",\"amount\":1,\"currency\":\"USD\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/transactions/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest read(String baseUrl, long[] accounts, SplittableRandom random) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/accounts/" + accounts[random.nextInt(accounts.length)]))
+                .GET()
+                .build();
+    }
+
+    private static int send(HttpClient httpClient, HttpRequest request) {
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding())
+                    .statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Latencies of one request type. Each client fills its own instance, which are merged at the end.
+     */
+    private static final class Result {
+
+        private final String name;
+        private long[] latencies = new long[1024];
+        private int count;
+        private int errors;
+
+        Result(String name) {
+            this.name = name;
+        }
+
+        void record(long latency, int status) {
+            if (status < 200 || status >= 300) {
+                errors++;
+                return;
+            }
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+        }
+
+        void merge(Result other) {
+            if (count + other.count > latencies.length) {
+                latencies = Arrays.copyOf(latencies, count + other.count);
+            }
+            System.arraycopy(other.latencies, 0, latencies, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+
+        void print(Duration duration) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("  %-8s %10.1f req/s  p50 %8.2f ms  p99 %8.2f ms  errors %d%n", name,
+                              count / (double) duration.toSeconds(), percentile(sorted, 0.50), percentile(sorted, 0.99),
+                              errors);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return Double.NaN;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1_000_000.0;
+        }
+    }
+}
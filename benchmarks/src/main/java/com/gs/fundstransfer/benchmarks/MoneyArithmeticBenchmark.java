@@ -0,0 +1,68 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.model.MinorUnits;
+import org.javamoney.moneta.Money;
+import org.openjdk.jmh.annotations.*;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance arithmetic of one same-currency transfer between two loaded accounts: the legacy Money arithmetic, kept
+ * here as a baseline, against the minor unit arithmetic of TransactionServiceImpl. Both check the funds, debit one
+ * balance, credit the other and return the amount for the API. Run it with {@code -prof gc} to compare the bytes
+ * allocated per transfer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+
+    private final BigDecimal amount = new BigDecimal("12.34");
+    private MonetaryAmount debitBalance;
+    private MonetaryAmount creditBalance;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        // As read from the balance column
+        debitBalance = Money.of(new BigDecimal("1000000000.00"), USD);
+        creditBalance = Money.of(new BigDecimal("1000000000.00"), USD);
+    }
+
+    @Benchmark
+    public MonetaryAmount legacyMoney() {
+        MonetaryAmount money = Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(amount)
+                .create();
+        if (debitBalance.compareTo(money) < 0) {
+            throw new IllegalStateException();
+        }
+        debitBalance = debitBalance.subtract(money);
+        creditBalance = creditBalance.add(money);
+        return money;
+    }
+
+    @Benchmark
+    public MonetaryAmount minorUnits() {
+        MinorUnits units = MinorUnits.of(amount, USD);
+        MinorUnits debit = MinorUnits.of(debitBalance);
+        if (debit.compareTo(units) < 0) {
+            throw new IllegalStateException();
+        }
+        debitBalance = debit.minus(units)
+                .toMonetaryAmount();
+        creditBalance = MinorUnits.of(creditBalance)
+                .plus(units)
+                .toMonetaryAmount();
+        return Money.of(amount, USD);
+    }
+}
@@ -0,0 +1,77 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.batch.PostingJobConfig;
+import com.gs.fundstransfer.request.PostingType;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Throughput of the end-of-day interest postings for large account tables.
+ *
+ * For each account count and partition count, the application is started on an empty in-memory database, the
+ * accounts are inserted with JDBC batches, then the posting job runs once and its throughput is printed.
+ * Ten million accounts and their ledger entries need a heap of about 12 GB.
+ *
+ * Arguments: the account counts, the partition counts and the chunk size, e.g. {@code 1000000,10000000 1,4 1000}.
+ */
+public final class PostingJobThroughput {
+
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final long FIRST_OWNER_ID = 1_000_000_000L;
+
+    private PostingJobThroughput() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String[] accountCounts = (args.length > 0 ? args[0] : "1000000,10000000").split(",");
+        String[] partitionCounts = (args.length > 1 ? args[1] : "1,4").split(",");
+        int chunkSize = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        for (String accountCount : accountCounts) {
+            for (String partitionCount : partitionCounts) {
+                run(Integer.parseInt(accountCount.trim()), Integer.parseInt(partitionCount.trim()), chunkSize);
+            }
+        }
+    }
+
+    private static void run(int accounts, int partitions, int chunkSize) throws Exception {
+        try (FundsTransferContext context = FundsTransferContext.start("--postings.partitions=" + partitions,
+                                                                       "--postings.chunk-size=" + chunkSize)) {
+            insertAccounts(context.getBean(JdbcTemplate.class), accounts);
+            JobLauncher jobLauncher = context.getBean(JobLauncher.class);
+            Job postingJob = context.getBean(PostingJobConfig.JOB_NAME, Job.class);
+
+            long start = System.nanoTime();
+            JobExecution execution = jobLauncher.run(postingJob, new JobParametersBuilder()
+                    .addString(PostingJobConfig.TYPE, PostingType.INTEREST.name())
+                    .addLocalDate(PostingJobConfig.BUSINESS_DATE, LocalDate.now())
+                    .addString(PostingJobConfig.AMOUNT, "0.0001", false)
+                    .toJobParameters());
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            System.out.printf("%,d accounts, %d partitions, chunks of %d: %s in %.1f s, %,.0f accounts/s%n", accounts,
+                              partitions, chunkSize, execution.getStatus(), elapsed.toMillis() / 1000.0,
+                              accounts / (elapsed.toNanos() / 1e9));
+        }
+    }
+
+    private static void insertAccounts(JdbcTemplate jdbcTemplate, int accounts) {
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < accounts; i++) {
+            batch.add(new Object[]{FIRST_OWNER_ID + i, FundsTransferContext.INITIAL_BALANCE, "USD"});
+            if (batch.size() == INSERT_BATCH_SIZE || i == accounts - 1) {
+                jdbcTemplate.batchUpdate("insert into account (owner_id, balance, currency, version) values (?, ?, ?, 0)",
+                                         batch);
+                batch.clear();
+            }
+        }
+    }
+}
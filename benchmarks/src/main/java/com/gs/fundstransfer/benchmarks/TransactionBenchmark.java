@@ -0,0 +1,95 @@
+package com.gs.fundstransfer.benchmarks;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.TransactionService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency percentiles of the TransactionService hot paths against the real H2 setup.
+ *
+ * Deposits and withdrawals target USD accounts, in USD for the same-currency path and in EUR for the FX path.
+ * Transfers always debit a USD account and credit either another USD account or, on the FX path, an EUR one.
+ * The engine parameter compares pessimistic row locking, optimistic version checks with the adaptive fallback to
+ * row locks, and the sharded in-memory engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    public enum OperationPath {
+        SAME_CURRENCY,
+        FX
+    }
+
+    private static final BigDecimal AMOUNT = BigDecimal.ONE;
+
+    @Param({"SAME_CURRENCY", "FX"})
+    public OperationPath path;
+
+    @Param({"UNIFORM", "ZIPFIAN"})
+    public AccessDistribution distribution;
+
+    @Param("1000")
+    public int accounts;
+
+    @Param({"locking", "optimistic", "sharded"})
+    public String engine;
+
+    private FundsTransferContext context;
+    private TransactionService transactionService;
+    private long[] usdAccounts;
+    private long[] eurAccounts;
+    private AccessDistribution.Sampler sampler;
+    private String orderCurrency;
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = FundsTransferContext.start("--transactions.engine=" + ("sharded".equals(engine) ? "sharded" : "locking"),
+                                             "--transactions.optimistic.enabled=" + "optimistic".equals(engine));
+        transactionService = context.getBean(TransactionService.class);
+        usdAccounts = context.createAccounts(accounts, "USD");
+        eurAccounts = path == OperationPath.FX ? context.createAccounts(accounts, "EUR") : usdAccounts;
+        sampler = distribution.sampler(accounts);
+        orderCurrency = path == OperationPath.FX ? "EUR" : "USD";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferDto deposit(ThreadState state) {
+        return transactionService.deposit(new OrderRequest(usdAccounts[sampler.next(state.random)], AMOUNT, orderCurrency));
+    }
+
+    @Benchmark
+    public TransferDto withdraw(ThreadState state) {
+        return transactionService.withdraw(new OrderRequest(usdAccounts[sampler.next(state.random)], AMOUNT, orderCurrency));
+    }
+
+    @Benchmark
+    public TransferDto transfer(ThreadState state) {
+        int debit = sampler.next(state.random);
+        int credit = sampler.next(state.random);
+        if (path == OperationPath.SAME_CURRENCY && credit == debit) {
+            credit = (credit + 1) % accounts;
+        }
+        return transactionService.transfer(new TransferRequest(usdAccounts[debit], eurAccounts[credit], AMOUNT, "USD"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.gs.fundstransfer.batch;
+
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits the accounts into contiguous ownerId ranges of the same width. Account IDs are allocated sequentially, so
+ * the ranges hold about as many accounts each.
+ */
+public record AccountIdRangePartitioner(JdbcTemplate jdbcTemplate) implements Partitioner {
+
+    static final String MIN_ID = "minId";
+    static final String MAX_ID = "maxId";
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        long[] bounds = jdbcTemplate.queryForObject("select min(owner_id), max(owner_id) from account",
+                                                    (resultSet, row) -> resultSet.getObject(1) == null ? null
+                                                            : new long[]{resultSet.getLong(1), resultSet.getLong(2)});
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        if (bounds == null) {
+            partitions.put("partition0", range(1, 0));
+            return partitions;
+        }
+        long min = bounds[0];
+        long max = bounds[1];
+        long width = (max - min) / gridSize + 1;
+        int index = 0;
+        for (long start = min; start <= max; start += width) {
+            partitions.put("partition" + index++, range(start, Math.min(max, start + width - 1)));
+        }
+        return partitions;
+    }
+
+    private static ExecutionContext range(long minId, long maxId) {
+        ExecutionContext context = new ExecutionContext();
+        context.putLong(MIN_ID, minId);
+        context.putLong(MAX_ID, maxId);
+        return context;
+    }
+}
@@ -0,0 +1,9 @@
+package com.gs.fundstransfer.batch;
+
+import java.math.BigDecimal;
+
+/**
+ * An account as read by the posting job. The balance of a split account includes its slots.
+ */
+public record AccountRow(long ownerId, BigDecimal balance, String currency) {
+}
@@ -0,0 +1,17 @@
+package com.gs.fundstransfer.batch;
+
+import com.gs.fundstransfer.request.TransferRequest;
+
+/**
+ * A parsed import line: either a valid transfer, or the reason why the line is rejected.
+ */
+public record ImportItem(int lineNumber, TransferRequest transfer, String error) {
+
+    static ImportItem valid(int lineNumber, TransferRequest transfer) {
+        return new ImportItem(lineNumber, transfer, null);
+    }
+
+    static ImportItem invalid(int lineNumber, String error) {
+        return new ImportItem(lineNumber, null, error);
+    }
+}
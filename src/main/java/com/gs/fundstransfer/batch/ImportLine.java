@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.batch;
+
+/**
+ * A raw line of an import file, numbered from 1 like in a text editor.
+ */
+public record ImportLine(int lineNumber, String content) {
+}
@@ -0,0 +1,65 @@
+package com.gs.fundstransfer.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.request.ImportFormat;
+import com.gs.fundstransfer.request.TransferRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.math.BigDecimal;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Parses an import line into a {@link TransferRequest} and validates it with the same constraints as the transfer
+ * endpoint. Invalid lines are kept, with their error, so that they get a result too. Blank lines are ignored.
+ */
+public record ImportLineProcessor(ImportFormat format, ObjectMapper objectMapper, Validator validator)
+        implements ItemProcessor<ImportLine, ImportItem> {
+
+    private static final int CSV_FIELDS = 4;
+
+    @Override
+    public ImportItem process(ImportLine line) {
+        if (line.content()
+                .isBlank()) {
+            return null;
+        }
+        TransferRequest transfer;
+        try {
+            transfer = format == ImportFormat.CSV ? parseCsv(line.content()) : objectMapper.readValue(line.content(),
+                                                                                                     TransferRequest.class);
+        } catch (JsonProcessingException e) {
+            return ImportItem.invalid(line.lineNumber(), "Invalid JSON: " + e.getOriginalMessage());
+        } catch (IllegalArgumentException e) {
+            return ImportItem.invalid(line.lineNumber(), e.getMessage());
+        }
+        Set<ConstraintViolation<TransferRequest>> violations = validator.validate(transfer);
+        if (!violations.isEmpty()) {
+            return ImportItem.invalid(line.lineNumber(), violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+        return ImportItem.valid(line.lineNumber(), transfer);
+    }
+
+    private static TransferRequest parseCsv(String content) {
+        String[] fields = content.split(",", -1);
+        if (fields.length != CSV_FIELDS) {
+            throw new IllegalArgumentException("Expected " + CSV_FIELDS + " fields but found " + fields.length);
+        }
+        try {
+            return new TransferRequest(parseLong(fields[0]), parseLong(fields[1]), fields[2].isBlank() ? null
+                    : new BigDecimal(fields[2].trim()), fields[3].isBlank() ? null : fields[3].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in " + content);
+        }
+    }
+
+    private static Long parseLong(String field) {
+        return field.isBlank() ? null : Long.valueOf(field.trim());
+    }
+}
@@ -0,0 +1,11 @@
+package com.gs.fundstransfer.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gs.fundstransfer.dto.BatchItemStatus;
+
+/**
+ * The outcome of one import line, written to the result file.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImportResult(int line, BatchItemStatus status, String error) {
+}
@@ -0,0 +1,9 @@
+package com.gs.fundstransfer.batch;
+
+import java.math.BigDecimal;
+
+/**
+ * An interest credit or a fee debit of one account, rounded to the minor unit of its currency.
+ */
+public record Posting(long ownerId, BigDecimal amount, String currency) {
+}
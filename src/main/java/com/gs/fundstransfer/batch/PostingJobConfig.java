@@ -0,0 +1,123 @@
+package com.gs.fundstransfer.batch;
+
+import com.gs.fundstransfer.request.PostingType;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * End-of-day interest and fee postings.
+ *
+ * The accounts are split into {@code postings.partitions} ownerId ranges, processed in parallel. Each partition
+ * pages through its range in ownerId order and writes {@code postings.chunk-size} accounts per transaction. The
+ * job is identified by its posting type and business date: a failed job is restarted by launching it again with
+ * the same ones, and only its unfinished partitions resume, from their last committed chunk.
+ *
+ * Balances are updated in place, so the job only runs with the locking engine: the sharded engine keeps its
+ * balances in memory and would overwrite the postings.
+ */
+@Configuration
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+public class PostingJobConfig {
+
+    public static final String JOB_NAME = "postingJob";
+    public static final String TYPE = "type";
+    public static final String AMOUNT = "amount";
+    public static final String BUSINESS_DATE = "businessDate";
+    public static final String WORKER_STEP_NAME = "postingStep";
+
+    @Bean
+    public Job postingJob(JobRepository jobRepository, Step postingManagerStep) {
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .start(postingManagerStep)
+                .build();
+    }
+
+    @Bean
+    public Step postingManagerStep(JobRepository jobRepository, Step postingStep, JdbcTemplate jdbcTemplate,
+                                   @Value("${postings.partitions:4}") int partitions) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("posting-");
+        taskExecutor.setConcurrencyLimit(partitions);
+        return new StepBuilder("postingManagerStep", jobRepository)
+                .partitioner(WORKER_STEP_NAME, new AccountIdRangePartitioner(jdbcTemplate))
+                .step(postingStep)
+                .gridSize(partitions)
+                .taskExecutor(taskExecutor)
+                .build();
+    }
+
+    @Bean
+    public Step postingStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                            JdbcPagingItemReader<AccountRow> accountReader,
+                            ItemProcessor<AccountRow, Posting> postingProcessor, ItemWriter<Posting> postingWriter,
+                            @Value("${postings.chunk-size:1000}") int chunkSize) {
+        return new StepBuilder(WORKER_STEP_NAME, jobRepository)
+                .<AccountRow, Posting>chunk(chunkSize, transactionManager)
+                .reader(accountReader)
+                .processor(postingProcessor)
+                .writer(postingWriter)
+                // Lock timeouts and deadlocks with online operations roll the chunk back and write it again
+                .faultTolerant()
+                .retry(TransientDataAccessException.class)
+                .retryLimit(3)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<AccountRow> accountReader(DataSource dataSource,
+                                                          @Value("#{stepExecutionContext['minId']}") Long minId,
+                                                          @Value("#{stepExecutionContext['maxId']}") Long maxId,
+                                                          @Value("${postings.chunk-size:1000}") int chunkSize) {
+        return new JdbcPagingItemReaderBuilder<AccountRow>()
+                .name("accountReader")
+                .dataSource(dataSource)
+                .selectClause("owner_id, currency, balance + coalesce((select sum(s.balance) from account_slot s "
+                                      + "where s.owner_id = account.owner_id), 0) as balance")
+                .fromClause("account")
+                .whereClause("owner_id between :minId and :maxId")
+                .parameterValues(Map.of("minId", minId, "maxId", maxId))
+                .sortKeys(Map.of("owner_id", Order.ASCENDING))
+                .pageSize(chunkSize)
+                .rowMapper((resultSet, row) -> new AccountRow(resultSet.getLong("owner_id"),
+                                                              resultSet.getBigDecimal("balance"),
+                                                              resultSet.getString("currency")))
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<AccountRow, Posting> postingProcessor(@Value("#{jobParameters['type']}") String type,
+                                                               @Value("#{jobParameters['amount']}") String amount) {
+        return new PostingProcessor(PostingType.valueOf(type), new BigDecimal(amount));
+    }
+
+    @Bean
+    @StepScope
+    public ItemWriter<Posting> postingWriter(@Value("#{jobParameters['type']}") String type, JdbcTemplate jdbcTemplate,
+                                             SplitAccountService splitAccountService, LedgerService ledgerService) {
+        return new PostingWriter(PostingType.valueOf(type), jdbcTemplate, splitAccountService, ledgerService);
+    }
+}
@@ -0,0 +1,32 @@
+package com.gs.fundstransfer.batch;
+
+import com.gs.fundstransfer.request.PostingType;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+
+/**
+ * Computes the posting of one account. Accounts which get nothing, like an interest below the minor unit or a fee
+ * larger than the balance, are filtered out.
+ */
+public record PostingProcessor(PostingType type, BigDecimal amount) implements ItemProcessor<AccountRow, Posting> {
+
+    @Override
+    public Posting process(AccountRow account) {
+        int fractionDigits = Math.max(0, Currency.getInstance(account.currency())
+                .getDefaultFractionDigits());
+        BigDecimal posted = switch (type) {
+            case INTEREST -> account.balance()
+                    .multiply(amount)
+                    .setScale(fractionDigits, RoundingMode.HALF_EVEN);
+            case FEE -> amount.setScale(fractionDigits, RoundingMode.HALF_EVEN);
+        };
+        if (posted.signum() <= 0 || type == PostingType.FEE && account.balance()
+                .compareTo(posted) < 0) {
+            return null;
+        }
+        return new Posting(account.ownerId(), posted, account.currency());
+    }
+}
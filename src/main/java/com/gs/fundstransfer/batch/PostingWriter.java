@@ -0,0 +1,128 @@
+package com.gs.fundstransfer.batch;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.events.BalanceChangedEvent;
+import com.gs.fundstransfer.request.PostingType;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import lombok.extern.slf4j.Slf4j;
+import org.javamoney.moneta.Money;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies a chunk of postings with one JDBC batch of in-place balance updates, then records the applied ones in the
+ * ledger with a second JDBC batch, through {@link LedgerService#recordAll}. Everything runs in the chunk transaction,
+ * which also stores the reader position, so a restarted job resumes after the last committed chunk without posting
+ * any account twice. A posting is applied when its update matched one row, so the driver must report batch update
+ * counts: without them, the chunk is rolled back.
+ *
+ * The processor checks fees against the row and the slots of split accounts, so a fee the row alone does not cover
+ * sweeps the slots of its account into the row and is charged again. A fee still not covered, because online
+ * withdrawals spent the balance in the meantime, is logged and counted under {@value #UNCOVERED_FEES} in the step
+ * execution context once the chunk commits.
+ *
+ * A {@link BalanceChangedEvent} is published for every applied posting, so the account cache and the balance
+ * journal see them like any other movement once the chunk commits.
+ */
+@Slf4j
+public record PostingWriter(PostingType type, JdbcTemplate jdbcTemplate, SplitAccountService splitAccountService,
+                            LedgerService ledgerService) implements ItemWriter<Posting> {
+
+    public static final String UNCOVERED_FEES = "uncoveredFees";
+
+    // A fee only applies if the account row still covers it when the chunk is written
+    private static final String CREDIT = "update account set balance = balance + ?, version = version + 1 "
+            + "where owner_id = ? and currency = ?";
+    private static final String DEBIT = "update account set balance = balance - ?, version = version + 1 "
+            + "where owner_id = ? and currency = ? and balance >= ?";
+
+    @Override
+    public void write(Chunk<? extends Posting> chunk) {
+        List<? extends Posting> postings = chunk.getItems();
+        int[] updates = jdbcTemplate.batchUpdate(type == PostingType.INTEREST ? CREDIT : DEBIT, postings.stream()
+                .map(this::arguments)
+                .toList());
+        for (int update : updates) {
+            if (update == Statement.SUCCESS_NO_INFO) {
+                throw new IllegalStateException("The JDBC driver does not report batch update counts, "
+                                                        + "postings cannot tell which accounts were charged");
+            }
+        }
+        List<Posting> applied = new ArrayList<>(postings.size());
+        List<Posting> uncovered = new ArrayList<>();
+        for (int i = 0; i < postings.size(); i++) {
+            Posting posting = postings.get(i);
+            if (updates[i] == 1 || type == PostingType.FEE && chargeAfterConsolidating(posting)) {
+                applied.add(posting);
+            } else {
+                uncovered.add(posting);
+            }
+        }
+        if (!uncovered.isEmpty()) {
+            reportUncovered(uncovered);
+        }
+        ledgerService.recordAll(applied.stream()
+                                        .map(this::toTransfer)
+                                        .toList());
+    }
+
+    private Object[] arguments(Posting posting) {
+        return type == PostingType.INTEREST
+                ? new Object[]{posting.amount(), posting.ownerId(), posting.currency()}
+                : new Object[]{posting.amount(), posting.ownerId(), posting.currency(), posting.amount()};
+    }
+
+    /**
+     * Sweeps the slots of a split account into its row, then charges the fee again.
+     *
+     * @return true if the fee was charged
+     */
+    private boolean chargeAfterConsolidating(Posting posting) {
+        BigDecimal swept = splitAccountService.consolidate(posting.ownerId());
+        if (swept.signum() == 0) {
+            return false;
+        }
+        jdbcTemplate.update(CREDIT, swept, posting.ownerId(), posting.currency());
+        return jdbcTemplate.update(DEBIT, arguments(posting)) == 1;
+    }
+
+    private void reportUncovered(List<Posting> uncovered) {
+        uncovered.forEach(posting -> log.warn("The {} fee of account {} is no longer covered, it is not charged",
+                                              posting.amount(), posting.ownerId()));
+        StepExecution stepExecution = StepSynchronizationManager.getContext()
+                .getStepExecution();
+        // Counted once the chunk commits, so that a chunk written again is not counted twice
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ExecutionContext context = stepExecution.getExecutionContext();
+                context.putLong(UNCOVERED_FEES, context.getLong(UNCOVERED_FEES, 0) + uncovered.size());
+            }
+        });
+    }
+
+    private TransferDto toTransfer(Posting posting) {
+        Money amount = Money.of(posting.amount(), posting.currency());
+        return type == PostingType.INTEREST ? TransferDto.builder()
+                .creditAccountId(posting.ownerId())
+                .creditedAmount(amount)
+                .rate(BigDecimal.ONE)
+                .build() : TransferDto.builder()
+                .debitAccountId(posting.ownerId())
+                .debitedAmount(amount)
+                .rate(BigDecimal.ONE)
+                .build();
+    }
+}
@@ -0,0 +1,121 @@
+package com.gs.fundstransfer.batch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.request.ImportFormat;
+import com.gs.fundstransfer.services.TransactionService;
+import jakarta.validation.Validator;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileItemWriter;
+import org.springframework.batch.item.file.builder.FlatFileItemReaderBuilder;
+import org.springframework.batch.item.file.builder.FlatFileItemWriterBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Bulk transfer file imports.
+ *
+ * The file is read line by line, so its size does not matter. Each line is parsed and validated, then every
+ * {@code imports.chunk-size} lines are applied as one best-effort batch transfer, in one transaction. The outcome
+ * of every line is appended to a result file, one JSON object per line, in file order.
+ *
+ * The transfers must commit with the chunk, so the job only runs with the locking engine: the sharded engine applies
+ * them in memory, outside the chunk transaction, and a rolled back, retried or restarted chunk would apply them twice.
+ */
+@Configuration
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+public class TransferImportJobConfig {
+
+    public static final String JOB_NAME = "transferImportJob";
+    public static final String INPUT_FILE = "inputFile";
+    public static final String RESULT_FILE = "resultFile";
+    public static final String FORMAT = "format";
+    public static final String STEP_NAME = "transferImportStep";
+    public static final String APPLIED = "applied";
+    public static final String FAILED = "failed";
+
+    @Bean
+    public Job transferImportJob(JobRepository jobRepository, Step transferImportStep) {
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .start(transferImportStep)
+                .build();
+    }
+
+    @Bean
+    public Step transferImportStep(JobRepository jobRepository, PlatformTransactionManager transactionManager,
+                                   FlatFileItemReader<ImportLine> importLineReader,
+                                   ItemProcessor<ImportLine, ImportItem> importLineProcessor,
+                                   ItemWriter<ImportItem> transferImportWriter,
+                                   FlatFileItemWriter<ImportResult> importResultWriter,
+                                   @Value("${imports.chunk-size:500}") int chunkSize) {
+        return new StepBuilder(STEP_NAME, jobRepository)
+                .<ImportLine, ImportItem>chunk(chunkSize, transactionManager)
+                .reader(importLineReader)
+                .processor(importLineProcessor)
+                .writer(transferImportWriter)
+                .stream(importResultWriter)
+                // Lock timeouts and deadlocks with online operations roll the chunk back and apply it again
+                .faultTolerant()
+                .retry(TransientDataAccessException.class)
+                .retryLimit(3)
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemReader<ImportLine> importLineReader(@Value("#{jobParameters['inputFile']}") String inputFile,
+                                                           @Value("#{jobParameters['format']}") String format) {
+        return new FlatFileItemReaderBuilder<ImportLine>()
+                .name("importLineReader")
+                .resource(new FileSystemResource(inputFile))
+                .linesToSkip(ImportFormat.valueOf(format) == ImportFormat.CSV ? 1 : 0)
+                .lineMapper((line, lineNumber) -> new ImportLine(lineNumber, line))
+                .build();
+    }
+
+    @Bean
+    @StepScope
+    public ItemProcessor<ImportLine, ImportItem> importLineProcessor(@Value("#{jobParameters['format']}") String format,
+                                                                     ObjectMapper objectMapper, Validator validator) {
+        return new ImportLineProcessor(ImportFormat.valueOf(format), objectMapper, validator);
+    }
+
+    @Bean
+    @StepScope
+    public ItemWriter<ImportItem> transferImportWriter(TransactionService transactionService,
+                                                       FlatFileItemWriter<ImportResult> importResultWriter) {
+        return new TransferImportWriter(transactionService, importResultWriter);
+    }
+
+    @Bean
+    @StepScope
+    public FlatFileItemWriter<ImportResult> importResultWriter(@Value("#{jobParameters['resultFile']}") String resultFile,
+                                                               ObjectMapper objectMapper) {
+        return new FlatFileItemWriterBuilder<ImportResult>()
+                .name("importResultWriter")
+                .resource(new FileSystemResource(resultFile))
+                .lineAggregator(result -> {
+                    try {
+                        return objectMapper.writeValueAsString(result);
+                    } catch (JsonProcessingException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .build();
+    }
+}
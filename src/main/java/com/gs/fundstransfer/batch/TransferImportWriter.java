@@ -0,0 +1,65 @@
+package com.gs.fundstransfer.batch;
+
+import com.gs.fundstransfer.dto.BatchItemStatus;
+import com.gs.fundstransfer.dto.BatchTransferItemDto;
+import com.gs.fundstransfer.request.BatchMode;
+import com.gs.fundstransfer.request.BatchTransferRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.TransactionService;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Applies the valid lines of a chunk as one best-effort batch transfer, then writes a result for every line.
+ *
+ * The batch transfer locks each account of the chunk once, in ownerId order, however many lines use it, and applies
+ * the lines in file order. It joins the chunk transaction, so the transfers, the result lines and the reader position
+ * are committed together, and a restarted import resumes after the last committed chunk.
+ */
+public record TransferImportWriter(TransactionService transactionService, ItemWriter<ImportResult> resultWriter)
+        implements ItemWriter<ImportItem> {
+
+    @Override
+    public void write(Chunk<? extends ImportItem> chunk) throws Exception {
+        List<TransferRequest> transfers = chunk.getItems()
+                .stream()
+                .filter(item -> item.error() == null)
+                .map(ImportItem::transfer)
+                .toList();
+        Iterator<BatchTransferItemDto> transferResults = transfers.isEmpty() ? List.<BatchTransferItemDto>of()
+                .iterator() : transactionService.transferBatch(new BatchTransferRequest(transfers, BatchMode.BEST_EFFORT))
+                .getResults()
+                .iterator();
+
+        List<ImportResult> results = new ArrayList<>(chunk.size());
+        for (ImportItem item : chunk) {
+            if (item.error() != null) {
+                results.add(new ImportResult(item.lineNumber(), BatchItemStatus.FAILED, item.error()));
+            } else {
+                BatchTransferItemDto result = transferResults.next();
+                results.add(new ImportResult(item.lineNumber(), result.getStatus(), result.getError()));
+            }
+        }
+        resultWriter.write(new Chunk<>(results));
+
+        // Counted once the chunk can no longer be retried, the context is saved with it
+        long applied = results.stream()
+                .filter(result -> result.status() == BatchItemStatus.APPLIED)
+                .count();
+        ExecutionContext context = StepSynchronizationManager.getContext()
+                .getStepExecution()
+                .getExecutionContext();
+        add(context, TransferImportJobConfig.APPLIED, applied);
+        add(context, TransferImportJobConfig.FAILED, results.size() - applied);
+    }
+
+    private static void add(ExecutionContext context, String key, long count) {
+        context.putLong(key, context.getLong(key, 0) + count);
+    }
+}
@@ -0,0 +1,106 @@
+package com.gs.fundstransfer.configs;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admits at most a fixed number of callers to the connection pool at once, in arrival order.
+ *
+ * With virtual threads there is no worker pool left to bound concurrency, so thousands of requests can reach
+ * the pool together. They wait here on a fair semaphore instead, which only parks the virtual thread. A permit is
+ * held from {@code getConnection} until the connection is closed.
+ */
+public class AdmissionControlledDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final Duration timeout;
+
+    public AdmissionControlledDataSource(DataSource targetDataSource, int permits, Duration timeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(permits, true);
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return admitted(this::obtainConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return admitted(() -> obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Returns the number of callers waiting for a permit.
+     */
+    public int getWaiting() {
+        return permits.getQueueLength();
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    private Connection obtainConnection() throws SQLException {
+        return obtainTargetDataSource().getConnection();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "Timed out after " + timeout + " waiting for a database connection permit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection permit", e);
+        }
+    }
+
+    private Connection admitted(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                                                   (proxy, method, args) -> {
+            if (method.getName()
+                    .equals("close") && released.compareAndSet(false, true)) {
+                try {
+                    connection.close();
+                } finally {
+                    permits.release();
+                }
+                return null;
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
@@ -1,5 +1,6 @@
 package com.gs.fundstransfer.configs;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.gs.fundstransfer.mapper.MonetaryAmountSerializer;
@@ -14,6 +15,8 @@ public class JacksonConfig {
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
+        // Stripped amounts such as 1E+3 are written as 1000
+        mapper.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
         mapper.registerModule(new SimpleModule().addSerializer(MonetaryAmount.class, new MonetaryAmountSerializer()));
         return mapper;
     }
@@ -1,9 +1,101 @@
 package com.gs.fundstransfer.configs;
 
+import jakarta.persistence.PessimisticLockException;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.interceptor.RetryInterceptorBuilder;
+import org.springframework.retry.interceptor.RetryOperationsInterceptor;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.List;
 
 @Configuration
 @EnableRetry
 public class RetryConfig {
+
+    /**
+     * Retry context attribute, true while the current attempt is a retry after a version conflict.
+     */
+    public static final String RETRYING_CONFLICT = "transactions.retrying-conflict";
+
+    /**
+     * Retries deposit, withdraw and transfer, with {@code @Retryable(interceptor = "transactionRetryInterceptor")}.
+     */
+    @Bean
+    public RetryOperationsInterceptor transactionRetryInterceptor(RetryTemplate transactionRetryTemplate) {
+        return RetryInterceptorBuilder.stateless()
+                .retryOperations(transactionRetryTemplate)
+                .build();
+    }
+
+    /**
+     * The retry policy of the transaction operations, also used by the components which apply them in batches.
+     *
+     * Up to 3 attempts on lock timeouts and version conflicts. Lock timeouts wait 200 ms before the next attempt.
+     * Version conflicts are retried right away: the next attempt locks the accounts instead of checking versions,
+     * so it does not wait on anyone it would not have waited on anyway: the retry context carries
+     * {@link #RETRYING_CONFLICT} for that attempt. Every RetryListener bean is applied, like
+     * for the plain {@code @Retryable} methods.
+     */
+    @Bean
+    public RetryTemplate transactionRetryTemplate(List<RetryListener> listeners) {
+        FixedBackOffPolicy lockBackOff = new FixedBackOffPolicy();
+        lockBackOff.setBackOffPeriod(200);
+        return RetryTemplate.builder()
+                .maxAttempts(3)
+                .retryOn(List.of(PessimisticLockException.class, CannotAcquireLockException.class,
+                                 OptimisticLockingFailureException.class))
+                .customBackoff(new NoBackOffAfterConflictPolicy(lockBackOff))
+                .withListener(new ConflictListener())
+                .withListeners(listeners)
+                .build();
+    }
+
+    private static boolean isRetryingConflict(RetryContext context) {
+        return Boolean.TRUE.equals(context.getAttribute(RETRYING_CONFLICT));
+    }
+
+    /**
+     * Sets {@link #RETRYING_CONFLICT} after each failed attempt, before the backoff and the next attempt.
+     */
+    private static class ConflictListener implements RetryListener {
+
+        @Override
+        public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+                                                     Throwable throwable) {
+            context.setAttribute(RETRYING_CONFLICT, throwable instanceof OptimisticLockingFailureException);
+        }
+    }
+
+    /**
+     * Backs off like the given policy, except after a version conflict.
+     */
+    private record NoBackOffAfterConflictPolicy(BackOffPolicy delegate) implements BackOffPolicy {
+
+        @Override
+        public BackOffContext start(RetryContext context) {
+            return new ConflictBackOffContext(context, delegate.start(context));
+        }
+
+        @Override
+        public void backOff(BackOffContext backOffContext) {
+            ConflictBackOffContext conflictContext = (ConflictBackOffContext) backOffContext;
+            if (!isRetryingConflict(conflictContext.retryContext())) {
+                delegate.backOff(conflictContext.delegate());
+            }
+        }
+    }
+
+    private record ConflictBackOffContext(RetryContext retryContext, BackOffContext delegate)
+            implements BackOffContext {
+    }
 }
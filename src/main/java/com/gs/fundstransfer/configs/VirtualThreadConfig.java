@@ -0,0 +1,69 @@
+package com.gs.fundstransfer.configs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Puts the admission limiter in front of the connection pool. Enabled by default together with
+ * {@code spring.threads.virtual.enabled}, or on its own with {@code datasource.admission.enabled}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.admission.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    static AdmissionControlledDataSourcePostProcessor admissionControlledDataSourcePostProcessor(
+            @Value("${datasource.admission.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${datasource.admission.timeout:30s}") Duration timeout) {
+        return new AdmissionControlledDataSourcePostProcessor(permits, timeout);
+    }
+
+    /**
+     * Priority ordered, so that it is registered before post processors which eagerly create the pool,
+     * like the Spring Batch job registry.
+     */
+    record AdmissionControlledDataSourcePostProcessor(int permits, Duration timeout)
+            implements BeanPostProcessor, PriorityOrdered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource && !(bean instanceof AdmissionControlledDataSource)) {
+                return new AdmissionControlledDataSource(dataSource, permits, timeout);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+
+    // The pool is looked up when the gauges are read, binding must not create it early
+    @Bean
+    public MeterBinder admissionControlledDataSourceMetrics(ObjectProvider<DataSource> dataSource) {
+        return registry -> {
+            Gauge.builder("datasource.admission.waiting", () -> admission(dataSource).getWaiting())
+                    .description("Callers waiting for a database connection permit")
+                    .register(registry);
+            Gauge.builder("datasource.admission.available", () -> admission(dataSource).getAvailablePermits())
+                    .description("Database connection permits available")
+                    .register(registry);
+        };
+    }
+
+    private static AdmissionControlledDataSource admission(ObjectProvider<DataSource> dataSource) {
+        return (AdmissionControlledDataSource) dataSource.getObject();
+    }
+}
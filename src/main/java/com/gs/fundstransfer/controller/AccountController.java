@@ -1,8 +1,14 @@
 package com.gs.fundstransfer.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.AccountPageDto;
+import com.gs.fundstransfer.dto.LedgerPageDto;
 import com.gs.fundstransfer.request.CreateAccountRequest;
 import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,10 +18,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 
 @RestController
 @Tag(name = "account", description = "The controller responsible for accounts operations")
@@ -29,6 +40,18 @@ public class AccountController {
      */
     private final AccountService accountService;
 
+    /**
+     * Service responsible for reading the ledger entries of an account.
+     */
+    private final LedgerService ledgerService;
+
+    /**
+     * Service responsible for splitting contended accounts into slots.
+     */
+    private final SplitAccountService splitAccountService;
+
+    private final ObjectMapper objectMapper;
+
     /**
      * Creates a new account.
      *
@@ -61,14 +84,85 @@ public class AccountController {
     }
 
     /**
-     * Retrieves a list of all accounts.
+     * Splits a very contended account, like a payroll or merchant settlement account, into slots which absorb
+     * concurrent deposits.
      *
-     * @return a ResponseEntity containing a list of AccountDto objects representing all accounts
+     * @param id    the unique identifier of the account
+     * @param slots the number of slots
+     * @return a ResponseEntity containing the account
      */
-    @Operation(summary = "Get all accounts", description = "Returns a list of all account details.")
-    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the list of accounts"), @ApiResponse(responseCode = "500", description = "Internal server error")})
-    @GetMapping
-    public ResponseEntity<List<AccountDto>> getAll() {
-        return ResponseEntity.ok(accountService.getAll());
+    @Operation(summary = "Split an account", description = "Spreads the deposits of a hot account over the given number of slots. An account can only get more slots.")
+    @ApiResponse(responseCode = "200", description = "Account split successfully", content = @Content(schema = @Schema(implementation = AccountDto.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid number of slots")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    @ApiResponse(responseCode = "500", description = "Internal server error")
+    @Parameter(name = "id", description = "Unique identifier of the account", required = true)
+    @PostMapping("/{id}/split")
+    public ResponseEntity<AccountDto> split(@PathVariable Long id, @RequestParam int slots) {
+        splitAccountService.split(id, slots);
+        return ResponseEntity.ok(accountService.get(id));
+    }
+
+    /**
+     * Retrieves a page of accounts, ordered by owner ID.
+     *
+     * @param after the cursor returned by the previous page, omitted for the first page
+     * @param limit the maximum number of accounts to return
+     * @return a ResponseEntity containing the accounts and the cursor of the next page
+     */
+    @Operation(summary = "Get accounts", description = "Returns account details ordered by owner ID, using keyset pagination.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Successfully retrieved the page of accounts", content = @Content(schema = @Schema(implementation = AccountPageDto.class))), @ApiResponse(responseCode = "500", description = "Internal server error")})
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AccountPageDto> getAll(@RequestParam(required = false) Long after,
+                                                 @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(accountService.getPage(after, limit));
+    }
+
+    /**
+     * Streams all accounts as newline-delimited JSON, one account per line, ordered by owner ID.
+     * Accounts are written to the response as they are read from the database.
+     *
+     * @return a ResponseEntity whose body writes the accounts to the response
+     */
+    @Operation(summary = "Stream all accounts", description = "Streams every account as newline-delimited JSON when requested with Accept: application/x-ndjson.")
+    @ApiResponses(value = {@ApiResponse(responseCode = "200", description = "Accounts streamed successfully"), @ApiResponse(responseCode = "500", description = "Internal server error")})
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        ObjectWriter writer = objectMapper.writerFor(AccountDto.class);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream buffered = new BufferedOutputStream(outputStream);
+            accountService.streamAll(accountDto -> {
+                try {
+                    buffered.write(writer.writeValueAsBytes(accountDto));
+                    buffered.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            buffered.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Retrieves a page of the ledger entries of an account, newest first.
+     *
+     * @param id     the unique identifier of the account
+     * @param before the cursor returned by the previous page, omitted for the first page
+     * @param limit  the maximum number of entries to return
+     * @return a ResponseEntity containing the entries and the cursor of the next page
+     */
+    @Operation(summary = "Get account entries", description = "Returns the ledger entries of an account, newest first, using keyset pagination.")
+    @ApiResponse(responseCode = "200", description = "Entries retrieved successfully", content = @Content(schema = @Schema(implementation = LedgerPageDto.class)))
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    @ApiResponse(responseCode = "500", description = "Internal server error")
+    @Parameter(name = "id", description = "Unique identifier of the account", required = true)
+    @GetMapping("/{id}/entries")
+    public ResponseEntity<LedgerPageDto> getEntries(@PathVariable Long id,
+                                                    @RequestParam(required = false) Long before,
+                                                    @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(ledgerService.getEntries(id, before, limit));
     }
 }
@@ -0,0 +1,44 @@
+package com.gs.fundstransfer.controller;
+
+import com.gs.fundstransfer.dto.FxQuoteDto;
+import com.gs.fundstransfer.request.FxQuoteRequest;
+import com.gs.fundstransfer.services.FxQuoteService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@Tag(name = "FX Quote Controller", description = "FX rates fixed for a short time")
+@RequestMapping("${url}/fx/quotes")
+@RequiredArgsConstructor
+public class FxQuoteController {
+
+    private final FxQuoteService fxQuoteService;
+
+    /**
+     * Quotes the current rate of a currency pair. Deposits, withdrawals and transfers which pass the quote ID
+     * are converted at that rate until the quote expires.
+     *
+     * @param request the base and term currencies
+     * @return a ResponseEntity containing the quote, with its ID and expiry
+     */
+    @Operation(summary = "Create an FX quote", description = "Fixes the current rate of a currency pair until the quote expires.")
+    @ApiResponse(responseCode = "201", description = "Quote created", content = @Content(schema = @Schema(implementation = FxQuoteDto.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid currency pair")
+    @ApiResponse(responseCode = "503", description = "No rate is known for the pair")
+    @PostMapping
+    public ResponseEntity<FxQuoteDto> create(@Valid @RequestBody FxQuoteRequest request) {
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(fxQuoteService.create(request));
+    }
+}
@@ -0,0 +1,81 @@
+package com.gs.fundstransfer.controller;
+
+import com.gs.fundstransfer.dto.FxRateDto;
+import com.gs.fundstransfer.services.impl.InMemoryExchangeRateProvider;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@RestController
+@Tag(name = "FX Rate Controller", description = "Administration of the local FX rate table")
+@RequestMapping("${url}/admin/fx/rates")
+@ConditionalOnProperty(name = "fx.provider", havingValue = "local", matchIfMissing = true)
+@RequiredArgsConstructor
+public class FxRateController {
+
+    private final InMemoryExchangeRateProvider exchangeRateProvider;
+
+    /**
+     * Replaces the whole local rate table.
+     *
+     * @param rates the rates keyed by pair, formatted as {@code BASE/TERM}, e.g. {"EUR/USD": 1.0842}
+     * @return an empty ResponseEntity once the new rates are in use
+     */
+    @Operation(summary = "Load FX rates", description = "Atomically replaces the local FX rate table. Inverse pairs are derived, and pairs quoted in neither direction are triangulated through the pivot currency.")
+    @ApiResponse(responseCode = "204", description = "Rates loaded successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid currency pair or rate")
+    @PutMapping
+    public ResponseEntity<Void> load(@RequestBody Map<String, BigDecimal> rates) {
+        exchangeRateProvider.load(rates);
+        return ResponseEntity.noContent()
+                .build();
+    }
+
+    /**
+     * Sets a single quote. Only the rates derived from it are recomputed.
+     *
+     * @param base the base currency of the quote
+     * @param term the term currency of the quote
+     * @param rate the factor converting one unit of the base currency into the term currency
+     * @return an empty ResponseEntity once the new rate is in use
+     */
+    @Operation(summary = "Update an FX rate", description = "Sets a single quote and recomputes its inverse and the rates triangulated through it.")
+    @ApiResponse(responseCode = "204", description = "Rate updated successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid currency pair or rate")
+    @Parameter(name = "base", description = "Base currency ISO code", required = true)
+    @Parameter(name = "term", description = "Term currency ISO code", required = true)
+    @PutMapping("/{base}/{term}")
+    public ResponseEntity<Void> update(@PathVariable String base, @PathVariable String term,
+                                       @RequestBody BigDecimal rate) {
+        exchangeRateProvider.update(base + "/" + term, rate);
+        return ResponseEntity.noContent()
+                .build();
+    }
+
+    /**
+     * Retrieves the rate of a pair and how it was derived from the quotes.
+     *
+     * @param base the base currency
+     * @param term the term currency
+     * @return a ResponseEntity containing the rate and its derivation
+     */
+    @Operation(summary = "Get an FX rate", description = "Returns the rate of a pair, quoted, inverted or triangulated through the pivot currency, with its derivation.")
+    @ApiResponse(responseCode = "200", description = "Rate found", content = @Content(schema = @Schema(implementation = FxRateDto.class)))
+    @ApiResponse(responseCode = "503", description = "No rate is known for the pair")
+    @Parameter(name = "base", description = "Base currency ISO code", required = true)
+    @Parameter(name = "term", description = "Term currency ISO code", required = true)
+    @GetMapping("/{base}/{term}")
+    public ResponseEntity<FxRateDto> get(@PathVariable String base, @PathVariable String term) {
+        return ResponseEntity.ok(exchangeRateProvider.getRateWithDerivation(base, term));
+    }
+}
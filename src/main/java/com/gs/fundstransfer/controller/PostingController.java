@@ -0,0 +1,58 @@
+package com.gs.fundstransfer.controller;
+
+import com.gs.fundstransfer.dto.PostingJobDto;
+import com.gs.fundstransfer.request.PostingRequest;
+import com.gs.fundstransfer.services.PostingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@Tag(name = "Posting Controller", description = "End-of-day interest and fee postings")
+@RequestMapping("${url}/admin/postings")
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@RequiredArgsConstructor
+public class PostingController {
+
+    private final PostingService postingService;
+
+    /**
+     * Starts the interest or fee postings of a business date, in the background.
+     *
+     * @param request the posting type, its amount and the business date
+     * @return a ResponseEntity containing the started job execution
+     */
+    @Operation(summary = "Start postings", description = "Posts interest or a fee to every account. Launching the postings of a failed business date again resumes them.")
+    @ApiResponse(responseCode = "202", description = "Postings started", content = @Content(schema = @Schema(implementation = PostingJobDto.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid posting request")
+    @ApiResponse(responseCode = "409", description = "Postings already running or complete for this business date")
+    @PostMapping
+    public ResponseEntity<PostingJobDto> start(@Valid @RequestBody PostingRequest request) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(postingService.start(request));
+    }
+
+    /**
+     * Retrieves the progress of postings.
+     *
+     * @param executionId the ID returned when the postings were started
+     * @return a ResponseEntity containing the job execution
+     */
+    @Operation(summary = "Get postings", description = "Returns the status and the counts of a posting job execution.")
+    @ApiResponse(responseCode = "200", description = "Job execution found", content = @Content(schema = @Schema(implementation = PostingJobDto.class)))
+    @ApiResponse(responseCode = "404", description = "Job execution not found")
+    @Parameter(name = "executionId", description = "ID of the job execution", required = true)
+    @GetMapping("/{executionId}")
+    public ResponseEntity<PostingJobDto> get(@PathVariable Long executionId) {
+        return ResponseEntity.ok(postingService.get(executionId));
+    }
+}
@@ -1,8 +1,12 @@
 package com.gs.fundstransfer.controller;
 
+import com.gs.fundstransfer.dto.BatchTransferDto;
 import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.request.BatchTransferRequest;
 import com.gs.fundstransfer.request.TransferRequest;
 import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.IdempotencyService;
 import com.gs.fundstransfer.services.TransactionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,6 +17,10 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @Tag(name = "Transaction Controller", description = "Controller for handling transactions including transfers, withdrawals, and deposits")
@@ -20,11 +28,16 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class TransactionController {
 
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final TransactionService transactionService;
 
+    private final IdempotencyService idempotencyService;
+
     /**
      * Handles the transfer of funds between two accounts.
      *
+     * @param idempotencyKey optional key making retries of the same request safe, its first result is replayed
      * @param request the transfer request containing debit account ID, credit account ID, amount, and currency
      * @return a TransferDto object containing the details of the transfer, including debited and credited amounts and currency
      */
@@ -33,16 +46,40 @@ public class TransactionController {
             @ApiResponse(responseCode = "200", description = "Transfer completed successfully",
                     content = @Content(schema = @Schema(implementation = TransferDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid transfer request"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
             @ApiResponse(responseCode = "500", description = "Internal server error during transfer operation")
     })
     @PostMapping("/transfer")
-    public TransferDto transfer(@Valid @RequestBody TransferRequest request) {
-        return transactionService.transfer(request);
+    public TransferDto transfer(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                @Valid @RequestBody TransferRequest request) {
+        return idempotencyService.execute(idempotencyKey, OperationType.TRANSFER, request,
+                                          () -> transactionService.transfer(request, idempotencyKey));
+    }
+
+    /**
+     * Applies a batch of transfers in a single transaction.
+     *
+     * @param request the transfers to apply and the batch mode, ALL_OR_NOTHING or BEST_EFFORT
+     * @return a BatchTransferDto object reporting the outcome of every transfer, in request order
+     */
+    @Operation(summary = "Transfer funds in batch", description = "Applies a list of transfers in one transaction, either all or nothing or best effort.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch applied, see the per-transfer results",
+                    content = @Content(schema = @Schema(implementation = BatchTransferDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid batch request"),
+            @ApiResponse(responseCode = "422", description = "All or nothing batch rolled back, see the per-transfer results",
+                    content = @Content(schema = @Schema(implementation = BatchTransferDto.class))),
+            @ApiResponse(responseCode = "500", description = "Internal server error during batch operation")
+    })
+    @PostMapping("/transfers:batch")
+    public BatchTransferDto transferBatch(@Valid @RequestBody BatchTransferRequest request) {
+        return transactionService.transferBatch(request);
     }
 
     /**
      * Processes a withdrawal request.
      *
+     * @param idempotencyKey optional key making retries of the same request safe, its first result is replayed
      * @param request the request containing withdrawal details such as account ID, amount, and currency
      * @return a TransferDto object containing details of the completed withdrawal transaction
      */
@@ -51,16 +88,20 @@ public class TransactionController {
             @ApiResponse(responseCode = "200", description = "Withdrawal successful",
                     content = @Content(schema = @Schema(implementation = TransferDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid withdrawal request"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
             @ApiResponse(responseCode = "500", description = "Internal server error during withdrawal operation")
     })
     @PostMapping("/withdraw")
-    public TransferDto withdraw(@Valid @RequestBody OrderRequest request) {
-        return transactionService.withdraw(request);
+    public TransferDto withdraw(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                @Valid @RequestBody OrderRequest request) {
+        return idempotencyService.execute(idempotencyKey, OperationType.WITHDRAW, request,
+                                          () -> transactionService.withdraw(request, idempotencyKey));
     }
 
     /**
      * Handles the deposit operation for a given account.
      *
+     * @param idempotencyKey optional key making retries of the same request safe, its first result is replayed
      * @param request the order request containing account information and the deposit amount
      * @return a TransferDto object containing details of the deposit transaction
      */
@@ -69,10 +110,97 @@ public class TransactionController {
             @ApiResponse(responseCode = "200", description = "Deposit successful",
                     content = @Content(schema = @Schema(implementation = TransferDto.class))),
             @ApiResponse(responseCode = "400", description = "Invalid deposit request"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
             @ApiResponse(responseCode = "500", description = "Internal server error during deposit operation")
     })
     @PostMapping("/deposit")
-    public TransferDto deposit(@Valid @RequestBody OrderRequest request) {
-        return transactionService.deposit(request);
+    public TransferDto deposit(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                @Valid @RequestBody OrderRequest request) {
+        return idempotencyService.execute(idempotencyKey, OperationType.DEPOSIT, request,
+                                          () -> transactionService.deposit(request, idempotencyKey));
+    }
+
+    /**
+     * Deposits like {@link #deposit}, releasing the request thread until the deposit is committed. Concurrent
+     * asynchronous operations on the same account are applied together, in one transaction.
+     *
+     * @param idempotencyKey optional key making retries of the same request safe, its first result is replayed
+     * @param request the order request containing account information and the deposit amount
+     * @return a DeferredResult set with the details of the deposit transaction once it is committed
+     */
+    @Operation(summary = "Deposit funds asynchronously", description = "Processes a deposit without holding a request thread, coalesced with the other asynchronous operations of the account.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Deposit successful",
+                    content = @Content(schema = @Schema(implementation = TransferDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid deposit request"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
+            @ApiResponse(responseCode = "500", description = "Internal server error during deposit operation")
+    })
+    @PostMapping("/deposit:async")
+    public DeferredResult<TransferDto> depositAsync(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                    @Valid @RequestBody OrderRequest request) {
+        return deferred(idempotencyService.executeAsync(idempotencyKey, OperationType.DEPOSIT, request,
+                                                        () -> transactionService.depositAsync(request, idempotencyKey)));
+    }
+
+    /**
+     * Withdraws like {@link #withdraw}, releasing the request thread until the withdrawal is committed.
+     *
+     * @param idempotencyKey optional key making retries of the same request safe, its first result is replayed
+     * @param request the request containing withdrawal details such as account ID, amount, and currency
+     * @return a DeferredResult set with the details of the withdrawal once it is committed
+     */
+    @Operation(summary = "Withdraw funds asynchronously", description = "Processes a withdrawal without holding a request thread, coalesced with the other asynchronous operations of the account.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Withdrawal successful",
+                    content = @Content(schema = @Schema(implementation = TransferDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid withdrawal request"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
+            @ApiResponse(responseCode = "500", description = "Internal server error during withdrawal operation")
+    })
+    @PostMapping("/withdraw:async")
+    public DeferredResult<TransferDto> withdrawAsync(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                     @Valid @RequestBody OrderRequest request) {
+        return deferred(idempotencyService.executeAsync(idempotencyKey, OperationType.WITHDRAW, request,
+                                                        () -> transactionService.withdrawAsync(request, idempotencyKey)));
+    }
+
+    /**
+     * Transfers like {@link #transfer}, releasing the request thread until the transfer is committed. The transfer
+     * is coalesced with the other asynchronous operations of its debit account.
+     *
+     * @param idempotencyKey optional key making retries of the same request safe, its first result is replayed
+     * @param request the transfer request containing debit account ID, credit account ID, amount, and currency
+     * @return a DeferredResult set with the details of the transfer once it is committed
+     */
+    @Operation(summary = "Transfer funds asynchronously", description = "Transfers without holding a request thread, coalesced with the other asynchronous operations of the debit account.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Transfer completed successfully",
+                    content = @Content(schema = @Schema(implementation = TransferDto.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid transfer request"),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request"),
+            @ApiResponse(responseCode = "500", description = "Internal server error during transfer operation")
+    })
+    @PostMapping("/transfer:async")
+    public DeferredResult<TransferDto> transferAsync(@RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+                                                     @Valid @RequestBody TransferRequest request) {
+        return deferred(idempotencyService.executeAsync(idempotencyKey, OperationType.TRANSFER, request,
+                                                        () -> transactionService.transferAsync(request, idempotencyKey)));
+    }
+
+    /**
+     * Sets the result, or the exception, of an operation once it completes. Exceptions go through the usual
+     * exception handlers.
+     */
+    private static DeferredResult<TransferDto> deferred(CompletableFuture<TransferDto> result) {
+        DeferredResult<TransferDto> deferredResult = new DeferredResult<>();
+        result.whenComplete((transferDto, e) -> {
+            if (e == null) {
+                deferredResult.setResult(transferDto);
+            } else {
+                deferredResult.setErrorResult(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+        return deferredResult;
     }
 }
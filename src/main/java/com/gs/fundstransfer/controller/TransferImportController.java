@@ -0,0 +1,82 @@
+package com.gs.fundstransfer.controller;
+
+import com.gs.fundstransfer.dto.ImportJobDto;
+import com.gs.fundstransfer.request.ImportFormat;
+import com.gs.fundstransfer.services.TransferImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@Tag(name = "Transfer Import Controller", description = "Bulk transfer imports from CSV or NDJSON files")
+@RequestMapping("${url}/transactions/imports")
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TransferImportController {
+
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final TransferImportService transferImportService;
+
+    /**
+     * Imports a file of transfers, in the background. The request body is streamed to disk as it is received.
+     *
+     * @param format the format of the file, CSV with a header line or NDJSON
+     * @param content the file, as the raw request body
+     * @return a ResponseEntity containing the started job execution
+     */
+    @Operation(summary = "Import transfers", description = "Applies the transfers of a CSV or NDJSON file, validated like single transfers. Every line gets a result, invalid or failing lines do not stop the import.")
+    @ApiResponse(responseCode = "202", description = "Import started", content = @Content(schema = @Schema(implementation = ImportJobDto.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid format")
+    @Parameter(name = "format", description = "Format of the file", required = true)
+    @PostMapping
+    public ResponseEntity<ImportJobDto> start(@RequestParam ImportFormat format, InputStream content) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(transferImportService.start(content, format));
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @param executionId the ID returned when the import was started
+     * @return a ResponseEntity containing the job execution
+     */
+    @Operation(summary = "Get import", description = "Returns the status and the counts of an import job execution.")
+    @ApiResponse(responseCode = "200", description = "Job execution found", content = @Content(schema = @Schema(implementation = ImportJobDto.class)))
+    @ApiResponse(responseCode = "404", description = "Job execution not found")
+    @Parameter(name = "executionId", description = "ID of the job execution", required = true)
+    @GetMapping("/{executionId}")
+    public ResponseEntity<ImportJobDto> get(@PathVariable Long executionId) {
+        return ResponseEntity.ok(transferImportService.get(executionId));
+    }
+
+    /**
+     * Streams the per-line results of an import, one JSON object per line, for the lines imported so far.
+     *
+     * @param executionId the ID returned when the import was started
+     * @return a ResponseEntity streaming the result file
+     */
+    @Operation(summary = "Get import results", description = "Returns the line number, status and error of every imported line, as NDJSON.")
+    @ApiResponse(responseCode = "200", description = "Results found")
+    @ApiResponse(responseCode = "404", description = "Job execution or results not found")
+    @Parameter(name = "executionId", description = "ID of the job execution", required = true)
+    @GetMapping("/{executionId}/results")
+    public ResponseEntity<Resource> getResults(@PathVariable Long executionId) {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(new FileSystemResource(transferImportService.getResults(executionId)));
+    }
+}
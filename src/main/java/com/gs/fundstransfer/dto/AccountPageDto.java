@@ -0,0 +1,20 @@
+package com.gs.fundstransfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AccountPageDto {
+    List<AccountDto> accounts;
+    // Cursor for the next page, absent on the last page
+    Long nextAfter;
+}
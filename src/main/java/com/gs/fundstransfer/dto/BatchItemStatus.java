@@ -0,0 +1,14 @@
+package com.gs.fundstransfer.dto;
+
+public enum BatchItemStatus {
+    APPLIED,
+    FAILED,
+    /**
+     * The transfer was valid but the batch was rolled back because of another transfer.
+     */
+    ROLLED_BACK,
+    /**
+     * The transfer was not attempted because the batch was rolled back before reaching it.
+     */
+    SKIPPED
+}
@@ -0,0 +1,50 @@
+package com.gs.fundstransfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferDto {
+    int applied;
+    int failed;
+    List<BatchTransferItemDto> results;
+
+    public static BatchTransferDto of(List<BatchTransferItemDto> results) {
+        int applied = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemStatus.APPLIED)
+                .count();
+        int failed = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemStatus.FAILED)
+                .count();
+        return new BatchTransferDto(applied, failed, results);
+    }
+
+    /**
+     * Reports the outcome of an ALL_OR_NOTHING batch after its last result failed: the transfers applied before
+     * it are rolled back and the ones after it were never attempted.
+     */
+    public static BatchTransferDto rolledBack(List<BatchTransferItemDto> results, int size) {
+        List<BatchTransferItemDto> report = new ArrayList<>(size);
+        for (BatchTransferItemDto result : results) {
+            report.add(result.getStatus() == BatchItemStatus.APPLIED ? BatchTransferItemDto.builder()
+                    .index(result.getIndex())
+                    .status(BatchItemStatus.ROLLED_BACK)
+                    .build() : result);
+        }
+        for (int index = results.size(); index < size; index++) {
+            report.add(BatchTransferItemDto.builder()
+                               .index(index)
+                               .status(BatchItemStatus.SKIPPED)
+                               .build());
+        }
+        return of(report);
+    }
+}
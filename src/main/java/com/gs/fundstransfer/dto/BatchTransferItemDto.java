@@ -0,0 +1,19 @@
+package com.gs.fundstransfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchTransferItemDto {
+    int index;
+    BatchItemStatus status;
+    TransferDto transfer;
+    String error;
+}
@@ -0,0 +1,21 @@
+package com.gs.fundstransfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FxQuoteDto {
+    String quoteId;
+    String baseCurrency;
+    String termCurrency;
+    BigDecimal rate;
+    Instant expiresAt;
+}
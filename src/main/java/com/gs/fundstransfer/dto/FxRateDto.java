@@ -0,0 +1,20 @@
+package com.gs.fundstransfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FxRateDto {
+    String base;
+    String term;
+    BigDecimal rate;
+    // How the rate was derived from the quotes, e.g. 1/(EUR/GBP) * EUR/JPY
+    String derivation;
+}
@@ -0,0 +1,22 @@
+package com.gs.fundstransfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImportJobDto {
+    Long executionId;
+    String status;
+    long read;
+    long applied;
+    long failed;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+}
@@ -0,0 +1,28 @@
+package com.gs.fundstransfer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gs.fundstransfer.model.EntryType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LedgerEntryDto {
+    Long id;
+    Long transactionId;
+    Long accountId;
+    Long counterpartyAccountId;
+    EntryType type;
+    BigDecimal amount;
+    String currency;
+    BigDecimal rate;
+    Instant createdAt;
+}
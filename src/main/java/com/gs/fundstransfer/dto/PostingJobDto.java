@@ -0,0 +1,24 @@
+package com.gs.fundstransfer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PostingJobDto {
+    Long executionId;
+    String status;
+    long read;
+    long posted;
+    long skipped;
+    // Fees the accounts no longer covered when they were written
+    long uncoveredFees;
+    LocalDateTime startTime;
+    LocalDateTime endTime;
+}
@@ -0,0 +1,77 @@
+package com.gs.fundstransfer.engine;
+
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import lombok.Getter;
+import lombok.ToString;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+
+/**
+ * In-memory balance of one account, owned by the shard the account is routed to.
+ *
+ * Instances are not thread-safe: they are only ever touched by the owning shard thread, or by a caller
+ * that holds the shard through {@link ShardedBalanceEngine#executeExclusively}.
+ */
+@Getter
+@ToString
+public class AccountBalance {
+
+    private final Long ownerId;
+    private MonetaryAmount balance;
+    // Debited by a cross-shard transfer whose credit leg is not applied yet
+    private MonetaryAmount reserved;
+
+    AccountBalance(Long ownerId, MonetaryAmount balance) {
+        this.ownerId = ownerId;
+        this.balance = balance;
+        this.reserved = balance.multiply(0);
+    }
+
+    public CurrencyUnit getCurrency() {
+        return balance.getCurrency();
+    }
+
+    public MonetaryAmount getAvailable() {
+        return balance.subtract(reserved);
+    }
+
+    public void credit(MonetaryAmount amount) {
+        balance = balance.add(amount);
+    }
+
+    public void debit(MonetaryAmount amount) {
+        checkAvailable(amount);
+        balance = balance.subtract(amount);
+    }
+
+    /**
+     * Sets the amount aside for the debit leg of a cross-shard transfer, so that no other operation can spend it.
+     */
+    public void reserve(MonetaryAmount amount) {
+        checkAvailable(amount);
+        reserved = reserved.add(amount);
+    }
+
+    public void release(MonetaryAmount amount) {
+        reserved = reserved.subtract(amount);
+    }
+
+    public void commitReservation(MonetaryAmount amount) {
+        reserved = reserved.subtract(amount);
+        balance = balance.subtract(amount);
+    }
+
+    /**
+     * Puts back a balance read earlier with {@link #getBalance()}, to undo the operations applied since.
+     */
+    public void restore(MonetaryAmount snapshot) {
+        balance = snapshot;
+    }
+
+    private void checkAvailable(MonetaryAmount amount) {
+        if (getAvailable().compareTo(amount) < 0) {
+            throw new UnsufficientFundsException("InsufficientFunds in " + this);
+        }
+    }
+}
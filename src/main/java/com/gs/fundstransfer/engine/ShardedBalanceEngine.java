@@ -0,0 +1,232 @@
+package com.gs.fundstransfer.engine;
+
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.repository.AccountRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Keeps account balances in memory, partitioned in shards by ownerId, each shard owned by a single thread.
+ *
+ * Commands on an account are queued to its shard and applied one after the other, so they never lock nor
+ * contend with each other. Accounts are loaded from the database on first use, and every balance change is
+ * handed to the {@link WriteBehindJournal}, which persists it asynchronously.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "sharded")
+@Slf4j
+public class ShardedBalanceEngine {
+
+    private final AccountRepository accountRepository;
+    private final WriteBehindJournal journal;
+    private final Shard[] shards;
+    // Account currencies never change, so they can be read without going through the shard
+    private final Map<Long, CurrencyUnit> currencies = new ConcurrentHashMap<>();
+
+    public ShardedBalanceEngine(AccountRepository accountRepository,
+                                WriteBehindJournal journal,
+                                @Value("${transactions.engine.shards:0}") int shardCount) {
+        this.accountRepository = accountRepository;
+        this.journal = journal;
+        int count = shardCount > 0 ? shardCount : Runtime.getRuntime()
+                .availableProcessors();
+        this.shards = new Shard[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new Shard(i);
+        }
+        log.info("Started the sharded balance engine with {} shards", count);
+    }
+
+    /**
+     * Runs a command on the shard owning the account and waits for its result.
+     *
+     * @throws AccountNotFoundException if the account does not exist
+     */
+    public <T> T execute(Long accountId, Function<AccountBalance, T> command) {
+        Shard shard = shardOf(accountId);
+        return await(CompletableFuture.supplyAsync(() -> shard.apply(List.of(accountId), accounts -> command.apply(
+                accounts.get(accountId))), shard.executor));
+    }
+
+    /**
+     * Runs a command on two accounts of the same shard, atomically.
+     *
+     * @throws IllegalArgumentException if the accounts belong to different shards
+     */
+    public <T> T execute(Long firstAccountId, Long secondAccountId,
+                         BiFunction<AccountBalance, AccountBalance, T> command) {
+        if (!isSameShard(firstAccountId, secondAccountId)) {
+            throw new IllegalArgumentException("Accounts " + firstAccountId + " and " + secondAccountId
+                                                       + " belong to different shards");
+        }
+        Shard shard = shardOf(firstAccountId);
+        return await(CompletableFuture.supplyAsync(() -> shard.apply(List.of(firstAccountId, secondAccountId),
+                                                                      accounts -> command.apply(
+                                                                              accounts.get(firstAccountId),
+                                                                              accounts.get(secondAccountId))),
+                                                   shard.executor));
+    }
+
+    /**
+     * Runs a command on the calling thread while every shard owning one of the accounts is paused.
+     * Shards are paused in index order, so concurrent exclusive commands cannot wait on each other.
+     * Accounts that do not exist are absent from the map given to the command.
+     */
+    public <T> T executeExclusively(Collection<Long> accountIds, Function<Map<Long, AccountBalance>, T> command) {
+        SortedMap<Integer, List<Long>> accountsByShard = new TreeMap<>();
+        accountIds.forEach(accountId -> accountsByShard.computeIfAbsent(shardOf(accountId).index, index -> new ArrayList<>())
+                .add(accountId));
+        CountDownLatch resume = new CountDownLatch(1);
+        try {
+            for (Integer index : accountsByShard.keySet()) {
+                CountDownLatch paused = new CountDownLatch(1);
+                shards[index].executor.execute(() -> {
+                    paused.countDown();
+                    awaitUninterruptibly(resume);
+                });
+                awaitUninterruptibly(paused);
+            }
+            Map<Long, AccountBalance> accounts = new HashMap<>();
+            accountsByShard.forEach((index, ids) -> ids.forEach(accountId -> {
+                AccountBalance account = shards[index].find(accountId);
+                if (account != null) {
+                    accounts.put(accountId, account);
+                }
+            }));
+            Map<Long, MonetaryAmount> before = new HashMap<>();
+            accounts.forEach((accountId, account) -> before.put(accountId, account.getBalance()));
+            try {
+                return command.apply(accounts);
+            } finally {
+                accounts.forEach((accountId, account) -> journalIfChanged(account, before.get(accountId)));
+            }
+        } finally {
+            resume.countDown();
+        }
+    }
+
+    /**
+     * Returns the currency of an account, loading the account on its shard the first time.
+     *
+     * @throws AccountNotFoundException if the account does not exist
+     */
+    public CurrencyUnit currencyOf(Long accountId) {
+        CurrencyUnit currency = currencies.get(accountId);
+        return currency != null ? currency : execute(accountId, AccountBalance::getCurrency);
+    }
+
+    public boolean isSameShard(Long firstAccountId, Long secondAccountId) {
+        return shardOf(firstAccountId) == shardOf(secondAccountId);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        for (Shard shard : shards) {
+            shard.executor.shutdown();
+        }
+        for (Shard shard : shards) {
+            if (!shard.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Shard {} did not drain its queue on shutdown", shard.index);
+            }
+        }
+    }
+
+    private Shard shardOf(Long accountId) {
+        return shards[Math.floorMod(Long.hashCode(accountId), shards.length)];
+    }
+
+    private void journalIfChanged(AccountBalance account, MonetaryAmount before) {
+        // Balances are immutable amounts, so any change replaces the reference
+        if (account.getBalance() != before) {
+            journal.balanceChanged(account.getOwnerId(), account.getBalance());
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+
+    private final class Shard {
+
+        final int index;
+        final ExecutorService executor;
+        // Only accessed by the shard thread, or by a caller while the shard is paused
+        final Map<Long, AccountBalance> accounts = new HashMap<>();
+
+        Shard(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "balance-shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        <T> T apply(List<Long> accountIds, Function<Map<Long, AccountBalance>, T> command) {
+            Map<Long, AccountBalance> loaded = new HashMap<>();
+            Map<Long, MonetaryAmount> before = new HashMap<>();
+            for (Long accountId : accountIds) {
+                AccountBalance account = find(accountId);
+                if (account == null) {
+                    throw new AccountNotFoundException(accountId);
+                }
+                loaded.put(accountId, account);
+                before.put(accountId, account.getBalance());
+            }
+            try {
+                return command.apply(loaded);
+            } finally {
+                loaded.forEach((accountId, account) -> journalIfChanged(account, before.get(accountId)));
+            }
+        }
+
+        AccountBalance find(Long accountId) {
+            AccountBalance account = accounts.get(accountId);
+            if (account == null) {
+                Optional<Account> stored = accountRepository.findById(accountId);
+                if (stored.isEmpty()) {
+                    return null;
+                }
+                account = new AccountBalance(accountId, stored.get()
+                        .getMoney());
+                accounts.put(accountId, account);
+                currencies.put(accountId, account.getCurrency());
+            }
+            return account;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.gs.fundstransfer.engine;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.services.IdempotencyService;
+import com.gs.fundstransfer.services.LedgerService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.money.MonetaryAmount;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Persists the changes applied by the {@link ShardedBalanceEngine} in the background.
+ *
+ * Shards only record the latest balance of each account they touch and the movements they applied; a single
+ * flusher then writes them in one transaction per interval. An account updated many times between two flushes is
+ * written once. Changes acknowledged since the last flush are lost if the process dies. A failed flush is retried
+ * movement by movement, so a movement the database rejects cannot hold back the others.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "sharded")
+@Slf4j
+public class WriteBehindJournal {
+
+    private final AccountRepository accountRepository;
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, MonetaryAmount> dirtyBalances = new ConcurrentHashMap<>();
+    private final Queue<JournalEntry> entries = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher;
+    private final int maxAttempts;
+
+    public WriteBehindJournal(AccountRepository accountRepository,
+                              LedgerService ledgerService,
+                              IdempotencyService idempotencyService,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${transactions.engine.flush-interval:50ms}") Duration flushInterval,
+                              @Value("${transactions.engine.flush-max-attempts:3}") int maxAttempts) {
+        this.accountRepository = accountRepository;
+        this.ledgerService = ledgerService;
+        this.idempotencyService = idempotencyService;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval.toMillis(), flushInterval.toMillis(),
+                                       TimeUnit.MILLISECONDS);
+    }
+
+    void balanceChanged(Long accountId, MonetaryAmount balance) {
+        dirtyBalances.put(accountId, balance);
+    }
+
+    /**
+     * Queues an applied movement for the ledger, along with the Idempotency-Key it was submitted with, if any.
+     *
+     * @return a future completed once the movement is persisted
+     */
+    public CompletableFuture<Void> append(TransferDto transfer, String idempotencyKey, OperationType operation,
+                                          Object request) {
+        JournalEntry entry = new JournalEntry(transfer, idempotencyKey, operation, request, new CompletableFuture<>(),
+                                             0);
+        entries.add(entry);
+        return entry.flushed();
+    }
+
+    /**
+     * Writes every pending balance and movement in one transaction. If that fails, the balances and then every
+     * movement are written in a transaction of their own, so that one movement the database rejects does not hold
+     * back the others. A movement that keeps failing alone is given up after
+     * {@code transactions.engine.flush-max-attempts} flushes: it is logged and its future completes exceptionally.
+     * Flushes failing while the database is unavailable do not count.
+     */
+    public synchronized void flush() {
+        Map<Long, MonetaryAmount> balances = new HashMap<>();
+        for (Long accountId : dirtyBalances.keySet()) {
+            MonetaryAmount balance = dirtyBalances.remove(accountId);
+            if (balance != null) {
+                balances.put(accountId, balance);
+            }
+        }
+        List<JournalEntry> drained = new ArrayList<>();
+        for (JournalEntry entry = entries.poll(); entry != null; entry = entries.poll()) {
+            drained.add(entry);
+        }
+        if (balances.isEmpty() && drained.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                writeBalances(balances);
+                drained.forEach(this::writeEntry);
+            });
+            drained.forEach(entry -> entry.flushed()
+                    .complete(null));
+        } catch (RuntimeException e) {
+            log.warn("Unable to flush {} balances and {} movements together, flushing them one by one",
+                     balances.size(), drained.size(), e);
+            flushOneByOne(balances, drained);
+        }
+    }
+
+    private void flushOneByOne(Map<Long, MonetaryAmount> balances, List<JournalEntry> drained) {
+        boolean written = false;
+        if (!balances.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBalances(balances));
+                written = true;
+            } catch (RuntimeException e) {
+                log.error("Unable to flush {} balances, retrying on the next flush", balances.size(), e);
+                // A newer balance may have been recorded in the meantime, it wins
+                balances.forEach(dirtyBalances::putIfAbsent);
+            }
+        }
+        List<Map.Entry<JournalEntry, RuntimeException>> failed = new ArrayList<>();
+        for (JournalEntry entry : drained) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeEntry(entry));
+                entry.flushed()
+                        .complete(null);
+                written = true;
+            } catch (RuntimeException e) {
+                failed.add(Map.entry(entry, e));
+            }
+        }
+        for (Map.Entry<JournalEntry, RuntimeException> failure : failed) {
+            JournalEntry entry = failure.getKey();
+            // While the database is unavailable, the movement is not the problem
+            boolean unavailable = !written && isUnavailable(failure.getValue());
+            int attempts = unavailable ? entry.attempts() : entry.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                log.error("Giving up on movement {} after {} failed flushes", entry.transfer(), attempts,
+                          failure.getValue());
+                entry.flushed()
+                        .completeExceptionally(failure.getValue());
+            } else {
+                entries.add(entry.withAttempts(attempts));
+            }
+        }
+    }
+
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof CannotCreateTransactionException || e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException || e instanceof RecoverableDataAccessException;
+    }
+
+    private void writeBalances(Map<Long, MonetaryAmount> balances) {
+        List<Account> accounts = accountRepository.findAllById(balances.keySet());
+        accounts.forEach(account -> account.setMoney(balances.get(account.getOwnerId())));
+        accountRepository.saveAll(accounts);
+    }
+
+    private void writeEntry(JournalEntry entry) {
+        ledgerService.record(entry.transfer());
+        idempotencyService.record(entry.idempotencyKey(), entry.operation(), entry.request(), entry.transfer());
+    }
+
+    @PreDestroy
+    void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * @param attempts the flushes in which the movement failed alone while others were written
+     */
+    private record JournalEntry(TransferDto transfer, String idempotencyKey, OperationType operation, Object request,
+                                CompletableFuture<Void> flushed, int attempts) {
+
+        JournalEntry withAttempts(int attempts) {
+            return new JournalEntry(transfer, idempotencyKey, operation, request, flushed, attempts);
+        }
+    }
+}
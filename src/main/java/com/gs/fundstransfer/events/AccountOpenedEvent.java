@@ -0,0 +1,10 @@
+package com.gs.fundstransfer.events;
+
+/**
+ * Published when an account is created.
+ *
+ * @param ownerId  the ID of the new account
+ * @param currency the ISO code of the account currency
+ */
+public record AccountOpenedEvent(Long ownerId, String currency) {
+}
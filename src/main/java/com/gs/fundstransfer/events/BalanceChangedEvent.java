@@ -0,0 +1,12 @@
+package com.gs.fundstransfer.events;
+
+import com.gs.fundstransfer.dto.TransferDto;
+
+/**
+ * Published for every movement recorded in the ledger, in the transaction which applies it.
+ * Listeners interested in committed balances should use {@code @TransactionalEventListener}.
+ *
+ * @param transfer the applied movement, as returned to the client
+ */
+public record BalanceChangedEvent(TransferDto transfer) {
+}
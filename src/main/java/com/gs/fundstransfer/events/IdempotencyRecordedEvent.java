@@ -0,0 +1,11 @@
+package com.gs.fundstransfer.events;
+
+import com.gs.fundstransfer.model.IdempotencyRecord;
+
+/**
+ * Published when the result of an operation is stored under its Idempotency-Key, in the transaction which applies it.
+ *
+ * @param idempotencyRecord the stored record
+ */
+public record IdempotencyRecordedEvent(IdempotencyRecord idempotencyRecord) {
+}
@@ -0,0 +1,17 @@
+package com.gs.fundstransfer.exceptions;
+
+import com.gs.fundstransfer.dto.BatchTransferDto;
+import lombok.Getter;
+
+/**
+ * Thrown when an ALL_OR_NOTHING batch fails, to roll it back while keeping the per-transfer report.
+ */
+@Getter
+public class BatchTransferException extends RuntimeException {
+    private final transient BatchTransferDto result;
+
+    public BatchTransferException(BatchTransferDto result) {
+        super("The batch was rolled back because " + result.getFailed() + " transfer(s) failed");
+        this.result = result;
+    }
+}
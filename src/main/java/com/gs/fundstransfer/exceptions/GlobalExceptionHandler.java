@@ -1,5 +1,8 @@
 package com.gs.fundstransfer.exceptions;
 
+import com.gs.fundstransfer.dto.BatchTransferDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -11,11 +14,15 @@ import java.util.HashMap;
 import java.util.Map;
 
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(AccountNotFoundException.class)
     public ResponseEntity<String> handleAccountNotFoundException(AccountNotFoundException ex) {
+        countException(ex);
         return ResponseEntity.status(HttpStatus.NOT_FOUND)
                 .body(ex.getMessage());
     }
@@ -23,6 +30,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(UnsufficientFundsException.class)
     public ResponseEntity<String> handleInsufficientFundsException(UnsufficientFundsException ex) {
+        countException(ex);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ex.getMessage());
     }
@@ -30,6 +38,7 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(SameAccountTransferException.class)
     public ResponseEntity<String> handleSameAccountTransferException(SameAccountTransferException ex) {
+        countException(ex);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ex.getMessage());
     }
@@ -37,20 +46,87 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(UnavailableFXRatesException.class)
     public ResponseEntity<String> handleExchangeRateException(UnavailableFXRatesException ex) {
+        countException(ex);
         return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
                 .body(ex.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(InvalidFxQuoteException.class)
+    public ResponseEntity<String> handleInvalidFxQuoteException(InvalidFxQuoteException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ex.getMessage());
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(NotSupportedCurrencyException.class)
     public ResponseEntity<String> handleNotSupportedCurrencyException(NotSupportedCurrencyException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(BatchTransferException.class)
+    public ResponseEntity<BatchTransferDto> handleBatchTransferException(BatchTransferException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ex.getResult());
+    }
+
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body(ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidIdempotencyKeyException.class)
+    public ResponseEntity<String> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ExceptionHandler(InvalidSplitException.class)
+    public ResponseEntity<String> handleInvalidSplitException(InvalidSplitException ex) {
+        countException(ex);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(ex.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(PostingJobException.class)
+    public ResponseEntity<String> handlePostingJobException(PostingJobException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(PostingJobNotFoundException.class)
+    public ResponseEntity<String> handlePostingJobNotFoundException(PostingJobNotFoundException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ex.getMessage());
+    }
+
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<String> handleImportJobNotFoundException(ImportJobNotFoundException ex) {
+        countException(ex);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ex.getMessage());
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public Map<String, String> handleInvalidArgument(MethodArgumentNotValidException ex) {
+        countException(ex);
         Map<String, String> errorMap = new HashMap<>();
         ex.getBindingResult()
                 .getFieldErrors()
@@ -59,4 +135,10 @@ public class GlobalExceptionHandler {
                 });
         return errorMap;
     }
+
+    private void countException(Exception ex) {
+        meterRegistry.counter("api.exceptions", "exception", ex.getClass()
+                        .getSimpleName())
+                .increment();
+    }
 }
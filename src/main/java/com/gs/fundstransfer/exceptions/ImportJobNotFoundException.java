@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.exceptions;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(Long executionId) {
+        super("The import job execution " + executionId + " was not found.");
+    }
+}
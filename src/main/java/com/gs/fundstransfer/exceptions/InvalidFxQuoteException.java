@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.exceptions;
+
+public class InvalidFxQuoteException extends RuntimeException {
+    public InvalidFxQuoteException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.exceptions;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+    public InvalidIdempotencyKeyException(String s) {
+        super(s);
+    }
+}
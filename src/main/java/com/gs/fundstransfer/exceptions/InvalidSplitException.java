@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.exceptions;
+
+public class InvalidSplitException extends RuntimeException {
+    public InvalidSplitException(String s) {
+        super(s);
+    }
+}
@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.exceptions;
+
+public class PostingJobException extends RuntimeException {
+    public PostingJobException(String message) {
+        super(message);
+    }
+}
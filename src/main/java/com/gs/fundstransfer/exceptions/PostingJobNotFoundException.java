@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.exceptions;
+
+public class PostingJobNotFoundException extends RuntimeException {
+    public PostingJobNotFoundException(Long executionId) {
+        super("The posting job execution " + executionId + " was not found.");
+    }
+}
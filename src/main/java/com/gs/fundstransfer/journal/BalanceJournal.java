@@ -0,0 +1,452 @@
+package com.gs.fundstransfer.journal;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.IdempotencyRecord;
+import com.gs.fundstransfer.model.OperationType;
+import lombok.extern.slf4j.Slf4j;
+import org.javamoney.moneta.Money;
+
+import javax.money.MonetaryAmount;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only binary journal of account openings, balance movements and idempotency records, written to
+ * memory-mapped segment files.
+ *
+ * Appends copy an encoded record into the mapped segment and return a future which completes once the record is
+ * on disk. A single syncer thread forces the written range every sync interval, or as soon as enough records are
+ * waiting, so that concurrent appends share one fsync (group commit). When a segment is full it is forced and the
+ * next one is mapped.
+ *
+ * Every record is prefixed with its length and a CRC32C checksum. Opening the journal replays all the segments in
+ * order and stops at the first empty or torn record, which is where appending resumes.
+ */
+@Slf4j
+public final class BalanceJournal implements AutoCloseable {
+
+    static final byte ACCOUNT_OPENED = 1;
+    static final byte BALANCE_MOVED = 2;
+    static final byte IDEMPOTENCY_RECORDED = 3;
+
+    // Record length and checksum
+    private static final int HEADER_SIZE = 8;
+    // Enough for an idempotency record with a key of 255 characters in UTF-8
+    private static final int MAX_RECORD_SIZE = 2048;
+    private static final int MOVEMENT_RECORD_SIZE = 1024;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".bin";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long syncIntervalNanos;
+    private final int syncBatchSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Thread syncer;
+
+    private int segmentIndex;
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int syncedPosition;
+    private List<CompletableFuture<Void>> unsynced = new ArrayList<>();
+    private volatile boolean closed;
+
+    private BalanceJournal(Path directory, int segmentSize, Duration syncInterval, int syncBatchSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.syncBatchSize = syncBatchSize;
+        this.syncer = Thread.ofPlatform()
+                .name("balance-journal-sync")
+                .daemon()
+                .unstarted(this::syncLoop);
+    }
+
+    /**
+     * Opens the journal in the given directory, creating it if needed, and replays every record already written.
+     *
+     * @param directory     where the segment files are stored
+     * @param segmentSize   the size of each segment file, in bytes
+     * @param syncInterval  the maximum delay before appended records are forced to disk
+     * @param syncBatchSize the number of waiting records which triggers a sync before the interval has elapsed
+     * @param visitor       receives the replayed records, in append order
+     * @return the journal, positioned after the last complete record
+     */
+    public static BalanceJournal open(Path directory, int segmentSize, Duration syncInterval, int syncBatchSize,
+                                      Visitor visitor) {
+        BalanceJournal journal = new BalanceJournal(directory, segmentSize, syncInterval, syncBatchSize);
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments = journal.listSegments();
+            for (int i = 0; i < segments.size() - 1; i++) {
+                try (FileChannel sealed = FileChannel.open(segments.get(i), StandardOpenOption.READ)) {
+                    replay(sealed.map(FileChannel.MapMode.READ_ONLY, 0, sealed.size()), visitor);
+                }
+            }
+            if (segments.isEmpty()) {
+                journal.map(journal.segmentPath(0));
+            } else {
+                Path last = segments.getLast();
+                journal.segmentIndex = segmentIndex(last);
+                journal.map(last);
+                journal.truncate(replay(journal.segment, visitor));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the balance journal in " + directory, e);
+        }
+        journal.syncer.start();
+        return journal;
+    }
+
+    /**
+     * Appends the opening of an account.
+     *
+     * @return a future completed once the record is on disk
+     */
+    public CompletableFuture<Void> appendAccountOpened(long ownerId, String currency) {
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + 12);
+        record.position(HEADER_SIZE);
+        record.put(ACCOUNT_OPENED)
+                .putLong(ownerId)
+                .put(currency.getBytes(StandardCharsets.US_ASCII), 0, 3);
+        return append(record);
+    }
+
+    /**
+     * Appends an applied movement: a deposit, a withdrawal or a transfer.
+     *
+     * @return a future completed once the record is on disk
+     */
+    public CompletableFuture<Void> appendMovement(TransferDto transfer) {
+        ByteBuffer record = ByteBuffer.allocate(MOVEMENT_RECORD_SIZE);
+        record.position(HEADER_SIZE);
+        record.put(BALANCE_MOVED);
+        putLeg(record, transfer.getDebitAccountId(), transfer.getDebitedAmount());
+        putLeg(record, transfer.getCreditAccountId(), transfer.getCreditedAmount());
+        putDecimal(record, transfer.getRate() == null ? BigDecimal.ONE : transfer.getRate());
+        return append(record);
+    }
+
+    /**
+     * Appends the stored result of an operation submitted with an Idempotency-Key.
+     *
+     * @return a future completed once the record is on disk
+     */
+    public CompletableFuture<Void> appendIdempotencyRecord(IdempotencyRecord idempotencyRecord) {
+        ByteBuffer record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        record.position(HEADER_SIZE);
+        record.put(IDEMPOTENCY_RECORDED);
+        putString(record, idempotencyRecord.getIdempotencyKey());
+        putString(record, idempotencyRecord.getOperation()
+                .name());
+        putString(record, idempotencyRecord.getRequestHash());
+        putAccountId(record, idempotencyRecord.getDebitAccountId());
+        putAmount(record, idempotencyRecord.getDebitedAmount());
+        putAccountId(record, idempotencyRecord.getCreditAccountId());
+        putAmount(record, idempotencyRecord.getCreditedAmount());
+        record.put((byte) (idempotencyRecord.getRate() == null ? 0 : 1));
+        if (idempotencyRecord.getRate() != null) {
+            putDecimal(record, idempotencyRecord.getRate());
+        }
+        record.putLong(idempotencyRecord.getCreatedAt()
+                               .getEpochSecond())
+                .putInt(idempotencyRecord.getCreatedAt()
+                                .getNano());
+        return append(record);
+    }
+
+    private CompletableFuture<Void> append(ByteBuffer record) {
+        int length = record.position() - HEADER_SIZE;
+        CRC32C checksum = new CRC32C();
+        checksum.update(record.array(), HEADER_SIZE, length);
+        record.putInt(0, length)
+                .putInt(4, (int) checksum.getValue())
+                .flip();
+
+        CompletableFuture<Void> synced = new CompletableFuture<>();
+        boolean wakeSyncer;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("The balance journal is closed");
+            }
+            // Keep room for the empty header which marks the end of the segment
+            if (segment.remaining() < record.remaining() + HEADER_SIZE) {
+                roll();
+            }
+            segment.put(record);
+            unsynced.add(synced);
+            wakeSyncer = unsynced.size() >= syncBatchSize;
+        } finally {
+            lock.unlock();
+        }
+        if (wakeSyncer) {
+            LockSupport.unpark(syncer);
+        }
+        return synced;
+    }
+
+    private void syncLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(this, syncIntervalNanos);
+            sync();
+        }
+    }
+
+    /**
+     * Forces the records appended since the last sync and completes their futures.
+     */
+    void sync() {
+        MappedByteBuffer buffer;
+        int from;
+        int to;
+        List<CompletableFuture<Void>> futures;
+        lock.lock();
+        try {
+            if (unsynced.isEmpty()) {
+                return;
+            }
+            futures = unsynced;
+            unsynced = new ArrayList<>();
+            buffer = segment;
+            from = syncedPosition;
+            to = segment.position();
+            syncedPosition = to;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (to > from) {
+                buffer.force(from, to - from);
+            }
+            futures.forEach(future -> future.complete(null));
+        } catch (UncheckedIOException e) {
+            log.error("Unable to sync the balance journal", e);
+            futures.forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    // Called with the lock held
+    private void roll() {
+        segment.force();
+        syncedPosition = 0;
+        try {
+            channel.close();
+            segmentIndex++;
+            map(segmentPath(segmentIndex));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create journal segment " + segmentIndex, e);
+        }
+    }
+
+    private void map(Path segmentPath) throws IOException {
+        channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                   StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, (int) channel.size()));
+    }
+
+    /**
+     * Positions the last segment after its last complete record and wipes a torn record, if any, so that it can
+     * never be read back once overwritten by shorter records.
+     */
+    private void truncate(int position) {
+        if (segment.getInt(position) != 0) {
+            log.warn("Discarding a torn record at offset {} of journal segment {}", position, segmentIndex);
+            for (int i = position; i < segment.limit(); i++) {
+                segment.put(i, (byte) 0);
+            }
+            segment.force();
+        }
+        segment.position(position);
+        syncedPosition = position;
+    }
+
+    private static int replay(ByteBuffer segment, Visitor visitor) {
+        int position = 0;
+        CRC32C checksum = new CRC32C();
+        while (position + HEADER_SIZE <= segment.limit()) {
+            int length = segment.getInt(position);
+            if (length <= 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > segment.limit()) {
+                break;
+            }
+            ByteBuffer record = segment.slice(position + HEADER_SIZE, length);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != segment.getInt(position + 4)) {
+                break;
+            }
+            byte type = record.get();
+            if (type == ACCOUNT_OPENED) {
+                long ownerId = record.getLong();
+                byte[] currency = new byte[3];
+                record.get(currency);
+                visitor.accountOpened(ownerId, new String(currency, StandardCharsets.US_ASCII));
+            } else if (type == BALANCE_MOVED) {
+                long debitAccountId = record.getLong();
+                BigDecimal debited = debitAccountId == 0 ? null : getDecimal(record);
+                long creditAccountId = record.getLong();
+                BigDecimal credited = creditAccountId == 0 ? null : getDecimal(record);
+                visitor.balanceMoved(debitAccountId, debited, creditAccountId, credited);
+            } else if (type == IDEMPOTENCY_RECORDED) {
+                visitor.idempotencyRecorded(IdempotencyRecord.builder()
+                                                    .idempotencyKey(getString(record))
+                                                    .operation(OperationType.valueOf(getString(record)))
+                                                    .requestHash(getString(record))
+                                                    .debitAccountId(getAccountId(record))
+                                                    .debitedAmount(getAmount(record))
+                                                    .creditAccountId(getAccountId(record))
+                                                    .creditedAmount(getAmount(record))
+                                                    .rate(record.get() == 0 ? null : getDecimal(record))
+                                                    .createdAt(Instant.ofEpochSecond(record.getLong(), record.getInt()))
+                                                    .build());
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    private static void putLeg(ByteBuffer record, Long accountId, MonetaryAmount amount) {
+        if (accountId == null) {
+            record.putLong(0);
+            return;
+        }
+        record.putLong(accountId);
+        putDecimal(record, amount.getNumber()
+                .numberValue(BigDecimal.class));
+    }
+
+    private static void putDecimal(ByteBuffer record, BigDecimal value) {
+        byte[] unscaled = value.unscaledValue()
+                .toByteArray();
+        record.putInt(value.scale())
+                .put((byte) unscaled.length)
+                .put(unscaled);
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer record) {
+        int scale = record.getInt();
+        byte[] unscaled = new byte[record.get()];
+        record.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    private static void putAccountId(ByteBuffer record, Long accountId) {
+        record.putLong(accountId == null ? 0 : accountId);
+    }
+
+    private static Long getAccountId(ByteBuffer record) {
+        long accountId = record.getLong();
+        return accountId == 0 ? null : accountId;
+    }
+
+    private static void putAmount(ByteBuffer record, MonetaryAmount amount) {
+        record.put((byte) (amount == null ? 0 : 1));
+        if (amount != null) {
+            putDecimal(record, amount.getNumber()
+                    .numberValue(BigDecimal.class));
+            record.put(amount.getCurrency()
+                               .getCurrencyCode()
+                               .getBytes(StandardCharsets.US_ASCII), 0, 3);
+        }
+    }
+
+    private static MonetaryAmount getAmount(ByteBuffer record) {
+        if (record.get() == 0) {
+            return null;
+        }
+        BigDecimal amount = getDecimal(record);
+        byte[] currency = new byte[3];
+        record.get(currency);
+        return Money.of(amount, new String(currency, StandardCharsets.US_ASCII));
+    }
+
+    private static void putString(ByteBuffer record, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        record.putShort((short) bytes.length)
+                .put(bytes);
+    }
+
+    private static String getString(ByteBuffer record) {
+        byte[] bytes = new byte[record.getShort()];
+        record.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName()
+                            .toString()
+                            .startsWith(SEGMENT_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(SEGMENT_PREFIX + "%06d".formatted(index) + SEGMENT_SUFFIX);
+    }
+
+    private static int segmentIndex(Path segmentPath) {
+        String fileName = segmentPath.getFileName()
+                .toString();
+        return Integer.parseInt(fileName.substring(SEGMENT_PREFIX.length(), fileName.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Syncs the pending records, then stops the syncer and closes the current segment.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(syncer);
+        try {
+            syncer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+        sync();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Receives the records of the journal when it is replayed.
+     */
+    public interface Visitor {
+
+        void accountOpened(long ownerId, String currency);
+
+        /**
+         * Receives a movement. An account ID of 0 means that the movement has no such leg, like the debit of a deposit.
+         */
+        void balanceMoved(long debitAccountId, BigDecimal debited, long creditAccountId, BigDecimal credited);
+
+        /**
+         * Receives the stored result of an operation submitted with an Idempotency-Key.
+         */
+        default void idempotencyRecorded(IdempotencyRecord idempotencyRecord) {
+        }
+    }
+}
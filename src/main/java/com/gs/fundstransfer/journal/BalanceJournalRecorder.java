@@ -0,0 +1,200 @@
+package com.gs.fundstransfer.journal;
+
+import com.gs.fundstransfer.events.AccountOpenedEvent;
+import com.gs.fundstransfer.events.BalanceChangedEvent;
+import com.gs.fundstransfer.events.IdempotencyRecordedEvent;
+import com.gs.fundstransfer.model.AccountIdGenerator;
+import com.gs.fundstransfer.model.IdempotencyRecord;
+import com.gs.fundstransfer.repository.AccountRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Makes balances and idempotency keys survive a restart of the in-memory database by writing every committed account
+ * opening, movement and idempotency record to the {@link BalanceJournal}, and rebuilding the account and
+ * idempotency_record tables from it on startup. Ledger entries are not restored.
+ *
+ * Records are appended once their transaction has committed, and the caller only gets its response once they are
+ * on disk. The appends of a transaction are all issued before waiting, so that a batch shares one sync.
+ */
+@Component
+@ConditionalOnProperty(name = "journal.enabled", havingValue = "true")
+@Slf4j
+public class BalanceJournalRecorder {
+
+    private static final String INSERT_ACCOUNT = "insert into account (owner_id, balance, currency, version) values (?, ?, ?, 0)";
+    private static final String INSERT_IDEMPOTENCY_RECORD = "insert into idempotency_record (idempotency_key, operation, "
+            + "request_hash, debit_account_id, credit_account_id, debited_amount, debited_currency, credited_amount, "
+            + "credited_currency, rate, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final BalanceJournal journal;
+    private final ThreadLocal<CompletableFuture<Void>> lastAppend = new ThreadLocal<>();
+
+    public BalanceJournalRecorder(JdbcTemplate jdbcTemplate,
+                                  AccountRepository accountRepository,
+                                  @Value("${journal.directory:data/journal}") Path directory,
+                                  @Value("${journal.segment-size:64MB}") DataSize segmentSize,
+                                  @Value("${journal.sync-interval:1ms}") Duration syncInterval,
+                                  @Value("${journal.sync-batch-size:256}") int syncBatchSize) {
+        long start = System.nanoTime();
+        ReplayedBalances balances = new ReplayedBalances();
+        this.journal = BalanceJournal.open(directory, (int) segmentSize.toBytes(), syncInterval, syncBatchSize, balances);
+        if (balances.accounts.isEmpty()) {
+            return;
+        }
+        if (accountRepository.count() > 0) {
+            log.warn("The account table is not empty, {} journaled accounts were not restored", balances.accounts.size());
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(balances.accounts.size());
+        balances.accounts.forEach((ownerId, account) -> rows.add(new Object[]{ownerId, account.balance, account.currency}));
+        jdbcTemplate.batchUpdate(INSERT_ACCOUNT, rows, INSERT_BATCH_SIZE, (statement, row) -> {
+            statement.setLong(1, (Long) row[0]);
+            statement.setBigDecimal(2, (BigDecimal) row[1]);
+            statement.setString(3, (String) row[2]);
+        });
+        jdbcTemplate.batchUpdate(INSERT_IDEMPOTENCY_RECORD, balances.idempotencyRecords, INSERT_BATCH_SIZE,
+                                 (statement, idempotencyRecord) -> {
+                                     statement.setString(1, idempotencyRecord.getIdempotencyKey());
+                                     statement.setString(2, idempotencyRecord.getOperation()
+                                             .name());
+                                     statement.setString(3, idempotencyRecord.getRequestHash());
+                                     statement.setObject(4, idempotencyRecord.getDebitAccountId());
+                                     statement.setObject(5, idempotencyRecord.getCreditAccountId());
+                                     statement.setBigDecimal(6, amount(idempotencyRecord.getDebitedAmount()));
+                                     statement.setString(7, currency(idempotencyRecord.getDebitedAmount()));
+                                     statement.setBigDecimal(8, amount(idempotencyRecord.getCreditedAmount()));
+                                     statement.setString(9, currency(idempotencyRecord.getCreditedAmount()));
+                                     statement.setBigDecimal(10, idempotencyRecord.getRate());
+                                     statement.setTimestamp(11, Timestamp.from(idempotencyRecord.getCreatedAt()));
+                                 });
+        balances.accounts.keySet()
+                .stream()
+                .mapToLong(Long::longValue)
+                .max()
+                .ifPresent(AccountIdGenerator::advancePast);
+        log.info("Restored {} accounts and {} idempotency keys from {} journaled records in {} ms",
+                 balances.accounts.size(), balances.idempotencyRecords.size(), balances.records, Duration.ofNanos(System.nanoTime() - start)
+                         .toMillis());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(1)
+    public void onAccountOpened(AccountOpenedEvent event) {
+        lastAppend.set(journal.appendAccountOpened(event.ownerId(), event.currency()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(1)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        lastAppend.set(journal.appendMovement(event.transfer()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(1)
+    public void onIdempotencyRecorded(IdempotencyRecordedEvent event) {
+        lastAppend.set(journal.appendIdempotencyRecord(event.idempotencyRecord()));
+    }
+
+    /**
+     * Waits until the records appended for the transaction are on disk. Runs after all the appends of the
+     * transaction; records are synced in order, so waiting for the last one is enough.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true,
+            classes = {AccountOpenedEvent.class, BalanceChangedEvent.class, IdempotencyRecordedEvent.class})
+    @Order(2)
+    public void awaitSync() {
+        CompletableFuture<Void> append = lastAppend.get();
+        if (append != null) {
+            lastAppend.remove();
+            append.join();
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        journal.close();
+    }
+
+    private static BigDecimal amount(MonetaryAmount amount) {
+        return amount == null ? null : amount.getNumber()
+                .numberValue(BigDecimal.class);
+    }
+
+    private static String currency(MonetaryAmount amount) {
+        return amount == null ? null : amount.getCurrency()
+                .getCurrencyCode();
+    }
+
+    /**
+     * Sums the journaled movements of every account, and collects the idempotency records, in memory before they are
+     * inserted in one pass.
+     */
+    private static final class ReplayedBalances implements BalanceJournal.Visitor {
+
+        private final Map<Long, ReplayedAccount> accounts = new LinkedHashMap<>();
+        private final List<IdempotencyRecord> idempotencyRecords = new ArrayList<>();
+        private long records;
+
+        @Override
+        public void accountOpened(long ownerId, String currency) {
+            records++;
+            accounts.put(ownerId, new ReplayedAccount(currency));
+        }
+
+        @Override
+        public void balanceMoved(long debitAccountId, BigDecimal debited, long creditAccountId, BigDecimal credited) {
+            records++;
+            if (debitAccountId != 0) {
+                account(debitAccountId).balance = account(debitAccountId).balance.subtract(debited);
+            }
+            if (creditAccountId != 0) {
+                account(creditAccountId).balance = account(creditAccountId).balance.add(credited);
+            }
+        }
+
+        @Override
+        public void idempotencyRecorded(IdempotencyRecord idempotencyRecord) {
+            records++;
+            idempotencyRecords.add(idempotencyRecord);
+        }
+
+        private ReplayedAccount account(long ownerId) {
+            ReplayedAccount account = accounts.get(ownerId);
+            if (account == null) {
+                throw new IllegalStateException("Journaled movement on unknown account " + ownerId);
+            }
+            return account;
+        }
+    }
+
+    private static final class ReplayedAccount {
+
+        private final String currency;
+        private BigDecimal balance = BigDecimal.ZERO;
+
+        ReplayedAccount(String currency) {
+            this.currency = currency;
+        }
+    }
+}
@@ -30,6 +30,6 @@ public interface AccountMapper {
     }
 
     default BigDecimal asBigDecimal(NumberValue money) {
-        return BigDecimal.valueOf(money.doubleValueExact());
+        return MonetaryAmounts.toBigDecimal(money);
     }
 }
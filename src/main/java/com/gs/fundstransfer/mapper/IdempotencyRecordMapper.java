@@ -0,0 +1,12 @@
+package com.gs.fundstransfer.mapper;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.IdempotencyRecord;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.FIELD)
+public interface IdempotencyRecordMapper {
+
+    TransferDto toDto(IdempotencyRecord idempotencyRecord);
+}
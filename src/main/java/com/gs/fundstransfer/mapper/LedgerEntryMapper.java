@@ -0,0 +1,16 @@
+package com.gs.fundstransfer.mapper;
+
+import com.gs.fundstransfer.dto.LedgerEntryDto;
+import com.gs.fundstransfer.model.LedgerEntry;
+import org.mapstruct.InjectionStrategy;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.FIELD)
+public interface LedgerEntryMapper {
+
+    LedgerEntryDto toDto(LedgerEntry ledgerEntry);
+
+    List<LedgerEntryDto> toDtos(List<LedgerEntry> ledgerEntries);
+}
@@ -7,13 +7,14 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import javax.money.MonetaryAmount;
 import java.io.IOException;
 
+/**
+ * Writes a MonetaryAmount as {@code {"amount": 12.34, "currency": "USD"}}, with the exact decimal amount.
+ */
 public class MonetaryAmountSerializer extends JsonSerializer<MonetaryAmount> {
     @Override
     public void serialize(MonetaryAmount o, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
         jsonGenerator.writeStartObject();
-        jsonGenerator.writeNumberField("amount",
-                                       o.getNumber()
-                                               .doubleValueExact());
+        jsonGenerator.writeNumberField("amount", MonetaryAmounts.toBigDecimal(o.getNumber()));
         jsonGenerator.writeStringField("currency",
                                        o.getCurrency()
                                                .getCurrencyCode());
@@ -0,0 +1,120 @@
+package com.gs.fundstransfer.mapper;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.ValueAccess;
+import org.hibernate.usertype.CompositeUserType;
+import org.javamoney.moneta.Money;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps a MonetaryAmount to two native columns: a DECIMAL amount and a CHAR(3) ISO currency code.
+ *
+ * Reading a row only wraps the BigDecimal returned by the driver; currency units are resolved once per code
+ * and cached, instead of going through the Monetary amount factory and currency providers on every row.
+ */
+public class MonetaryAmountType implements CompositeUserType<MonetaryAmount> {
+
+    // Hibernate orders the embeddable properties alphabetically
+    private static final int AMOUNT = 0;
+    private static final int CURRENCY = 1;
+
+    private static final Map<String, CurrencyUnit> currencies = new ConcurrentHashMap<>();
+
+    @Embeddable
+    public static class MonetaryAmountColumns {
+        @Column(precision = 38, scale = 10)
+        BigDecimal amount;
+        @Column(length = 3, columnDefinition = "char(3)")
+        String currency;
+    }
+
+    @Override
+    public Object getPropertyValue(MonetaryAmount component, int property) {
+        return switch (property) {
+            case AMOUNT -> MonetaryAmounts.toBigDecimal(component.getNumber());
+            case CURRENCY -> component.getCurrency()
+                    .getCurrencyCode();
+            default -> throw new IllegalArgumentException("Unknown MonetaryAmount property " + property);
+        };
+    }
+
+    @Override
+    public MonetaryAmount instantiate(ValueAccess values, SessionFactoryImplementor sessionFactory) {
+        BigDecimal amount = values.getValue(AMOUNT, BigDecimal.class);
+        String currencyCode = values.getValue(CURRENCY, String.class);
+        if (amount == null || currencyCode == null) {
+            return null;
+        }
+        CurrencyUnit currency = currencies.computeIfAbsent(currencyCode.trim(), Monetary::getCurrency);
+        return Money.of(normalize(amount, currency), currency);
+    }
+
+    /**
+     * Drops the padding zeros of the column scale, keeping at least the currency's default fraction digits
+     * so that e.g. 100.0000000000 USD reads back as 100.00 USD.
+     */
+    static BigDecimal normalize(BigDecimal amount, CurrencyUnit currency) {
+        int fractionDigits = Math.max(currency.getDefaultFractionDigits(), 0);
+        if (amount.scale() <= fractionDigits) {
+            return amount;
+        }
+        BigDecimal stripped = amount.stripTrailingZeros();
+        return stripped.scale() < fractionDigits ? stripped.setScale(fractionDigits) : stripped;
+    }
+
+    @Override
+    public Class<?> embeddable() {
+        return MonetaryAmountColumns.class;
+    }
+
+    @Override
+    public Class<MonetaryAmount> returnedClass() {
+        return MonetaryAmount.class;
+    }
+
+    @Override
+    public boolean equals(MonetaryAmount x, MonetaryAmount y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(MonetaryAmount x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public MonetaryAmount deepCopy(MonetaryAmount value) {
+        // Money is immutable
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(MonetaryAmount value) {
+        return (Serializable) value;
+    }
+
+    @Override
+    public MonetaryAmount assemble(Serializable cached, Object owner) {
+        return (MonetaryAmount) cached;
+    }
+
+    @Override
+    public MonetaryAmount replace(MonetaryAmount detached, MonetaryAmount managed, Object owner) {
+        return detached;
+    }
+}
@@ -0,0 +1,21 @@
+package com.gs.fundstransfer.mapper;
+
+import javax.money.NumberValue;
+import java.math.BigDecimal;
+
+/**
+ * The single conversion of monetary amounts to numbers, shared by the DTO mapper, the JSON serializer and the
+ * column mapping.
+ *
+ * Amounts are always handed out as the BigDecimal the amount already holds: going through a double loses digits
+ * beyond its 15 to 17 significant ones, and allocates a Double and a BigDecimal per amount.
+ */
+public final class MonetaryAmounts {
+
+    private MonetaryAmounts() {
+    }
+
+    public static BigDecimal toBigDecimal(NumberValue number) {
+        return number.numberValue(BigDecimal.class);
+    }
+}
@@ -0,0 +1,28 @@
+package com.gs.fundstransfer.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the failed attempts of every {@code @Retryable} method, tagged with the method and the exception.
+ * Spring Retry applies every RetryListener bean to the annotated methods, and {@code transactionRetryTemplate} to the
+ * batches it retries, which name themselves in {@link RetryContext#NAME}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RetryMetricsListener implements RetryListener {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        meterRegistry.counter("transactions.retries", "method", String.valueOf(context.getAttribute(RetryContext.NAME)),
+                              "exception", throwable.getClass()
+                                      .getSimpleName())
+                .increment();
+    }
+}
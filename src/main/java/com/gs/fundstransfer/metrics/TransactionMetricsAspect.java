@@ -0,0 +1,137 @@
+package com.gs.fundstransfer.metrics;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import com.gs.fundstransfer.request.OrderRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Times the transaction operations, the account lock queries and the FX rate lookups.
+ *
+ * The aspect runs outside the transaction and retry advice, so operation timings include lock waits, retries
+ * and the commit. Every timer publishes a percentile histogram, so p99 can be computed across instances.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TransactionMetricsAspect {
+
+    static final String SAME_CURRENCY = "same_currency";
+    static final String FX = "fx";
+    static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Times deposit, withdraw, transfer and batch transfers, tagged with the operation, whether an FX conversion
+     * took place, and the outcome: success or the exception thrown. The asynchronous variants are timed until their
+     * future completes, so that they include the queuing and the commit like the others.
+     */
+    @Around("execution(* com.gs.fundstransfer.services.TransactionService.*(..))")
+    public Object timeOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            stopOperation(sample, joinPoint, UNKNOWN, e);
+            throw e;
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            // The caller keeps the original future, so its exceptions are not wrapped once more
+            future.whenComplete((value, e) -> stopOperation(sample, joinPoint, e == null
+                    ? path(joinPoint.getArgs()[0], value) : UNKNOWN, e));
+        } else {
+            stopOperation(sample, joinPoint, path(joinPoint.getArgs()[0], result), null);
+        }
+        return result;
+    }
+
+    private void stopOperation(Timer.Sample sample, ProceedingJoinPoint joinPoint, String path, Throwable failure) {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        sample.stop(Timer.builder("transactions.operation")
+                            .description("Latency of the transaction operations, commit included")
+                            .tag("operation", joinPoint.getSignature()
+                                    .getName())
+                            .tag("path", path)
+                            .tag("outcome", cause == null ? "success" : cause.getClass()
+                                    .getSimpleName())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry));
+    }
+
+    /**
+     * Times the queries locking account rows, which block while another transaction holds the lock.
+     */
+    @Around("execution(* com.gs.fundstransfer.repository.AccountRepository.*WithLock(..))")
+    public Object timeLockWait(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            sample.stop(Timer.builder("accounts.lock.wait")
+                                .description("Time spent acquiring account row locks")
+                                .tag("query", joinPoint.getSignature()
+                                        .getName())
+                                .publishPercentileHistogram()
+                                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Times FX rate lookups. A lookup is a hit when the provider has a rate for the pair and a miss otherwise,
+     * so the hit ratio is {@code hit / (hit + miss)}.
+     */
+    @Around("execution(* com.gs.fundstransfer.services.ExchangeRateProvider.getRate(..))")
+    public Object timeRateLookup(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = "hit";
+        try {
+            return joinPoint.proceed();
+        } catch (UnavailableFXRatesException e) {
+            result = "miss";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("fx.rate.lookup")
+                                .description("Latency of the FX rate lookups")
+                                .tag("provider", joinPoint.getTarget()
+                                        .getClass()
+                                        .getSimpleName())
+                                .tag("result", result)
+                                .publishPercentileHistogram()
+                                .register(meterRegistry));
+        }
+    }
+
+    private static String path(Object request, Object result) {
+        if (!(result instanceof TransferDto transfer)) {
+            return UNKNOWN;
+        }
+        if (transfer.getDebitedAmount() != null && transfer.getCreditedAmount() != null) {
+            return transfer.getDebitedAmount()
+                    .getCurrency()
+                    .equals(transfer.getCreditedAmount()
+                                    .getCurrency()) ? SAME_CURRENCY : FX;
+        }
+        var amount = transfer.getCreditedAmount() != null ? transfer.getCreditedAmount() : transfer.getDebitedAmount();
+        if (amount == null || !(request instanceof OrderRequest order)) {
+            return UNKNOWN;
+        }
+        return amount.getCurrency()
+                .getCurrencyCode()
+                .equals(order.getCurrency()) ? SAME_CURRENCY : FX;
+    }
+}
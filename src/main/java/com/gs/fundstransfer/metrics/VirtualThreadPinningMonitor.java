@@ -0,0 +1,78 @@
+package com.gs.fundstransfer.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads pinned to their carrier, typically while blocking inside a synchronized block of
+ * Hibernate, the JDBC driver or the pool. Listens to the JFR {@code jdk.VirtualThreadPinned} event, records
+ * its duration in {@code jvm.threads.virtual.pinned} and logs the stack of the pinned thread.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Timer pinned;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${diagnostics.pinning.threshold:20ms}") Duration threshold) {
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Time virtual threads stayed pinned to their carrier thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable("jdk.VirtualThreadPinned")
+                .withThreshold(threshold)
+                .withStackTrace();
+        recordingStream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        recordingStream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {}", threshold);
+    }
+
+    @PreDestroy
+    void stop() {
+        recordingStream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+        if (log.isWarnEnabled() && event.getStackTrace() != null) {
+            log.warn("Virtual thread pinned for {} ms at\n\t{}", event.getDuration()
+                    .toMillis(), event.getStackTrace()
+                             .getFrames()
+                             .stream()
+                             .limit(LOGGED_FRAMES)
+                             .map(VirtualThreadPinningMonitor::format)
+                             .collect(Collectors.joining("\n\t")));
+        }
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod()
+                .getType()
+                .getName() + "." + frame.getMethod()
+                .getName() + ":" + frame.getLineNumber();
+    }
+}
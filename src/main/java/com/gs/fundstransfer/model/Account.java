@@ -1,11 +1,12 @@
 package com.gs.fundstransfer.model;
 
-import com.gs.fundstransfer.mapper.MonetaryAmountConverter;
+import com.gs.fundstransfer.mapper.MonetaryAmountType;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CompositeType;
 import org.hibernate.annotations.GenericGenerator;
 
 import javax.money.MonetaryAmount;
@@ -20,9 +21,16 @@ public class Account {
     @GeneratedValue(strategy = GenerationType.IDENTITY, generator = "custom-account-id-gen")
     @GenericGenerator(name = "custom-account-id-gen", type = AccountIdGenerator.class, parameters = {})
     Long ownerId;
-    @Column(nullable = false)
-    @Convert(converter = MonetaryAmountConverter.class)
+    @AttributeOverride(name = "amount", column = @Column(name = "balance", nullable = false, precision = 38, scale = 10))
+    @AttributeOverride(name = "currency", column = @Column(name = "currency", nullable = false, length = 3, columnDefinition = "char(3)"))
+    @CompositeType(MonetaryAmountType.class)
     MonetaryAmount money;
+    // Checked on every balance update, so that optimistic writers detect a concurrent change
+    @Version
+    Long version;
 
+    public Account(Long ownerId, MonetaryAmount money) {
+        this(ownerId, money, null);
+    }
 
 }
@@ -21,6 +21,13 @@ public class AccountIdGenerator extends SequenceStyleGenerator {
         currentId.set(randomStart);
     }
 
+    /**
+     * Makes sure that the next generated IDs are above the given one, e.g. after accounts were restored.
+     */
+    public static void advancePast(long ownerId) {
+        currentId.accumulateAndGet(ownerId, Math::max);
+    }
+
     @Override
     public Serializable generate(SharedSessionContractImplementor session, Object obj) {
         // Return the next sequential ID
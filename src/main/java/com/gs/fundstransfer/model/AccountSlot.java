@@ -0,0 +1,29 @@
+package com.gs.fundstransfer.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One sub-row of a split account. The balance of a split account is its own balance plus the balances of its
+ * slots, which absorb concurrent credits without touching the account row.
+ */
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AccountSlot {
+    @EmbeddedId
+    AccountSlotId id;
+    @Column(nullable = false, length = 3, columnDefinition = "char(3)")
+    String currency;
+    @Column(nullable = false, precision = 38, scale = 10)
+    BigDecimal balance;
+}
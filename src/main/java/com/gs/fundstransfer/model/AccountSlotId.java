@@ -0,0 +1,17 @@
+package com.gs.fundstransfer.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountSlotId implements Serializable {
+    Long ownerId;
+    Integer slot;
+}
@@ -0,0 +1,6 @@
+package com.gs.fundstransfer.model;
+
+public enum EntryType {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,62 @@
+package com.gs.fundstransfer.model;
+
+import com.gs.fundstransfer.mapper.MonetaryAmountType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CompositeType;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * The stored outcome of an operation submitted with an Idempotency-Key. It is written in the same
+ * transaction as the balance change, so a key is recorded if and only if its operation was applied.
+ */
+@Entity
+@Immutable
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class IdempotencyRecord implements Persistable<String> {
+    @Id
+    @Column(length = 255)
+    String idempotencyKey;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    OperationType operation;
+    // SHA-256 of the operation and its request body, to reject a key reused for another request
+    @Column(nullable = false, length = 64)
+    String requestHash;
+    Long debitAccountId;
+    Long creditAccountId;
+    @AttributeOverride(name = "amount", column = @Column(name = "debited_amount", precision = 38, scale = 10))
+    @AttributeOverride(name = "currency", column = @Column(name = "debited_currency", length = 3, columnDefinition = "char(3)"))
+    @CompositeType(MonetaryAmountType.class)
+    MonetaryAmount debitedAmount;
+    @AttributeOverride(name = "amount", column = @Column(name = "credited_amount", precision = 38, scale = 10))
+    @AttributeOverride(name = "currency", column = @Column(name = "credited_currency", length = 3, columnDefinition = "char(3)"))
+    @CompositeType(MonetaryAmountType.class)
+    MonetaryAmount creditedAmount;
+    @Column(precision = 38, scale = 10)
+    BigDecimal rate;
+    @Column(nullable = false)
+    Instant createdAt;
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    // Records are only ever inserted: a duplicate key must fail on the primary key instead of being merged
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
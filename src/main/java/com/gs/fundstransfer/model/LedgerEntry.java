@@ -0,0 +1,51 @@
+package com.gs.fundstransfer.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One leg of a posted movement. Entries are append-only: they are never updated nor deleted,
+ * and all the legs of the same movement share the same transactionId. Their IDs are assigned by the
+ * {@code LedgerEntryIdGenerator} before they are saved, so every entry saved is new.
+ */
+@Entity
+@Immutable
+@Table(indexes = @Index(name = "idx_ledger_entry_account_id", columnList = "account_id, id"))
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class LedgerEntry implements Persistable<Long> {
+    @Id
+    Long id;
+    @Column(nullable = false, updatable = false)
+    Long transactionId;
+    @Column(nullable = false, updatable = false)
+    Long accountId;
+    @Column(updatable = false)
+    Long counterpartyAccountId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, updatable = false, length = 6)
+    EntryType type;
+    @Column(nullable = false, updatable = false, precision = 38, scale = 10)
+    BigDecimal amount;
+    @Column(nullable = false, updatable = false, length = 3)
+    String currency;
+    @Column(updatable = false, precision = 38, scale = 10)
+    BigDecimal rate;
+    @Column(nullable = false, updatable = false)
+    Instant createdAt;
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package com.gs.fundstransfer.model;
+
+import com.gs.fundstransfer.mapper.MonetaryAmounts;
+import org.javamoney.moneta.Money;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+
+/**
+ * An amount counted in the minor unit of its currency, e.g. cents for USD or yen for JPY, for balance arithmetic
+ * that does not allocate. The number of minor units per major unit comes from the ISO 4217 fraction digits of the
+ * currency.
+ *
+ * Amounts with digits below the minor unit, amounts beyond the range of a long and currencies without minor unit,
+ * like gold, have no minor unit representation: {@link #of} returns null, and callers fall back to BigDecimal
+ * arithmetic. Sums and differences that overflow throw an ArithmeticException instead of wrapping around.
+ */
+public record MinorUnits(long units, CurrencyUnit currency) implements Comparable<MinorUnits> {
+
+    /**
+     * @return the amount in minor units, or null if it has no exact minor unit representation
+     */
+    public static MinorUnits of(BigDecimal amount, CurrencyUnit currency) {
+        int fractionDigits = currency.getDefaultFractionDigits();
+        if (fractionDigits < 0) {
+            return null;
+        }
+        if (amount.scale() > fractionDigits) {
+            // Balances read from the database carry the column scale
+            amount = amount.stripTrailingZeros();
+            if (amount.scale() > fractionDigits) {
+                return null;
+            }
+        }
+        // At most 18 digits, so that the unscaled value always fits
+        if (amount.precision() - amount.scale() + fractionDigits > 18) {
+            return null;
+        }
+        return new MinorUnits(amount.movePointRight(fractionDigits)
+                                      .longValue(), currency);
+    }
+
+    /**
+     * @return the amount in minor units, or null if it has no exact minor unit representation
+     */
+    public static MinorUnits of(MonetaryAmount amount) {
+        return of(MonetaryAmounts.toBigDecimal(amount.getNumber()), amount.getCurrency());
+    }
+
+    public MinorUnits plus(MinorUnits other) {
+        checkCurrency(other);
+        return new MinorUnits(Math.addExact(units, other.units), currency);
+    }
+
+    public MinorUnits minus(MinorUnits other) {
+        checkCurrency(other);
+        return new MinorUnits(Math.subtractExact(units, other.units), currency);
+    }
+
+    @Override
+    public int compareTo(MinorUnits other) {
+        checkCurrency(other);
+        return Long.compare(units, other.units);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, currency.getDefaultFractionDigits());
+    }
+
+    public MonetaryAmount toMonetaryAmount() {
+        return Money.of(toBigDecimal(), currency);
+    }
+
+    private void checkCurrency(MinorUnits other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.gs.fundstransfer.model;
+
+public enum OperationType {
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER
+}
@@ -2,16 +2,76 @@ package com.gs.fundstransfer.repository;
 
 import com.gs.fundstransfer.model.Account;
 import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
         @Lock(LockModeType.PESSIMISTIC_WRITE)
         @Query("select a from Account a where a.ownerId = :id")
         Optional<Account> findByIdWithLock(Long id);
-}
\ No newline at end of file
+
+        /**
+         * Locks all the given accounts in a single round trip.
+         * Rows are always locked in ascending ownerId order, so two transactions touching the same
+         * accounts can never wait on each other in opposite directions.
+         *
+         * @param ids the owner IDs of the accounts to lock
+         * @return the locked accounts ordered by ownerId; missing IDs are simply absent
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select a from Account a where a.ownerId in :ids order by a.ownerId")
+        List<Account> findAllByIdWithLock(Collection<Long> ids);
+
+        /**
+         * Adds to the balance in place, without loading the account or holding a lock in the application.
+         * The version is bumped so that optimistic writers see the change. Pending changes are flushed first, and
+         * the persistence context is cleared afterwards, so that no loaded account keeps the old balance.
+         *
+         * @return 1 if the account exists and holds the given currency, 0 otherwise
+         */
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query(value = "update account set balance = balance + :amount, version = version + 1 "
+                + "where owner_id = :id and currency = :currency", nativeQuery = true)
+        int creditBalance(Long id, BigDecimal amount, String currency);
+
+        /**
+         * Subtracts from the balance in place if it covers the amount, like {@link #creditBalance}.
+         *
+         * @return 1 if the account exists, holds the given currency and has enough funds, 0 otherwise
+         */
+        @Modifying(flushAutomatically = true, clearAutomatically = true)
+        @Query(value = "update account set balance = balance - :amount, version = version + 1 "
+                + "where owner_id = :id and currency = :currency and balance >= :amount", nativeQuery = true)
+        int debitBalance(Long id, BigDecimal amount, String currency);
+
+        /**
+         * Keyset pagination over accounts: seeks past the last ownerId of the previous page through the
+         * primary key index instead of counting skipped rows with an offset.
+         */
+        List<Account> findByOwnerIdGreaterThanOrderByOwnerId(Long after, Limit limit);
+
+        /**
+         * Streams every account in ownerId order through a forward-only cursor, fetching rows from the
+         * driver in chunks instead of materializing the whole result. Must be consumed and closed inside
+         * a transaction.
+         */
+        @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+                @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+                @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")})
+        @Query("select a from Account a order by a.ownerId")
+        Stream<Account> streamAll();
+}
@@ -0,0 +1,50 @@
+package com.gs.fundstransfer.repository;
+
+import com.gs.fundstransfer.model.AccountSlot;
+import com.gs.fundstransfer.model.AccountSlotId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccountSlotRepository extends JpaRepository<AccountSlot, AccountSlotId> {
+
+        /**
+         * Adds to the balance of one slot in place, locking that slot row only.
+         *
+         * @return 1 if the slot exists and holds the given currency, 0 otherwise
+         */
+        @Modifying
+        @Query(value = "update account_slot set balance = balance + :amount "
+                + "where owner_id = :id and slot = :slot and currency = :currency", nativeQuery = true)
+        int creditSlot(Long id, int slot, BigDecimal amount, String currency);
+
+        /**
+         * Locks every slot of an account, in slot order.
+         */
+        @Lock(LockModeType.PESSIMISTIC_WRITE)
+        @Query("select s from AccountSlot s where s.id.ownerId = :id order by s.id.slot")
+        List<AccountSlot> findAllByOwnerIdWithLock(Long id);
+
+        @Query("select count(s) from AccountSlot s where s.id.ownerId = :id")
+        int countByOwnerId(Long id);
+
+        /**
+         * Returns the owner ID and the number of slots of every split account.
+         */
+        @Query("select s.id.ownerId, count(s) from AccountSlot s group by s.id.ownerId")
+        List<Object[]> countSlots();
+
+        /**
+         * Returns the owner ID and the total slot balance of the given split accounts.
+         */
+        @Query("select s.id.ownerId, sum(s.balance) from AccountSlot s where s.id.ownerId in :ids group by s.id.ownerId")
+        List<Object[]> sumBalances(Collection<Long> ids);
+}
@@ -0,0 +1,9 @@
+package com.gs.fundstransfer.repository;
+
+import com.gs.fundstransfer.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+}
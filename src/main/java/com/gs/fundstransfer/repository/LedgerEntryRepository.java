@@ -0,0 +1,17 @@
+package com.gs.fundstransfer.repository;
+
+import com.gs.fundstransfer.model.LedgerEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    /**
+     * Keyset page of an account statement: the newest entries strictly older than the given entry ID.
+     */
+    List<LedgerEntry> findByAccountIdAndIdLessThanOrderByIdDesc(Long accountId, Long id, Limit limit);
+}
@@ -0,0 +1,12 @@
+package com.gs.fundstransfer.request;
+
+public enum BatchMode {
+    /**
+     * Any failing transfer rolls the whole batch back.
+     */
+    ALL_OR_NOTHING,
+    /**
+     * Failing transfers are skipped and the others are applied.
+     */
+    BEST_EFFORT
+}
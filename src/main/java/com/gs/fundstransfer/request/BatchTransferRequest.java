@@ -0,0 +1,25 @@
+package com.gs.fundstransfer.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BatchTransferRequest {
+    @NotEmpty
+    @Size(max = 10000)
+    List<@Valid @NotNull TransferRequest> transfers;
+    @NotNull
+    @Builder.Default
+    BatchMode mode = BatchMode.ALL_OR_NOTHING;
+}
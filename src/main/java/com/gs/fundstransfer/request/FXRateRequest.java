@@ -15,5 +15,14 @@ import javax.money.MonetaryAmount;
 public class FXRateRequest {
     MonetaryAmount monetaryAmount;
     CurrencyUnit targetCurrency;
+    /**
+     * Optional FX quote whose rate is used instead of the current one. The target currency defaults to its term
+     * currency.
+     */
+    String quoteId;
+
+    public FXRateRequest(MonetaryAmount monetaryAmount, CurrencyUnit targetCurrency) {
+        this(monetaryAmount, targetCurrency, null);
+    }
 
 }
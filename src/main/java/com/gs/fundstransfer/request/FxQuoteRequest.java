@@ -0,0 +1,18 @@
+package com.gs.fundstransfer.request;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class FxQuoteRequest {
+    @NotNull
+    String baseCurrency;
+    @NotNull
+    String termCurrency;
+}
@@ -0,0 +1,12 @@
+package com.gs.fundstransfer.request;
+
+public enum ImportFormat {
+    /**
+     * One transfer per line, {@code debitAccountId,creditAccountId,amount,currency}, after a header line.
+     */
+    CSV,
+    /**
+     * One {@link TransferRequest} JSON object per line.
+     */
+    NDJSON
+}
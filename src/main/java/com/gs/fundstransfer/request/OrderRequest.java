@@ -19,4 +19,12 @@ public class OrderRequest {
     BigDecimal amount;
     @NotNull
     String currency;
+    /**
+     * Optional FX quote, whose rate converts the amount when the account is in the quote's term currency.
+     */
+    String quoteId;
+
+    public OrderRequest(Long accountId, BigDecimal amount, String currency) {
+        this(accountId, amount, currency, null);
+    }
 }
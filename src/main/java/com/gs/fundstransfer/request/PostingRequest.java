@@ -0,0 +1,31 @@
+package com.gs.fundstransfer.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PostingRequest {
+    @NotNull
+    PostingType type;
+    /**
+     * The interest rate applied to the balance, e.g. 0.0001, or the fee in the account currency.
+     */
+    @NotNull
+    @Positive
+    BigDecimal amount;
+    /**
+     * Each type is posted at most once per business date.
+     */
+    @NotNull
+    LocalDate businessDate;
+}
@@ -0,0 +1,12 @@
+package com.gs.fundstransfer.request;
+
+public enum PostingType {
+    /**
+     * Credits every account with a positive balance with the balance times the rate.
+     */
+    INTEREST,
+    /**
+     * Debits every account with a flat fee, in the account currency, if its balance covers it.
+     */
+    FEE
+}
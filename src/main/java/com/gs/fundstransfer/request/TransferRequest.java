@@ -21,4 +21,12 @@ public class TransferRequest {
     BigDecimal amount;
     @NotNull
     String currency;
+    /**
+     * Optional FX quote, whose rate converts the amount when an account is in the quote's term currency.
+     */
+    String quoteId;
+
+    public TransferRequest(Long debitAccountId, Long creditAccountId, BigDecimal amount, String currency) {
+        this(debitAccountId, creditAccountId, amount, currency, null);
+    }
 }
@@ -1,9 +1,10 @@
 package com.gs.fundstransfer.services;
 
 import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.AccountPageDto;
 import com.gs.fundstransfer.request.CreateAccountRequest;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface AccountService {
 
@@ -11,5 +12,7 @@ public interface AccountService {
 
     AccountDto get(Long id);
 
-    List<AccountDto> getAll();
+    AccountPageDto getPage(Long after, int limit);
+
+    void streamAll(Consumer<AccountDto> consumer);
 }
@@ -0,0 +1,16 @@
+package com.gs.fundstransfer.services;
+
+import java.math.BigDecimal;
+
+/**
+ * Source of the exchange rates used by the {@link ForexService}.
+ */
+public interface ExchangeRateProvider {
+
+    /**
+     * Returns the factor converting one unit of the base currency into the term currency.
+     *
+     * @throws com.gs.fundstransfer.exceptions.UnavailableFXRatesException if no usable rate is known for the pair
+     */
+    BigDecimal getRate(String baseCurrency, String termCurrency);
+}
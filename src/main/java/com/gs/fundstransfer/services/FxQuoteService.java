@@ -0,0 +1,11 @@
+package com.gs.fundstransfer.services;
+
+import com.gs.fundstransfer.dto.FxQuoteDto;
+import com.gs.fundstransfer.request.FxQuoteRequest;
+
+public interface FxQuoteService {
+
+    FxQuoteDto create(FxQuoteRequest request);
+
+    FxQuoteDto get(String quoteId);
+}
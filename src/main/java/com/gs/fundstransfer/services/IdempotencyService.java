@@ -0,0 +1,17 @@
+package com.gs.fundstransfer.services;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.OperationType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    TransferDto execute(String idempotencyKey, OperationType operation, Object request, Supplier<TransferDto> call);
+
+    CompletableFuture<TransferDto> executeAsync(String idempotencyKey, OperationType operation, Object request,
+                                                Supplier<CompletableFuture<TransferDto>> call);
+
+    void record(String idempotencyKey, OperationType operation, Object request, TransferDto result);
+}
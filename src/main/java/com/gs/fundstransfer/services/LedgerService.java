@@ -0,0 +1,15 @@
+package com.gs.fundstransfer.services;
+
+import com.gs.fundstransfer.dto.LedgerPageDto;
+import com.gs.fundstransfer.dto.TransferDto;
+
+import java.util.List;
+
+public interface LedgerService {
+
+    void record(TransferDto transfer);
+
+    void recordAll(List<TransferDto> transfers);
+
+    LedgerPageDto getEntries(Long accountId, Long before, int limit);
+}
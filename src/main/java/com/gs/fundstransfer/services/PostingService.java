@@ -0,0 +1,11 @@
+package com.gs.fundstransfer.services;
+
+import com.gs.fundstransfer.dto.PostingJobDto;
+import com.gs.fundstransfer.request.PostingRequest;
+
+public interface PostingService {
+
+    PostingJobDto start(PostingRequest request);
+
+    PostingJobDto get(Long executionId);
+}
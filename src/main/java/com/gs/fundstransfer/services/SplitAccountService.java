@@ -0,0 +1,22 @@
+package com.gs.fundstransfer.services;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Spreads the balance of very contended accounts over sub-rows, so that concurrent credits do not queue on a
+ * single row lock.
+ */
+public interface SplitAccountService {
+
+    void split(Long accountId, int slots);
+
+    boolean isSplit(Long accountId);
+
+    boolean credit(Long accountId, BigDecimal amount, String currency);
+
+    BigDecimal consolidate(Long accountId);
+
+    Map<Long, BigDecimal> getSlotBalances(Collection<Long> accountIds);
+}
@@ -1,14 +1,43 @@
 package com.gs.fundstransfer.services;
 
+import com.gs.fundstransfer.dto.BatchTransferDto;
 import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.request.BatchTransferRequest;
 import com.gs.fundstransfer.request.OrderRequest;
 import com.gs.fundstransfer.request.TransferRequest;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface TransactionService {
 
     TransferDto deposit(OrderRequest request);
 
+    TransferDto deposit(OrderRequest request, String idempotencyKey);
+
     TransferDto withdraw(OrderRequest request);
 
+    TransferDto withdraw(OrderRequest request, String idempotencyKey);
+
     TransferDto transfer(TransferRequest request);
+
+    TransferDto transfer(TransferRequest request, String idempotencyKey);
+
+    BatchTransferDto transferBatch(BatchTransferRequest request);
+
+    /**
+     * Deposits like {@link #deposit(OrderRequest, String)}, without blocking the calling thread.
+     *
+     * @return a future completed once the deposit is committed, or failed with the exception it would have thrown
+     */
+    CompletableFuture<TransferDto> depositAsync(OrderRequest request, String idempotencyKey);
+
+    /**
+     * Withdraws like {@link #withdraw(OrderRequest, String)}, without blocking the calling thread.
+     */
+    CompletableFuture<TransferDto> withdrawAsync(OrderRequest request, String idempotencyKey);
+
+    /**
+     * Transfers like {@link #transfer(TransferRequest, String)}, without blocking the calling thread.
+     */
+    CompletableFuture<TransferDto> transferAsync(TransferRequest request, String idempotencyKey);
 }
@@ -0,0 +1,16 @@
+package com.gs.fundstransfer.services;
+
+import com.gs.fundstransfer.dto.ImportJobDto;
+import com.gs.fundstransfer.request.ImportFormat;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+
+public interface TransferImportService {
+
+    ImportJobDto start(InputStream content, ImportFormat format);
+
+    ImportJobDto get(Long executionId);
+
+    Path getResults(Long executionId);
+}
@@ -0,0 +1,70 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.events.BalanceChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Near cache of account reads, keyed by ownerId.
+ *
+ * Entries are evicted once a transaction which changed their balance has committed, so a read never returns a
+ * balance older than the last committed one. Loads run inside the cache for their key: an eviction racing with a
+ * load waits for it, then removes what it loaded. Hits, misses and evictions are exported as {@code cache_*}
+ * metrics tagged {@code cache=accounts}.
+ */
+@Component
+public class AccountCache {
+
+    private final boolean enabled;
+    private final Cache<Long, AccountDto> accounts;
+
+    public AccountCache(MeterRegistry meterRegistry,
+                        @Value("${accounts.cache.enabled:true}") boolean enabled,
+                        @Value("${accounts.cache.maximum-size:100000}") long maximumSize,
+                        @Value("${accounts.cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.enabled = enabled;
+        this.accounts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accounts");
+    }
+
+    /**
+     * Returns a copy of the cached account, loading it on a miss.
+     *
+     * @param loader loads the account, or returns null if it does not exist, which is not cached
+     * @return the account, or null if it does not exist
+     */
+    public AccountDto get(Long ownerId, Function<Long, AccountDto> loader) {
+        AccountDto account = enabled ? accounts.get(ownerId, loader) : loader.apply(ownerId);
+        // Callers may modify the returned account
+        return account == null ? null : new AccountDto(account.getOwnerId(), account.getCurrency(), account.getBalance());
+    }
+
+    public void evict(Long ownerId) {
+        accounts.invalidate(ownerId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBalanceChanged(BalanceChangedEvent event) {
+        TransferDto transfer = event.transfer();
+        if (transfer.getDebitAccountId() != null) {
+            evict(transfer.getDebitAccountId());
+        }
+        if (transfer.getCreditAccountId() != null) {
+            evict(transfer.getCreditAccountId());
+        }
+    }
+}
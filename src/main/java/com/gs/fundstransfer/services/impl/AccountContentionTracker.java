@@ -0,0 +1,82 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gs.fundstransfer.configs.RetryConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Decides, for each account, whether operations read it without locks and rely on its version check, or lock
+ * its row up front.
+ *
+ * Accounts start optimistic. Every version conflict is counted against the account, and once it reaches
+ * {@code transactions.optimistic.max-conflicts} the account is locked pessimistically until it has gone
+ * {@code transactions.optimistic.cooldown} without a new conflict. Only contended accounts are remembered.
+ *
+ * The retry of an operation which hit a version conflict locks its accounts whatever their count, so that a request
+ * runs into at most one conflict instead of failing once its attempts are used up. The retry policy marks that attempt
+ * with {@link RetryConfig#RETRYING_CONFLICT}.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@Slf4j
+public class AccountContentionTracker {
+
+    private final boolean enabled;
+    private final int maxConflicts;
+    private final Cache<Long, AtomicInteger> conflicts;
+
+    public AccountContentionTracker(@Value("${transactions.optimistic.enabled:true}") boolean enabled,
+                                    @Value("${transactions.optimistic.max-conflicts:3}") int maxConflicts,
+                                    @Value("${transactions.optimistic.cooldown:1m}") Duration cooldown) {
+        this.enabled = enabled;
+        this.maxConflicts = maxConflicts;
+        this.conflicts = Caffeine.newBuilder()
+                .expireAfterWrite(cooldown)
+                .build();
+    }
+
+    /**
+     * Returns true if none of the given accounts is contended, so they can all be updated optimistically, unless the
+     * current attempt is the retry of a version conflict.
+     */
+    public boolean isOptimistic(Collection<Long> accountIds) {
+        RetryContext retryContext = RetrySynchronizationManager.getContext();
+        if (!enabled || retryContext != null && Boolean.TRUE.equals(retryContext.getAttribute(
+                RetryConfig.RETRYING_CONFLICT))) {
+            return false;
+        }
+        for (Long accountId : accountIds) {
+            AtomicInteger count = conflicts.getIfPresent(accountId);
+            if (count != null && count.get() >= maxConflicts) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts a version conflict on the given account and restarts its cooldown.
+     */
+    public void recordConflict(Long accountId) {
+        int count = conflicts.asMap()
+                .compute(accountId, (id, current) -> {
+                    AtomicInteger next = current == null ? new AtomicInteger() : current;
+                    next.incrementAndGet();
+                    return next;
+                })
+                .get();
+        if (count == maxConflicts) {
+            log.debug("Account {} is contended, switching to pessimistic locking", accountId);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
+import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.exceptions.SameAccountTransferException;
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.repository.AccountRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Applies the asynchronous operations of an account in micro-batches.
+ *
+ * Operations are queued by account, and each account has at most one drainer, on a virtual thread. The drainer
+ * takes up to {@code transactions.coalescing.max-batch-size} pending operations and applies them in a single
+ * transaction: every account they involve is locked once, in ownerId order, then the operations run one after the
+ * other and commit together. Their futures complete after the commit. While a batch runs, new operations queue up
+ * and form the next batch, so the busier an account, the larger its batches, and the fewer lock hand-offs and
+ * commits per operation.
+ *
+ * An operation refused for a business reason, like insufficient funds, fails alone, as it changes nothing. Any other
+ * failure rolls the batch back, and its operations are then applied one by one, so that they fail or succeed on
+ * their own. Lock conflicts are retried with the policy of the synchronous operations, {@code transactionRetryTemplate}.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@Slf4j
+public class AccountOperationCoalescer {
+
+    private final AccountRepository accountRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryTemplate retryTemplate;
+    private final int maxBatchSize;
+    private final DistributionSummary batchSizes;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    // An account has a queue while its drainer runs, which is what tells a new operation to start one
+    private final Map<Long, Deque<PendingOperation>> queues = new ConcurrentHashMap<>();
+
+    public AccountOperationCoalescer(AccountRepository accountRepository, EntityManager entityManager,
+                                     TransactionTemplate transactionTemplate, RetryTemplate transactionRetryTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${transactions.coalescing.max-batch-size:100}") int maxBatchSize) {
+        this.accountRepository = accountRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.maxBatchSize = maxBatchSize;
+        this.retryTemplate = transactionRetryTemplate;
+        this.batchSizes = DistributionSummary.builder("transactions.coalesced.batch.size")
+                .description("Operations applied per coalesced transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queues an operation behind the other operations of its account.
+     *
+     * @param accountId  the account whose queue the operation joins
+     * @param accountIds every account the operation updates, locked before the batch runs
+     * @param operation  applies the operation in the transaction of the batch
+     * @return a future completed with the result of the operation once it is committed
+     */
+    public CompletableFuture<TransferDto> submit(Long accountId, Collection<Long> accountIds,
+                                                 Supplier<TransferDto> operation) {
+        PendingOperation pending = new PendingOperation(accountIds, operation, new CompletableFuture<>());
+        boolean[] start = new boolean[1];
+        queues.compute(accountId, (id, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                start[0] = true;
+            }
+            queue.add(pending);
+            return queue;
+        });
+        if (start[0]) {
+            executor.execute(() -> drain(accountId));
+        }
+        return pending.result();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Coalesced operations were still pending on shutdown");
+        }
+    }
+
+    private void drain(Long accountId) {
+        while (true) {
+            List<PendingOperation> batch = new ArrayList<>();
+            queues.computeIfPresent(accountId, (id, queue) -> {
+                while (!queue.isEmpty() && batch.size() < maxBatchSize) {
+                    batch.add(queue.poll());
+                }
+                // Removing the empty queue ends this drainer
+                return batch.isEmpty() ? null : queue;
+            });
+            if (batch.isEmpty()) {
+                return;
+            }
+            batchSizes.record(batch.size());
+            apply(batch);
+        }
+    }
+
+    private void apply(List<PendingOperation> batch) {
+        List<Object> outcomes;
+        try {
+            outcomes = retryTemplate.execute(context -> {
+                context.setAttribute(RetryContext.NAME, "AccountOperationCoalescer.apply");
+                return transactionTemplate.execute(status -> applyAll(batch));
+            });
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                batch.getFirst()
+                        .result()
+                        .completeExceptionally(e);
+                return;
+            }
+            log.debug("Coalesced batch of {} operations failed, applying them one by one", batch.size(), e);
+            batch.forEach(pending -> apply(List.of(pending)));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            if (outcomes.get(i) instanceof RuntimeException e) {
+                batch.get(i)
+                        .result()
+                        .completeExceptionally(e);
+            } else {
+                batch.get(i)
+                        .result()
+                        .complete((TransferDto) outcomes.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the result, or the business exception, of every operation, in batch order
+     */
+    private List<Object> applyAll(List<PendingOperation> batch) {
+        SortedSet<Long> accountIds = new TreeSet<>();
+        batch.forEach(pending -> accountIds.addAll(pending.accountIds()));
+        accountRepository.findAllByIdWithLock(accountIds);
+        // The rows stay locked; each operation reads them again, so that in-place updates are never overwritten
+        entityManager.clear();
+        List<Object> outcomes = new ArrayList<>(batch.size());
+        for (PendingOperation pending : batch) {
+            try {
+                outcomes.add(pending.operation()
+                                     .get());
+            } catch (AccountNotFoundException | SameAccountTransferException | NotSupportedCurrencyException |
+                     UnsufficientFundsException | UnavailableFXRatesException | InvalidFxQuoteException e) {
+                outcomes.add(e);
+            }
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return outcomes;
+    }
+
+    private record PendingOperation(Collection<Long> accountIds, Supplier<TransferDto> operation,
+                                    CompletableFuture<TransferDto> result) {
+    }
+}
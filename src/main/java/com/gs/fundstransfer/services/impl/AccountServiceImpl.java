@@ -1,6 +1,8 @@
 package com.gs.fundstransfer.services.impl;
 
 import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.AccountPageDto;
+import com.gs.fundstransfer.events.AccountOpenedEvent;
 import com.gs.fundstransfer.exceptions.AccountNotFoundException;
 import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
 import com.gs.fundstransfer.mapper.AccountMapper;
@@ -8,16 +10,24 @@ import com.gs.fundstransfer.model.Account;
 import com.gs.fundstransfer.repository.AccountRepository;
 import com.gs.fundstransfer.request.CreateAccountRequest;
 import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.money.Monetary;
 import javax.money.MonetaryAmount;
 import javax.money.UnknownCurrencyException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service implementation that handles the business logic related to account operations.
@@ -30,11 +40,18 @@ import java.util.Optional;
 @Slf4j
 public class AccountServiceImpl implements AccountService {
 
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final AccountRepository accountRepository;
     private final AccountMapper accountMapper;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SplitAccountService splitAccountService;
+    private final AccountCache accountCache;
 
     /**
-     * Creates a new account based on the provided account request and saves it to the repository.
+     * Creates a new account based on the provided account request and saves it to the repository,
+     * then publishes an {@link AccountOpenedEvent}.
      *
      * @param accountRequest the details for creating the new account, including the currency type
      * @return the newly created account, represented as an AccountDto
@@ -45,6 +62,9 @@ public class AccountServiceImpl implements AccountService {
                 .money(createInitialAccount(accountRequest.getCurrency()))
                 .build();
         Account saved = accountRepository.save(account);
+        eventPublisher.publishEvent(new AccountOpenedEvent(saved.getOwnerId(), saved.getMoney()
+                .getCurrency()
+                .getCurrencyCode()));
         return accountMapper.toDto(saved);
     }
 
@@ -67,7 +87,8 @@ public class AccountServiceImpl implements AccountService {
     }
 
     /**
-     * Retrieves an existing account by its owner ID.
+     * Retrieves an existing account by its owner ID, from the {@link AccountCache} when possible.
+     * The balance of a split account includes its slots.
      *
      * @param id the ID of the account owner to retrieve
      * @return the account information as an AccountDto
@@ -75,19 +96,70 @@ public class AccountServiceImpl implements AccountService {
      */
     @Override
     public AccountDto get(Long id) {
+        AccountDto account = accountCache.get(id, this::load);
+        if (account == null) {
+            throw new AccountNotFoundException(id);
+        }
+        return account;
+    }
+
+    private AccountDto load(Long id) {
         Optional<Account> optionalAccount = accountRepository.findById(id);
-        optionalAccount.orElseThrow(() -> new AccountNotFoundException(id));
-        return accountMapper.toDto(optionalAccount.get());
+        return optionalAccount.map(account -> addSlotBalances(List.of(accountMapper.toDto(account))).getFirst())
+                .orElse(null);
+    }
+
+    /**
+     * Retrieves one page of accounts in ownerId order using keyset pagination.
+     *
+     * @param after the ownerId of the last account of the previous page, or null for the first page
+     * @param limit the maximum number of accounts to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return the accounts and the cursor of the next page, absent on the last page
+     */
+    @Override
+    public AccountPageDto getPage(Long after, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // Fetch one extra row to know whether a next page exists without a count query
+        List<Account> accounts = accountRepository.findByOwnerIdGreaterThanOrderByOwnerId(
+                after == null ? Long.MIN_VALUE : after, Limit.of(pageSize + 1));
+        boolean hasNext = accounts.size() > pageSize;
+        List<Account> page = hasNext ? accounts.subList(0, pageSize) : accounts;
+        return AccountPageDto.builder()
+                .accounts(addSlotBalances(accountMapper.toDtos(page)))
+                .nextAfter(hasNext ? page.getLast()
+                        .getOwnerId() : null)
+                .build();
     }
 
     /**
-     * Retrieves all existing accounts from the repository and converts them to a list of AccountDto objects.
+     * Streams every account to the given consumer, one at a time, in ownerId order.
+     * Each account is detached once mapped, so memory stays flat whatever the size of the table.
      *
-     * @return a list of accounts represented as AccountDto objects
+     * @param consumer receives each account as an AccountDto
      */
     @Override
-    public List<AccountDto> getAll() {
-        List<Account> optionalAccount = accountRepository.findAll();
-        return accountMapper.toDtos(optionalAccount);
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<AccountDto> consumer) {
+        try (Stream<Account> accounts = accountRepository.streamAll()) {
+            accounts.forEach(account -> {
+                AccountDto accountDto = accountMapper.toDto(account);
+                entityManager.detach(account);
+                consumer.accept(addSlotBalances(List.of(accountDto)).getFirst());
+            });
+        }
+    }
+
+    private List<AccountDto> addSlotBalances(List<AccountDto> accounts) {
+        Map<Long, BigDecimal> slotBalances = splitAccountService.getSlotBalances(accounts.stream()
+                                                                                     .map(AccountDto::getOwnerId)
+                                                                                     .toList());
+        accounts.forEach(account -> {
+            BigDecimal slotBalance = slotBalances.get(account.getOwnerId());
+            if (slotBalance != null) {
+                account.setBalance(account.getBalance()
+                                           .add(slotBalance));
+            }
+        });
+        return accounts;
     }
 }
@@ -0,0 +1,194 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.mapper.MonetaryAmounts;
+import com.gs.fundstransfer.model.MinorUnits;
+import org.javamoney.moneta.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.money.CurrencyUnit;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Converts amounts between currencies, rounded to the ISO 4217 minor unit of the term currency with
+ * {@code fx.rounding-mode}.
+ *
+ * The rate of each pair is kept as a scaled integer, e.g. 1.0842 as 10842 and 4 decimals, recomputed only when
+ * the rate changes. Amounts with a minor unit representation are then converted on longs: the minor units are
+ * multiplied by the scaled rate, and divided by a power of ten with the rounding mode. Rates of up to 18
+ * significant digits, like inverted or triangulated ones, are multiplied in two halves of 9 digits, so amounts up
+ * to about 9 * 10^9 minor units never overflow; larger ones fall back to BigDecimal arithmetic, which gives the
+ * same result. Neither path depends on a default MathContext, so every node converts an amount to the same value.
+ * Currencies without minor unit are rounded to 16 significant digits.
+ */
+@Component
+public class CurrencyConverter {
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final RoundingMode roundingMode;
+    private final MathContext noMinorUnitContext;
+    // By base then term currency, so that a lookup does not allocate a key
+    private final Map<CurrencyUnit, Map<CurrencyUnit, ScaledRate>> scaledRates = new ConcurrentHashMap<>();
+
+    public CurrencyConverter(@Value("${fx.rounding-mode:HALF_EVEN}") RoundingMode roundingMode) {
+        this.roundingMode = roundingMode;
+        this.noMinorUnitContext = new MathContext(16, roundingMode);
+    }
+
+    /**
+     * Converts an amount into the term currency, rounded to its minor unit.
+     *
+     * @param rate the factor converting one unit of the currency of the amount into the term currency
+     */
+    public MonetaryAmount convert(MonetaryAmount amount, CurrencyUnit termCurrency, BigDecimal rate) {
+        int termDigits = termCurrency.getDefaultFractionDigits();
+        if (termDigits >= 0) {
+            MinorUnits units = MinorUnits.of(amount);
+            if (units != null) {
+                MinorUnits converted = convert(units, termCurrency, scaledRate(amount.getCurrency(), termCurrency, rate));
+                if (converted != null) {
+                    return converted.toMonetaryAmount();
+                }
+            }
+        }
+        return Money.of(convert(MonetaryAmounts.toBigDecimal(amount.getNumber()), termDigits, rate), termCurrency);
+    }
+
+    /**
+     * The reference conversion, on BigDecimals.
+     */
+    BigDecimal convert(BigDecimal amount, int termDigits, BigDecimal rate) {
+        BigDecimal converted = amount.multiply(rate);
+        return termDigits >= 0 ? converted.setScale(termDigits, roundingMode) : converted.round(noMinorUnitContext);
+    }
+
+    /**
+     * @return the converted minor units, or null if the conversion does not fit in a long
+     */
+    private MinorUnits convert(MinorUnits units, CurrencyUnit termCurrency, ScaledRate rate) {
+        if (!rate.isScaled()) {
+            return null;
+        }
+        // units * 10^-baseDigits * unscaled * 10^-scale, in units of 10^-termDigits
+        int shift = rate.scale() + units.currency()
+                .getDefaultFractionDigits() - termCurrency.getDefaultFractionDigits();
+        if (shift < -18 || shift > 18) {
+            return null;
+        }
+        int signum = Long.signum(units.units());
+        long magnitude = Math.abs(units.units());
+        // The product is split at 10^9, so that 18-digit rates fit for amounts up to about 9 * 10^9 minor units
+        long high = multiply(magnitude, rate.high());
+        long low = multiply(magnitude, rate.low());
+        if (high < 0 || low < 0) {
+            return null;
+        }
+        long quotient;
+        long remainder;
+        long divisor = POWERS_OF_TEN[Math.max(shift, 0)];
+        if (shift < 9) {
+            long product = high > (Long.MAX_VALUE - low) / POWERS_OF_TEN[9] ? -1 : high * POWERS_OF_TEN[9] + low;
+            if (shift < 0) {
+                product = product < 0 ? -1 : multiply(product, POWERS_OF_TEN[-shift]);
+            }
+            if (product < 0) {
+                return null;
+            }
+            quotient = product / divisor;
+            remainder = product % divisor;
+        } else {
+            // high * 10^9 / 10^shift + low / 10^shift, the remainders being summed below 2 * 10^18
+            long highDivisor = POWERS_OF_TEN[shift - 9];
+            quotient = high / highDivisor + low / divisor;
+            remainder = high % highDivisor * POWERS_OF_TEN[9] + low % divisor;
+            if (remainder >= divisor) {
+                quotient++;
+                remainder -= divisor;
+            }
+        }
+        return new MinorUnits(signum * round(quotient, remainder, divisor, signum, roundingMode), termCurrency);
+    }
+
+    private ScaledRate scaledRate(CurrencyUnit baseCurrency, CurrencyUnit termCurrency, BigDecimal rate) {
+        Map<CurrencyUnit, ScaledRate> termRates = scaledRates.computeIfAbsent(baseCurrency,
+                                                                              currency -> new ConcurrentHashMap<>());
+        ScaledRate scaledRate = termRates.get(termCurrency);
+        // Rates are replaced, never modified, so the same instance means the same rate
+        if (scaledRate == null || scaledRate.rate() != rate) {
+            scaledRate = ScaledRate.of(rate);
+            termRates.put(termCurrency, scaledRate);
+        }
+        return scaledRate;
+    }
+
+    /**
+     * @return the product of two non-negative longs, or -1 if it overflows
+     */
+    private static long multiply(long x, long y) {
+        long product = x * y;
+        return Math.multiplyHigh(x, y) == 0 && product >= 0 ? product : -1;
+    }
+
+    /**
+     * Rounds the magnitude of a quotient like {@link BigDecimal#setScale(int, RoundingMode)}.
+     *
+     * @param remainder the remainder of the division, between 0 and the divisor
+     * @param signum    the sign of the quotient, which the directed modes depend on
+     * @throws ArithmeticException if the mode is UNNECESSARY and the division is not exact
+     */
+    static long round(long quotient, long remainder, long divisor, int signum, RoundingMode roundingMode) {
+        if (remainder == 0) {
+            return quotient;
+        }
+        // Sign of the distance to the half, without computing 2 * remainder, which could overflow
+        int half = Long.compare(remainder, divisor - remainder);
+        boolean up = switch (roundingMode) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> signum > 0;
+            case FLOOR -> signum < 0;
+            case HALF_UP -> half >= 0;
+            case HALF_DOWN -> half > 0;
+            case HALF_EVEN -> half > 0 || half == 0 && (quotient & 1) != 0;
+            case UNNECESSARY -> throw new ArithmeticException("Rounding necessary");
+        };
+        return up ? quotient + 1 : quotient;
+    }
+
+    /**
+     * A rate as {@code (high * 10^9 + low) * 10^-scale}. Rates with more than 18 significant digits have no scaled
+     * form, and a negative scale.
+     */
+    private record ScaledRate(BigDecimal rate, long high, long low, int scale) {
+
+        boolean isScaled() {
+            return scale >= 0;
+        }
+
+        static ScaledRate of(BigDecimal rate) {
+            BigDecimal stripped = rate.stripTrailingZeros();
+            if (stripped.scale() < 0) {
+                stripped = stripped.setScale(0);
+            }
+            if (stripped.signum() <= 0 || stripped.precision() > 18) {
+                return new ScaledRate(rate, 0, 0, -1);
+            }
+            long unscaled = stripped.unscaledValue()
+                    .longValueExact();
+            return new ScaledRate(rate, unscaled / POWERS_OF_TEN[9], unscaled % POWERS_OF_TEN[9], stripped.scale());
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.IdempotencyService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.javamoney.moneta.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Applies asynchronous deposits in group commits, when {@code transactions.group-commit.enabled} is set.
+ *
+ * The deposits of every account join a single queue. One committer thread takes the first waiting deposit, gathers
+ * those arriving within {@code transactions.group-commit.window}, up to {@code transactions.group-commit.max-batch-size},
+ * and applies them in one transaction: a JDBC batch of in-place balance updates, in ownerId order like every other
+ * lock, then a JDBC batch of ledger entries through {@link LedgerService#recordAll}. Deposits to split accounts credit a
+ * random slot instead, like a synchronous deposit, once the account rows are updated: they still share the commit,
+ * without queuing on the row of their account. Their futures complete once that transaction has committed, so the
+ * deposits of a batch share a single commit, and a single log sync on a disk-backed database.
+ *
+ * A deposit whose update matches no row, because its account does not exist or holds another currency, leaves the
+ * batch and is applied alone like a synchronous deposit. If the batch itself fails, its deposits are applied alone as
+ * well, so that they fail or succeed on their own. A driver which answers a batch without update counts cannot tell
+ * those deposits apart: the batch is rolled back, and every deposit is applied alone from then on. Deposits no longer queue behind the other asynchronous operations
+ * of their account, see {@link AccountOperationCoalescer}.
+ */
+@Component
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@Slf4j
+public class DepositGroupCommitter {
+
+    private static final String CREDIT = "update account set balance = balance + ?, version = version + 1 "
+            + "where owner_id = ? and currency = ?";
+    private static final Duration IDLE_POLL = Duration.ofMillis(100);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final IdempotencyService idempotencyService;
+    private final LedgerService ledgerService;
+    private final SplitAccountService splitAccountService;
+    private final RetryTemplate retryTemplate;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final DistributionSummary batchSizes;
+    private final BlockingQueue<PendingDeposit> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService committer;
+    // Deposits applied alone do not hold up the next group commit
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean running;
+    // Cleared once the driver answers a batch with Statement.SUCCESS_NO_INFO
+    private volatile boolean updateCountsReported = true;
+
+    public DepositGroupCommitter(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 RetryTemplate transactionRetryTemplate, IdempotencyService idempotencyService, LedgerService ledgerService,
+                                 SplitAccountService splitAccountService,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${transactions.group-commit.enabled:false}") boolean enabled,
+                                 @Value("${transactions.group-commit.max-batch-size:100}") int maxBatchSize,
+                                 @Value("${transactions.group-commit.window:2ms}") Duration window) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.idempotencyService = idempotencyService;
+        this.ledgerService = ledgerService;
+        this.splitAccountService = splitAccountService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.retryTemplate = transactionRetryTemplate;
+        this.batchSizes = DistributionSummary.builder("transactions.group-commit.batch.size")
+                .description("Deposits applied per group commit")
+                .register(meterRegistry);
+        this.committer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deposit-group-commit");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            running = true;
+            committer.execute(this::run);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a deposit for the next group commit.
+     *
+     * @param idempotencyKey the key to record the deposit under, or null
+     * @param deposit        applies the deposit alone, in the current transaction, and records its key
+     * @return a future completed with the result of the deposit once it is committed
+     * @throws RejectedExecutionException if the group commit is disabled or shut down
+     */
+    public CompletableFuture<TransferDto> submit(OrderRequest request, String idempotencyKey,
+                                                 Supplier<TransferDto> deposit) {
+        if (!running) {
+            throw new RejectedExecutionException("Deposit group commit is not running");
+        }
+        PendingDeposit pending = new PendingDeposit(request, idempotencyKey, deposit, new CompletableFuture<>());
+        queue.add(pending);
+        return pending.result();
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        running = false;
+        committer.shutdown();
+        if (!committer.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Deposit group commit was still running on shutdown");
+        }
+        // Submitted while the committer was stopping
+        for (PendingDeposit pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.result()
+                    .completeExceptionally(new RejectedExecutionException("Deposit group commit is shut down"));
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Deposits applied alone were still pending on shutdown");
+        }
+    }
+
+    private void run() {
+        List<PendingDeposit> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingDeposit first = queue.poll(IDLE_POLL.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                gather(batch);
+                commit(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+
+    /**
+     * Adds the deposits waiting or arriving within the window that follows the first one, up to the batch size.
+     */
+    private void gather(List<PendingDeposit> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingDeposit next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingDeposit> batch) {
+        if (!updateCountsReported) {
+            batch.forEach(this::applyAlone);
+            return;
+        }
+        batchSizes.record(batch.size());
+        List<PendingDeposit> ordered = new ArrayList<>(batch);
+        ordered.sort(Comparator.comparing(pending -> pending.request()
+                .getAccountId()));
+        TransferDto[] applied;
+        try {
+            applied = retryTemplate.execute(context -> {
+                context.setAttribute(RetryContext.NAME, "DepositGroupCommitter.commit");
+                return transactionTemplate.execute(status -> applyAll(ordered));
+            });
+        } catch (RuntimeException e) {
+            log.debug("Group commit of {} deposits failed, applying them one by one", ordered.size(), e);
+            ordered.forEach(this::applyAlone);
+            return;
+        }
+        for (int i = 0; i < ordered.size(); i++) {
+            if (applied[i] != null) {
+                ordered.get(i)
+                        .result()
+                        .complete(applied[i]);
+            } else {
+                applyAlone(ordered.get(i));
+            }
+        }
+    }
+
+    /**
+     * @return the result of every deposit, in batch order, or null for those whose update matched no row
+     * @throws IllegalStateException if the driver did not report how many rows each update matched
+     */
+    private TransferDto[] applyAll(List<PendingDeposit> batch) {
+        List<Integer> rowDeposits = new ArrayList<>(batch.size());
+        List<Integer> slotDeposits = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (splitAccountService.isSplit(batch.get(i)
+                                                    .request()
+                                                    .getAccountId())) {
+                slotDeposits.add(i);
+            } else {
+                rowDeposits.add(i);
+            }
+        }
+        int[] updates = rowDeposits.isEmpty() ? new int[0] : jdbcTemplate.batchUpdate(CREDIT, rowDeposits.stream()
+                .map(i -> batch.get(i)
+                        .request())
+                .map(request -> new Object[]{request.getAmount(), request.getAccountId(), request.getCurrency()})
+                .toList());
+        for (int update : updates) {
+            if (update == Statement.SUCCESS_NO_INFO) {
+                updateCountsReported = false;
+                log.warn("The JDBC driver does not report batch update counts, deposits are no longer group-committed");
+                throw new IllegalStateException("Unknown update counts, the group commit is rolled back");
+            }
+        }
+        TransferDto[] applied = new TransferDto[batch.size()];
+        for (int j = 0; j < rowDeposits.size(); j++) {
+            if (updates[j] == 1) {
+                applied[rowDeposits.get(j)] = toTransfer(batch.get(rowDeposits.get(j))
+                                                                 .request());
+            }
+        }
+        // After the rows, like the sweeps of the slots into their account row
+        for (int i : slotDeposits) {
+            OrderRequest request = batch.get(i)
+                    .request();
+            if (splitAccountService.credit(request.getAccountId(), request.getAmount(), request.getCurrency())) {
+                applied[i] = toTransfer(request);
+            }
+        }
+        ledgerService.recordAll(Arrays.stream(applied)
+                                        .filter(Objects::nonNull)
+                                        .toList());
+        for (int i = 0; i < batch.size(); i++) {
+            if (applied[i] != null) {
+                PendingDeposit pending = batch.get(i);
+                idempotencyService.record(pending.idempotencyKey(), OperationType.DEPOSIT, pending.request(),
+                                          applied[i]);
+            }
+        }
+        return applied;
+    }
+
+    private static TransferDto toTransfer(OrderRequest request) {
+        return TransferDto.builder()
+                .creditAccountId(request.getAccountId())
+                .creditedAmount(Money.of(request.getAmount(), request.getCurrency()))
+                .rate(BigDecimal.ONE)
+                .build();
+    }
+
+    private void applyAlone(PendingDeposit pending) {
+        executor.execute(() -> {
+            try {
+                pending.result()
+                        .complete(retryTemplate.execute(context -> {
+                            context.setAttribute(RetryContext.NAME, "DepositGroupCommitter.applyAlone");
+                            return transactionTemplate.execute(status -> pending.deposit()
+                                    .get());
+                        }));
+            } catch (RuntimeException e) {
+                pending.result()
+                        .completeExceptionally(e);
+            }
+        });
+    }
+
+    private record PendingDeposit(OrderRequest request, String idempotencyKey, Supplier<TransferDto> deposit,
+                                  CompletableFuture<TransferDto> result) {
+    }
+}
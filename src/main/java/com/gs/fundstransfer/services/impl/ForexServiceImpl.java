@@ -1,35 +1,70 @@
 package com.gs.fundstransfer.services.impl;
 
-import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import com.gs.fundstransfer.dto.FxQuoteDto;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
 import com.gs.fundstransfer.request.FXRateRequest;
 import com.gs.fundstransfer.response.FXRateResponse;
+import com.gs.fundstransfer.services.ExchangeRateProvider;
 import com.gs.fundstransfer.services.ForexService;
+import com.gs.fundstransfer.services.FxQuoteService;
 import lombok.RequiredArgsConstructor;
+import org.javamoney.moneta.convert.ExchangeRateBuilder;
+import org.javamoney.moneta.spi.DefaultNumberValue;
 import org.springframework.stereotype.Service;
 
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
 import javax.money.MonetaryAmount;
-import javax.money.MonetaryException;
-import javax.money.convert.CurrencyConversion;
+import javax.money.convert.ConversionContext;
 import javax.money.convert.ExchangeRate;
-import javax.money.convert.MonetaryConversions;
+import javax.money.convert.RateType;
+import java.math.BigDecimal;
 
 @Service
 @RequiredArgsConstructor
 public class ForexServiceImpl implements ForexService {
+
+    private static final ConversionContext CONVERSION_CONTEXT = ConversionContext.of("local", RateType.DEFERRED);
+
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final FxQuoteService fxQuoteService;
+    private final CurrencyConverter currencyConverter;
+
+    /**
+     * Converts an amount at the current rate, or at the rate of the quote of the request, rounded to the minor unit
+     * of the target currency.
+     *
+     * @throws InvalidFxQuoteException if the quote has expired, or does not quote this currency pair
+     */
     @Override
     public FXRateResponse exchange(FXRateRequest fXRateRequest) {
-        CurrencyConversion conversion = MonetaryConversions.getConversion(fXRateRequest.getTargetCurrency());
-        MonetaryAmount convertedAmount = null;
-        ExchangeRate exchangeRate;
-        try {
-            convertedAmount = fXRateRequest.getMonetaryAmount()
-                    .with(conversion);
-            // Retrieve the exchange rate used
-            exchangeRate = conversion.getExchangeRate(fXRateRequest.getMonetaryAmount());
-
-        } catch (MonetaryException e) {
-            throw new UnavailableFXRatesException("Unable to retrieve exchange rate");
+        MonetaryAmount amount = fXRateRequest.getMonetaryAmount();
+        CurrencyUnit baseCurrency = amount.getCurrency();
+        CurrencyUnit targetCurrency = fXRateRequest.getTargetCurrency();
+        BigDecimal rate;
+        if (fXRateRequest.getQuoteId() != null) {
+            FxQuoteDto quote = fxQuoteService.get(fXRateRequest.getQuoteId());
+            if (targetCurrency == null) {
+                targetCurrency = Monetary.getCurrency(quote.getTermCurrency());
+            }
+            if (!quote.getBaseCurrency()
+                    .equals(baseCurrency.getCurrencyCode()) || !quote.getTermCurrency()
+                    .equals(targetCurrency.getCurrencyCode())) {
+                throw new InvalidFxQuoteException(
+                        "The FX quote " + quote.getQuoteId() + " is for " + quote.getBaseCurrency() + "/"
+                                + quote.getTermCurrency() + ", not " + baseCurrency + "/" + targetCurrency);
+            }
+            rate = quote.getRate();
+        } else {
+            rate = exchangeRateProvider.getRate(baseCurrency.getCurrencyCode(), targetCurrency.getCurrencyCode());
         }
+
+        MonetaryAmount convertedAmount = currencyConverter.convert(amount, targetCurrency, rate);
+        // Expose the rate used, as the Moneta conversions did
+        ExchangeRate exchangeRate = new ExchangeRateBuilder(CONVERSION_CONTEXT).setBase(baseCurrency)
+                .setTerm(targetCurrency)
+                .setFactor(DefaultNumberValue.of(rate))
+                .build();
         return FXRateResponse.builder()
                 .convertedAmount(convertedAmount)
                 .exchangeRate(exchangeRate)
@@ -0,0 +1,86 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gs.fundstransfer.dto.FxQuoteDto;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
+import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.request.FxQuoteRequest;
+import com.gs.fundstransfer.services.ExchangeRateProvider;
+import com.gs.fundstransfer.services.FxQuoteService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Service implementation that hands out FX rates fixed for {@code fx.quotes.ttl}.
+ *
+ * A quote lets a client show a rate, then deposit, withdraw or transfer at that rate, and lets the operation
+ * convert before it locks any account. Quotes are kept in a bounded Caffeine cache, whose reads do not lock, and
+ * expire after their TTL. A quote may be used any number of times until then.
+ */
+@Service
+public class FxQuoteServiceImpl implements FxQuoteService {
+
+    private final ExchangeRateProvider exchangeRateProvider;
+    private final Duration ttl;
+    private final Cache<String, FxQuoteDto> quotes;
+
+    public FxQuoteServiceImpl(ExchangeRateProvider exchangeRateProvider, MeterRegistry meterRegistry,
+                              @Value("${fx.quotes.ttl:30s}") Duration ttl,
+                              @Value("${fx.quotes.maximum-size:100000}") long maximumSize) {
+        this.exchangeRateProvider = exchangeRateProvider;
+        this.ttl = ttl;
+        this.quotes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, quotes, "fxQuotes");
+    }
+
+    /**
+     * Quotes the current rate of a currency pair.
+     *
+     * @param request the base and term currencies
+     * @return the quote, with its ID and expiry
+     * @throws NotSupportedCurrencyException if both currencies are the same
+     */
+    @Override
+    public FxQuoteDto create(FxQuoteRequest request) {
+        if (request.getBaseCurrency()
+                .equals(request.getTermCurrency())) {
+            throw new NotSupportedCurrencyException("A quote needs two different currencies");
+        }
+        FxQuoteDto quote = FxQuoteDto.builder()
+                .quoteId(UUID.randomUUID()
+                                 .toString())
+                .baseCurrency(request.getBaseCurrency())
+                .termCurrency(request.getTermCurrency())
+                .rate(exchangeRateProvider.getRate(request.getBaseCurrency(), request.getTermCurrency()))
+                .expiresAt(Instant.now()
+                                   .plus(ttl))
+                .build();
+        quotes.put(quote.getQuoteId(), quote);
+        return quote;
+    }
+
+    /**
+     * Retrieves a quote which has not expired yet.
+     *
+     * @throws InvalidFxQuoteException if the quote does not exist or has expired
+     */
+    @Override
+    public FxQuoteDto get(String quoteId) {
+        FxQuoteDto quote = quotes.getIfPresent(quoteId);
+        if (quote == null) {
+            throw new InvalidFxQuoteException("The FX quote " + quoteId + " does not exist or has expired");
+        }
+        return quote;
+    }
+}
@@ -0,0 +1,213 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.events.IdempotencyRecordedEvent;
+import com.gs.fundstransfer.exceptions.IdempotencyKeyReusedException;
+import com.gs.fundstransfer.exceptions.InvalidIdempotencyKeyException;
+import com.gs.fundstransfer.mapper.IdempotencyRecordMapper;
+import com.gs.fundstransfer.model.IdempotencyRecord;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.repository.IdempotencyRecordRepository;
+import com.gs.fundstransfer.services.IdempotencyService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Makes deposit, withdraw and transfer safe to retry with an Idempotency-Key.
+ *
+ * Replays are answered from a bounded in-memory cache first, then from the idempotency_record table, and
+ * never reach the account locks. A new key is recorded by the operation itself, in its own transaction,
+ * and only enters the cache once that transaction has committed.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final IdempotencyRecordMapper idempotencyRecordMapper;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Cache<String, StoredResult> results;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  IdempotencyRecordMapper idempotencyRecordMapper,
+                                  ObjectMapper objectMapper,
+                                  ApplicationEventPublisher eventPublisher,
+                                  @Value("${idempotency.cache.maximum-size:100000}") long maximumSize,
+                                  @Value("${idempotency.cache.expire-after-write:24h}") Duration expireAfterWrite) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.idempotencyRecordMapper = idempotencyRecordMapper;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Returns the stored result of the given key if it was already applied, otherwise runs the call.
+     * The call is expected to {@link #record} the key in its transaction.
+     *
+     * @param idempotencyKey the client supplied key, or null to run the call unconditionally
+     * @param operation      the operation the key is used for
+     * @param request        the request body, fingerprinted to detect a key reused for another request
+     * @param call           applies the operation
+     * @return the result of the first successful call made with this key
+     * @throws IdempotencyKeyReusedException if the key was already used for another operation or request
+     */
+    @Override
+    public TransferDto execute(String idempotencyKey, OperationType operation, Object request, Supplier<TransferDto> call) {
+        if (idempotencyKey == null) {
+            return call.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(operation, request);
+        Optional<TransferDto> replay = find(idempotencyKey, operation, requestHash);
+        if (replay.isPresent()) {
+            return replay.get();
+        }
+        try {
+            return call.get();
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key committed first: answer with its result
+            return find(idempotencyKey, operation, requestHash).orElseThrow(() -> e);
+        }
+    }
+
+    /**
+     * Like {@link #execute}, for calls which complete asynchronously. The key is checked and a stored result is
+     * replayed on the calling thread.
+     */
+    @Override
+    public CompletableFuture<TransferDto> executeAsync(String idempotencyKey, OperationType operation, Object request,
+                                                       Supplier<CompletableFuture<TransferDto>> call) {
+        if (idempotencyKey == null) {
+            return call.get();
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(operation, request);
+        Optional<TransferDto> replay = find(idempotencyKey, operation, requestHash);
+        if (replay.isPresent()) {
+            return CompletableFuture.completedFuture(replay.get());
+        }
+        return call.get()
+                .exceptionallyCompose(e -> {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof DataIntegrityViolationException) {
+                        // A concurrent request with the same key committed first: answer with its result
+                        try {
+                            return find(idempotencyKey, operation, requestHash).map(CompletableFuture::completedFuture)
+                                    .orElseGet(() -> CompletableFuture.failedFuture(cause));
+                        } catch (RuntimeException findFailure) {
+                            return CompletableFuture.failedFuture(findFailure);
+                        }
+                    }
+                    return CompletableFuture.failedFuture(cause);
+                });
+    }
+
+    /**
+     * Stores the result of an operation under its key. Must be called in the transaction that applied
+     * the operation, so that the key is only recorded if the operation commits.
+     *
+     * @param idempotencyKey the client supplied key, or null if the operation is not idempotent
+     */
+    @Override
+    public void record(String idempotencyKey, OperationType operation, Object request, TransferDto result) {
+        if (idempotencyKey == null) {
+            return;
+        }
+        String requestHash = hash(operation, request);
+        IdempotencyRecord idempotencyRecord = IdempotencyRecord.builder()
+                .idempotencyKey(idempotencyKey)
+                .operation(operation)
+                .requestHash(requestHash)
+                .debitAccountId(result.getDebitAccountId())
+                .creditAccountId(result.getCreditAccountId())
+                .debitedAmount(result.getDebitedAmount())
+                .creditedAmount(result.getCreditedAmount())
+                .rate(result.getRate())
+                .createdAt(Instant.now())
+                .build();
+        // Flushed right away so that a duplicate key fails on the primary key before the transaction goes on
+        idempotencyRecordRepository.saveAndFlush(idempotencyRecord);
+        eventPublisher.publishEvent(new IdempotencyRecordedEvent(idempotencyRecord));
+        StoredResult storedResult = new StoredResult(operation, requestHash, result);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    results.put(idempotencyKey, storedResult);
+                }
+            });
+        } else {
+            results.put(idempotencyKey, storedResult);
+        }
+    }
+
+    private Optional<TransferDto> find(String idempotencyKey, OperationType operation, String requestHash) {
+        StoredResult storedResult = results.getIfPresent(idempotencyKey);
+        if (storedResult == null) {
+            storedResult = idempotencyRecordRepository.findById(idempotencyKey)
+                    .map(idempotencyRecord -> new StoredResult(idempotencyRecord.getOperation(),
+                                                               idempotencyRecord.getRequestHash(),
+                                                               idempotencyRecordMapper.toDto(idempotencyRecord)))
+                    .orElse(null);
+            if (storedResult == null) {
+                return Optional.empty();
+            }
+            results.put(idempotencyKey, storedResult);
+        }
+        if (storedResult.operation() != operation || !storedResult.requestHash()
+                .equals(requestHash)) {
+            throw new IdempotencyKeyReusedException(idempotencyKey);
+        }
+        log.debug("Replaying {} for Idempotency-Key {}", operation, idempotencyKey);
+        return Optional.of(storedResult.result());
+    }
+
+    private String hash(OperationType operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.name()
+                                  .getBytes(StandardCharsets.UTF_8));
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of()
+                    .formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Unable to fingerprint " + operation + " request", e);
+        }
+    }
+
+    private record StoredResult(OperationType operation, String requestHash, TransferDto result) {
+    }
+}
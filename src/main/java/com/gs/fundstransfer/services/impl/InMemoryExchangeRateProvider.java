@@ -0,0 +1,353 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.FxRateDto;
+import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import com.gs.fundstransfer.services.ExchangeRateProvider;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Exchange rate provider backed by an in-memory rate table, so that a conversion is a pure memory lookup.
+ *
+ * Currencies are mapped to dense indexes through their packed ISO code and rates are kept in a flat
+ * base-by-term matrix. Each load builds a new immutable table which is then published with a single
+ * volatile write, so readers never lock and always see a consistent set of rates.
+ *
+ * The matrix is complete: a pair which is not quoted, in either direction, is triangulated through the
+ * {@code fx.rates.pivot} currency, so quoting every currency against the pivot is enough to convert between any
+ * two of them. Every rate records how it was derived from the quotes, and when the oldest of those quotes was set:
+ * with {@code fx.rates.ttl}, a rate is stale once any quote it is derived from is.
+ */
+@Service
+@ConditionalOnProperty(name = "fx.provider", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class InMemoryExchangeRateProvider implements ExchangeRateProvider {
+
+    // Three upper-case letters packed in base 26
+    private static final int CODE_SPACE = 26 * 26 * 26;
+
+    private final ResourceLoader resourceLoader;
+    private final String location;
+    private final Duration ttl;
+    private final String pivot;
+    private final Clock clock;
+
+    private volatile RateTable rateTable = RateTable.EMPTY;
+
+    @Autowired
+    public InMemoryExchangeRateProvider(ResourceLoader resourceLoader,
+                                        @Value("${fx.rates.location:classpath:fx-rates.properties}") String location,
+                                        @Value("${fx.rates.ttl:0s}") Duration ttl,
+                                        @Value("${fx.rates.pivot:EUR}") String pivot) {
+        this(resourceLoader, location, ttl, pivot, Clock.systemUTC());
+    }
+
+    InMemoryExchangeRateProvider(ResourceLoader resourceLoader, String location, Duration ttl, String pivot,
+                                 Clock clock) {
+        this.resourceLoader = resourceLoader;
+        this.location = location;
+        this.ttl = ttl;
+        this.pivot = pivot;
+        this.clock = clock;
+    }
+
+    /**
+     * Loads the rates file configured by {@code fx.rates.location}, if it exists.
+     */
+    @PostConstruct
+    void loadInitialRates() {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            log.warn("No FX rates found at {}, cross-currency operations are unavailable until rates are loaded", location);
+            return;
+        }
+        Properties properties = new Properties();
+        try (InputStream inputStream = resource.getInputStream()) {
+            properties.load(inputStream);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to read FX rates from " + location, e);
+        }
+        Map<String, BigDecimal> rates = new HashMap<>();
+        properties.forEach((pair, rate) -> rates.put((String) pair, new BigDecimal(((String) rate).trim())));
+        load(rates);
+        log.info("Loaded {} FX rates from {}", rates.size(), location);
+    }
+
+    /**
+     * Replaces the whole rate table. The inverse of every pair is derived unless it is quoted explicitly, and the
+     * pairs quoted in neither direction are triangulated through the pivot currency.
+     *
+     * @param rates the rates keyed by pair, formatted as {@code BASE/TERM}
+     * @throws NotSupportedCurrencyException if a pair is malformed or a rate is not positive
+     */
+    public synchronized void load(Map<String, BigDecimal> rates) {
+        rates.forEach(InMemoryExchangeRateProvider::checkQuote);
+        Instant now = clock.instant();
+        Map<String, Quote> quotes = new HashMap<>();
+        rates.forEach((pair, rate) -> quotes.put(pair, new Quote(rate, now)));
+        rateTable = build(quotes, now);
+    }
+
+    /**
+     * Sets a single quote. Only the rates derived from it are recomputed: its inverse, and the triangulated rates
+     * of the other currency of the pair when it is quoted against the pivot. A new currency rebuilds the table.
+     * The other quotes keep their age, so this does not make the rates derived from them fresh again.
+     *
+     * @param pair the pair, formatted as {@code BASE/TERM}
+     * @throws NotSupportedCurrencyException if the pair is malformed or the rate is not positive
+     */
+    public synchronized void update(String pair, BigDecimal rate) {
+        checkQuote(pair, rate);
+        RateTable table = rateTable;
+        String[] currencyCodes = parsePair(pair);
+        int base = table.indexOf(currencyCodes[0]);
+        int term = table.indexOf(currencyCodes[1]);
+        Instant now = clock.instant();
+        if (base < 0 || term < 0) {
+            Map<String, Quote> quotes = table.quotes();
+            quotes.put(pair, new Quote(rate, now));
+            rateTable = build(quotes, table.loadedAt() != null ? table.loadedAt() : now);
+            return;
+        }
+        RateTable updated = table.copy();
+        updated.quoted()[base * updated.size() + term] = rate;
+        updated.quotedAt()[base * updated.size() + term] = now;
+        if (base == updated.pivot() || term == updated.pivot()) {
+            int other = base == updated.pivot() ? term : base;
+            // The legs of the other currency first, the triangulations through them then read the new legs
+            updated.derive(other, updated.pivot());
+            updated.derive(updated.pivot(), other);
+            for (int i = 0; i < updated.size(); i++) {
+                updated.derive(other, i);
+                updated.derive(i, other);
+            }
+        } else {
+            updated.derive(base, term);
+            updated.derive(term, base);
+        }
+        rateTable = updated;
+    }
+
+    @Override
+    public BigDecimal getRate(String baseCurrency, String termCurrency) {
+        RateTable table = rateTable;
+        return table.matrix()[checkFresh(table, baseCurrency, termCurrency)];
+    }
+
+    /**
+     * Returns how the rate of a pair was derived from the quotes, e.g. {@code 1/(EUR/GBP) * EUR/JPY} for GBP/JPY
+     * triangulated through EUR.
+     *
+     * @throws UnavailableFXRatesException if no usable rate is known for the pair
+     */
+    public String getDerivation(String baseCurrency, String termCurrency) {
+        RateTable table = rateTable;
+        return table.derivations()[checkFresh(table, baseCurrency, termCurrency)];
+    }
+
+    /**
+     * Returns the rate of a pair with its derivation, both read from the same rate table.
+     *
+     * @throws UnavailableFXRatesException if no usable rate is known for the pair
+     */
+    public FxRateDto getRateWithDerivation(String baseCurrency, String termCurrency) {
+        RateTable table = rateTable;
+        int cell = checkFresh(table, baseCurrency, termCurrency);
+        return new FxRateDto(baseCurrency, termCurrency, table.matrix()[cell], table.derivations()[cell]);
+    }
+
+    /**
+     * Returns the instant of the last successful load, or null if no rates were ever loaded.
+     */
+    public Instant getLoadedAt() {
+        return rateTable.loadedAt();
+    }
+
+    /**
+     * @return the cell of the pair in the given table
+     * @throws UnavailableFXRatesException if the table has no rate for the pair, or a quote it is derived from is stale
+     */
+    private int checkFresh(RateTable table, String baseCurrency, String termCurrency) {
+        int cell = table.cell(baseCurrency, termCurrency);
+        if (cell < 0 || table.matrix()[cell] == null) {
+            throw new UnavailableFXRatesException("Unable to retrieve exchange rate for " + baseCurrency + "/" + termCurrency);
+        }
+        Instant asOf = table.asOf()[cell];
+        if (!ttl.isZero() && asOf != null && asOf.plus(ttl)
+                .isBefore(clock.instant())) {
+            throw new UnavailableFXRatesException("FX rate " + baseCurrency + "/" + termCurrency
+                                                          + " is stale, derived from a quote set at " + asOf);
+        }
+        return cell;
+    }
+
+    private RateTable build(Map<String, Quote> quotes, Instant loadedAt) {
+        SortedSet<String> currencies = new TreeSet<>();
+        quotes.keySet()
+                .forEach(pair -> currencies.addAll(Arrays.asList(parsePair(pair))));
+
+        short[] index = new short[CODE_SPACE];
+        Arrays.fill(index, (short) -1);
+        String[] codes = currencies.toArray(String[]::new);
+        for (short i = 0; i < codes.length; i++) {
+            index[pack(codes[i])] = i;
+        }
+        int size = codes.length;
+        int pivotIndex = currencies.contains(pivot) ? index[pack(pivot)] : -1;
+        BigDecimal[] quoted = new BigDecimal[size * size];
+        Instant[] quotedAt = new Instant[size * size];
+        quotes.forEach((pair, quote) -> {
+            String[] currencyCodes = parsePair(pair);
+            int cell = index[pack(currencyCodes[0])] * size + index[pack(currencyCodes[1])];
+            quoted[cell] = quote.rate();
+            quotedAt[cell] = quote.quotedAt();
+        });
+        RateTable table = new RateTable(index, codes, size, pivotIndex, quoted, quotedAt, new BigDecimal[size * size],
+                                        new String[size * size], new Instant[size * size], loadedAt);
+        // The legs to and from the pivot first, every triangulation reads them
+        if (pivotIndex >= 0) {
+            for (int i = 0; i < size; i++) {
+                table.derive(i, pivotIndex);
+                table.derive(pivotIndex, i);
+            }
+        }
+        for (int base = 0; base < size; base++) {
+            for (int term = 0; term < size; term++) {
+                table.derive(base, term);
+            }
+        }
+        return table;
+    }
+
+    private static void checkQuote(String pair, BigDecimal rate) {
+        parsePair(pair);
+        if (rate == null || rate.signum() <= 0) {
+            throw new NotSupportedCurrencyException("Invalid rate for " + pair + ": " + rate);
+        }
+    }
+
+    private static String[] parsePair(String pair) {
+        String[] currencyCodes = pair.split("/");
+        if (currencyCodes.length != 2 || pack(currencyCodes[0]) < 0 || pack(currencyCodes[1]) < 0) {
+            throw new NotSupportedCurrencyException("Invalid currency pair " + pair + ", expected BASE/TERM");
+        }
+        return currencyCodes;
+    }
+
+    private static int pack(String currencyCode) {
+        if (currencyCode == null || currencyCode.length() != 3) {
+            return -1;
+        }
+        int packed = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = currencyCode.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return -1;
+            }
+            packed = packed * 26 + (c - 'A');
+        }
+        return packed;
+    }
+
+    private record Quote(BigDecimal rate, Instant quotedAt) {
+    }
+
+    /**
+     * The quotes, and the complete rate matrix derived from them. A table is only modified before it is published.
+     *
+     * {@code asOf} holds, for every rate, when the oldest quote it is derived from was set; it is null for a currency
+     * against itself, which never goes stale.
+     */
+    private record RateTable(short[] index, String[] codes, int size, int pivot, BigDecimal[] quoted,
+                             Instant[] quotedAt, BigDecimal[] matrix, String[] derivations, Instant[] asOf,
+                             Instant loadedAt) {
+
+        static final RateTable EMPTY = new RateTable(new short[0], new String[0], 0, -1, new BigDecimal[0],
+                                                     new Instant[0], new BigDecimal[0], new String[0], new Instant[0],
+                                                     null);
+
+        /**
+         * Derives the rate of a pair: its quote, else the inverse of the opposite quote, else the product of the
+         * legs through the pivot, which must be derived first.
+         */
+        void derive(int base, int term) {
+            int cell = base * size + term;
+            int opposite = term * size + base;
+            if (base == term) {
+                matrix[cell] = BigDecimal.ONE;
+                derivations[cell] = codes[base];
+                asOf[cell] = null;
+            } else if (quoted[cell] != null) {
+                matrix[cell] = quoted[cell];
+                derivations[cell] = pair(base, term);
+                asOf[cell] = quotedAt[cell];
+            } else if (quoted[opposite] != null) {
+                matrix[cell] = BigDecimal.ONE.divide(quoted[opposite], MathContext.DECIMAL64);
+                derivations[cell] = "1/(" + pair(term, base) + ")";
+                asOf[cell] = quotedAt[opposite];
+            } else if (pivot >= 0 && base != pivot && term != pivot && matrix[base * size + pivot] != null
+                    && matrix[pivot * size + term] != null) {
+                matrix[cell] = matrix[base * size + pivot].multiply(matrix[pivot * size + term], MathContext.DECIMAL64);
+                derivations[cell] = derivations[base * size + pivot] + " * " + derivations[pivot * size + term];
+                asOf[cell] = oldest(asOf[base * size + pivot], asOf[pivot * size + term]);
+            } else {
+                matrix[cell] = null;
+                derivations[cell] = null;
+                asOf[cell] = null;
+            }
+        }
+
+        RateTable copy() {
+            return new RateTable(index, codes, size, pivot, quoted.clone(), quotedAt.clone(), matrix.clone(),
+                                 derivations.clone(), asOf.clone(), loadedAt);
+        }
+
+        Map<String, Quote> quotes() {
+            Map<String, Quote> quotes = new HashMap<>();
+            for (int cell = 0; cell < quoted.length; cell++) {
+                if (quoted[cell] != null) {
+                    quotes.put(pair(cell / size, cell % size), new Quote(quoted[cell], quotedAt[cell]));
+                }
+            }
+            return quotes;
+        }
+
+        int indexOf(String currencyCode) {
+            int packed = pack(currencyCode);
+            return packed < 0 || packed >= index.length ? -1 : index[packed];
+        }
+
+        int cell(String baseCurrency, String termCurrency) {
+            int base = indexOf(baseCurrency);
+            int term = indexOf(termCurrency);
+            return base < 0 || term < 0 ? -1 : base * size + term;
+        }
+
+        private String pair(int base, int term) {
+            return codes[base] + "/" + codes[term];
+        }
+
+        private static Instant oldest(Instant first, Instant second) {
+            if (first == null || second == null) {
+                return first == null ? second : first;
+            }
+            return first.isBefore(second) ? first : second;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.gs.fundstransfer.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered ledger entry IDs: the milliseconds since 2024-01-01 in the high bits, then the node ID in
+ * 10 bits and a per-millisecond sequence in the low 12 bits.
+ *
+ * Nodes writing to the same database must each be given their own {@code ledger.node-id}, so that their IDs never
+ * collide. IDs are strictly increasing within a generator, so ordering by ID is ordering by insertion time on one
+ * node, which keyset pagination relies on. Across nodes, IDs are only ordered by millisecond, and entries of the same
+ * millisecond are ordered by node.
+ */
+@Component
+public class LedgerEntryIdGenerator {
+
+    public static final int MAX_NODE_ID = (1 << 10) - 1;
+
+    private static final long EPOCH = 1704067200000L;  // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeBits;
+    // The timestamp and sequence of the last ID, without the node ID
+    private final AtomicLong lastTick = new AtomicLong();
+
+    /**
+     * @throws IllegalArgumentException if the node ID does not fit in 10 bits
+     */
+    public LedgerEntryIdGenerator(@Value("${ledger.node-id:0}") int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("ledger.node-id must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    public long nextId() {
+        long timestamp = (System.currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+        // Never go backwards, even if the clock does or the sequence overflows within one millisecond
+        long tick = lastTick.updateAndGet(last -> Math.max(last + 1, timestamp));
+        return (tick >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS) | nodeBits | tick & SEQUENCE_MASK;
+    }
+}
@@ -0,0 +1,150 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.LedgerPageDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.events.BalanceChangedEvent;
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.mapper.LedgerEntryMapper;
+import com.gs.fundstransfer.model.EntryType;
+import com.gs.fundstransfer.model.LedgerEntry;
+import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.repository.LedgerEntryRepository;
+import com.gs.fundstransfer.services.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service implementation that keeps the append-only ledger of every balance movement.
+ *
+ * Entries are written in the caller's transaction, so they are committed together with the balance
+ * change they describe, and they are read back as keyset-paginated account statements. This is the only place
+ * which writes them, whether one movement at a time or in JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final String INSERT_ENTRY = "insert into ledger_entry (id, transaction_id, account_id, "
+            + "counterparty_account_id, type, amount, currency, rate, created_at) values (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AccountRepository accountRepository;
+    private final LedgerEntryMapper ledgerEntryMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerEntryIdGenerator idGenerator;
+
+    /**
+     * Records the legs of an applied movement: a DEBIT entry for the debited account and a CREDIT entry
+     * for the credited account, whichever are present. All the legs are saved together so that they are
+     * flushed as a single JDBC batch, then a {@link BalanceChangedEvent} is published.
+     *
+     * @param transfer the applied movement, as returned to the client
+     */
+    @Override
+    public void record(TransferDto transfer) {
+        List<LedgerEntry> entries = new ArrayList<>(2);
+        addLegs(entries, transfer, Instant.now());
+        ledgerEntryRepository.saveAll(entries);
+        eventPublisher.publishEvent(new BalanceChangedEvent(transfer));
+    }
+
+    /**
+     * Records the legs of several applied movements like {@link #record}, with a single JDBC batch which skips the
+     * persistence context, for callers which apply movements in bulk. A {@link BalanceChangedEvent} is published for
+     * every movement.
+     *
+     * @param transfers the applied movements
+     */
+    @Override
+    public void recordAll(List<TransferDto> transfers) {
+        if (transfers.isEmpty()) {
+            return;
+        }
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        Instant createdAt = Instant.now();
+        transfers.forEach(transfer -> addLegs(entries, transfer, createdAt));
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, entries.stream()
+                .map(LedgerServiceImpl::insertArguments)
+                .toList());
+        transfers.forEach(transfer -> eventPublisher.publishEvent(new BalanceChangedEvent(transfer)));
+    }
+
+    /**
+     * Retrieves a page of the account statement, newest entries first.
+     *
+     * @param accountId the ID of the account owner
+     * @param before    the cursor returned by the previous page, or null for the first page
+     * @param limit     the maximum number of entries to return, capped at {@value #MAX_PAGE_SIZE}
+     * @return the entries and the cursor of the next page, if any
+     * @throws AccountNotFoundException if no account is found for the given ID
+     */
+    @Override
+    public LedgerPageDto getEntries(Long accountId, Long before, int limit) {
+        if (!accountRepository.existsById(accountId)) {
+            throw new AccountNotFoundException(accountId);
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_PAGE_SIZE);
+        // Fetch one extra entry to know whether there is a next page
+        List<LedgerEntry> entries = ledgerEntryRepository.findByAccountIdAndIdLessThanOrderByIdDesc(
+                accountId, before == null ? Long.MAX_VALUE : before, Limit.of(pageSize + 1));
+        boolean hasMore = entries.size() > pageSize;
+        List<LedgerEntry> page = hasMore ? entries.subList(0, pageSize) : entries;
+        return LedgerPageDto.builder()
+                .entries(ledgerEntryMapper.toDtos(page))
+                .nextBefore(hasMore ? page.getLast()
+                        .getId() : null)
+                .build();
+    }
+
+    private static Object[] insertArguments(LedgerEntry entry) {
+        return new Object[]{entry.getId(), entry.getTransactionId(), entry.getAccountId(),
+                entry.getCounterpartyAccountId(), entry.getType()
+                .name(), entry.getAmount(), entry.getCurrency(), entry.getRate(), Timestamp.from(entry.getCreatedAt())};
+    }
+
+    /**
+     * Adds a DEBIT entry for the debited account and a CREDIT entry for the credited account, whichever are present,
+     * sharing a new transactionId.
+     */
+    private void addLegs(List<LedgerEntry> entries, TransferDto transfer, Instant createdAt) {
+        long transactionId = idGenerator.nextId();
+        if (transfer.getDebitAccountId() != null) {
+            entries.add(createEntry(transactionId, createdAt, EntryType.DEBIT, transfer.getDebitAccountId(),
+                                    transfer.getCreditAccountId(), transfer.getDebitedAmount(), transfer.getRate()));
+        }
+        if (transfer.getCreditAccountId() != null) {
+            entries.add(createEntry(transactionId, createdAt, EntryType.CREDIT, transfer.getCreditAccountId(),
+                                    transfer.getDebitAccountId(), transfer.getCreditedAmount(), transfer.getRate()));
+        }
+    }
+
+    private LedgerEntry createEntry(long transactionId, Instant createdAt, EntryType type, Long accountId,
+                                           Long counterpartyAccountId, MonetaryAmount amount, BigDecimal rate) {
+        return LedgerEntry.builder()
+                .id(idGenerator.nextId())
+                .transactionId(transactionId)
+                .accountId(accountId)
+                .counterpartyAccountId(counterpartyAccountId)
+                .type(type)
+                .amount(amount.getNumber()
+                                .numberValue(BigDecimal.class))
+                .currency(amount.getCurrency()
+                                  .getCurrencyCode())
+                .rate(rate)
+                .createdAt(createdAt)
+                .build();
+    }
+}
@@ -0,0 +1,31 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import com.gs.fundstransfer.services.ExchangeRateProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.money.MonetaryException;
+import javax.money.convert.MonetaryConversions;
+import java.math.BigDecimal;
+
+/**
+ * Exchange rate provider delegating to the default Moneta provider chain (ECB, IMF...), which may
+ * reach out to the network. Enabled with {@code fx.provider=moneta}.
+ */
+@Service
+@ConditionalOnProperty(name = "fx.provider", havingValue = "moneta")
+public class MonetaExchangeRateProvider implements ExchangeRateProvider {
+
+    @Override
+    public BigDecimal getRate(String baseCurrency, String termCurrency) {
+        try {
+            return MonetaryConversions.getExchangeRateProvider()
+                    .getExchangeRate(baseCurrency, termCurrency)
+                    .getFactor()
+                    .numberValue(BigDecimal.class);
+        } catch (MonetaryException e) {
+            throw new UnavailableFXRatesException("Unable to retrieve exchange rate");
+        }
+    }
+}
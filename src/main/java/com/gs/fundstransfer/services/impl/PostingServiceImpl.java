@@ -0,0 +1,128 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.batch.PostingJobConfig;
+import com.gs.fundstransfer.batch.PostingWriter;
+import com.gs.fundstransfer.dto.PostingJobDto;
+import com.gs.fundstransfer.exceptions.PostingJobException;
+import com.gs.fundstransfer.exceptions.PostingJobNotFoundException;
+import com.gs.fundstransfer.request.PostingRequest;
+import com.gs.fundstransfer.services.PostingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.*;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobExecutionAlreadyRunningException;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.JobRestartException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Service implementation that launches the end-of-day posting job in the background and reports its progress.
+ *
+ * @see PostingJobConfig
+ */
+@Service
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@Slf4j
+public class PostingServiceImpl implements PostingService {
+
+    private final Job postingJob;
+    private final JobRepository jobRepository;
+    private final JobExplorer jobExplorer;
+    private final TaskExecutorJobLauncher jobLauncher;
+
+    public PostingServiceImpl(Job postingJob, JobRepository jobRepository, JobExplorer jobExplorer) {
+        this.postingJob = postingJob;
+        this.jobRepository = jobRepository;
+        this.jobExplorer = jobExplorer;
+        this.jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(new SimpleAsyncTaskExecutor("posting-job-"));
+    }
+
+    /**
+     * Starts the postings of a business date, or restarts them if they failed.
+     *
+     * @param request the posting type, its amount and the business date
+     * @return the started job execution
+     * @throws PostingJobException if the postings are already running or complete, or if a restart changes the
+     *                             amount
+     */
+    @Override
+    public PostingJobDto start(PostingRequest request) {
+        JobParameters parameters = new JobParametersBuilder()
+                .addString(PostingJobConfig.TYPE, request.getType()
+                        .name())
+                .addLocalDate(PostingJobConfig.BUSINESS_DATE, request.getBusinessDate())
+                .addString(PostingJobConfig.AMOUNT, request.getAmount()
+                        .toPlainString(), false)
+                .toJobParameters();
+        // Accounts already posted by the failed execution must not get a different amount
+        JobExecution lastExecution = jobRepository.getLastJobExecution(PostingJobConfig.JOB_NAME, parameters);
+        if (lastExecution != null && request.getAmount()
+                .compareTo(new BigDecimal(lastExecution.getJobParameters()
+                                                  .getString(PostingJobConfig.AMOUNT))) != 0) {
+            throw new PostingJobException("The " + request.getType() + " postings of " + request.getBusinessDate()
+                                                  + " were started with another amount");
+        }
+        try {
+            JobExecution execution = jobLauncher.run(postingJob, parameters);
+            log.info("Started {} postings of {}, execution {}", request.getType(), request.getBusinessDate(),
+                     execution.getId());
+            return toDto(execution);
+        } catch (JobExecutionAlreadyRunningException | JobRestartException | JobInstanceAlreadyCompleteException
+                 | JobParametersInvalidException e) {
+            throw new PostingJobException(e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves the progress of a posting job execution.
+     *
+     * @throws PostingJobNotFoundException if no posting job execution has the given ID
+     */
+    @Override
+    public PostingJobDto get(Long executionId) {
+        return Optional.ofNullable(jobExplorer.getJobExecution(executionId))
+                .filter(execution -> PostingJobConfig.JOB_NAME.equals(execution.getJobInstance()
+                                                                              .getJobName()))
+                .map(PostingServiceImpl::toDto)
+                .orElseThrow(() -> new PostingJobNotFoundException(executionId));
+    }
+
+    private static PostingJobDto toDto(JobExecution execution) {
+        // The manager step only aggregates its partitions
+        Collection<StepExecution> partitions = execution.getStepExecutions()
+                .stream()
+                .filter(step -> step.getStepName()
+                        .startsWith(PostingJobConfig.WORKER_STEP_NAME + ":"))
+                .toList();
+        return PostingJobDto.builder()
+                .executionId(execution.getId())
+                .status(execution.getStatus()
+                                .name())
+                .read(partitions.stream()
+                              .mapToLong(StepExecution::getReadCount)
+                              .sum())
+                .posted(partitions.stream()
+                                .mapToLong(StepExecution::getWriteCount)
+                                .sum())
+                .skipped(partitions.stream()
+                                 .mapToLong(StepExecution::getFilterCount)
+                                 .sum())
+                .uncoveredFees(partitions.stream()
+                                       .mapToLong(step -> step.getExecutionContext()
+                                               .getLong(PostingWriter.UNCOVERED_FEES, 0))
+                                       .sum())
+                .startTime(execution.getStartTime())
+                .endTime(execution.getEndTime())
+                .build();
+    }
+}
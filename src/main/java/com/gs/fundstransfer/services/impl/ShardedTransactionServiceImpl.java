@@ -0,0 +1,345 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.BatchItemStatus;
+import com.gs.fundstransfer.dto.BatchTransferDto;
+import com.gs.fundstransfer.dto.BatchTransferItemDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.engine.AccountBalance;
+import com.gs.fundstransfer.engine.ShardedBalanceEngine;
+import com.gs.fundstransfer.engine.WriteBehindJournal;
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.BatchTransferException;
+import com.gs.fundstransfer.exceptions.IdempotencyKeyReusedException;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
+import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.exceptions.SameAccountTransferException;
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.request.BatchMode;
+import com.gs.fundstransfer.request.BatchTransferRequest;
+import com.gs.fundstransfer.request.FXRateRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.response.FXRateResponse;
+import com.gs.fundstransfer.services.ForexService;
+import com.gs.fundstransfer.services.TransactionService;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * TransactionService applying operations through the {@link ShardedBalanceEngine} instead of row locks.
+ *
+ * Enabled with {@code transactions.engine=sharded}. FX conversions are computed before a command reaches a shard,
+ * so shards only ever do in-memory arithmetic. A transfer between two shards first reserves the amount on the
+ * debit shard, then credits the other shard, then commits the reservation. Changes are persisted asynchronously
+ * by the {@link WriteBehindJournal}, so account reads lag behind by up to one flush interval.
+ */
+@Service
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "sharded")
+@RequiredArgsConstructor
+@Slf4j
+public class ShardedTransactionServiceImpl implements TransactionService {
+
+    private final ShardedBalanceEngine engine;
+    private final WriteBehindJournal journal;
+    private final ForexService forexService;
+    // Keys applied but not flushed yet: the idempotency table cannot answer for them
+    private final Map<String, PendingOperation> pendingKeys = new ConcurrentHashMap<>();
+    // Shards already apply the commands of an account one after the other, asynchronous callers only wait elsewhere
+    private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Override
+    public TransferDto deposit(OrderRequest request) {
+        return deposit(request, null);
+    }
+
+    @Override
+    public TransferDto deposit(OrderRequest request, String idempotencyKey) {
+        return apply(idempotencyKey, OperationType.DEPOSIT, request, () -> {
+            Long accountId = request.getAccountId();
+            MonetaryAmount money = money(request.getAmount(), request.getCurrency());
+            Conversion conversion = convert(money, engine.currencyOf(accountId), request.getQuoteId());
+            engine.execute(accountId, account -> {
+                account.credit(conversion.amount());
+                return null;
+            });
+            return TransferDto.builder()
+                    .creditAccountId(accountId)
+                    .creditedAmount(conversion.amount())
+                    .rate(conversion.rate())
+                    .build();
+        });
+    }
+
+    @Override
+    public TransferDto withdraw(OrderRequest request) {
+        return withdraw(request, null);
+    }
+
+    @Override
+    public TransferDto withdraw(OrderRequest request, String idempotencyKey) {
+        return apply(idempotencyKey, OperationType.WITHDRAW, request, () -> {
+            Long accountId = request.getAccountId();
+            MonetaryAmount money = money(request.getAmount(), request.getCurrency());
+            Conversion conversion = convert(money, engine.currencyOf(accountId), request.getQuoteId());
+            engine.execute(accountId, account -> {
+                account.debit(conversion.amount());
+                return null;
+            });
+            return TransferDto.builder()
+                    .debitAccountId(accountId)
+                    .debitedAmount(conversion.amount())
+                    .rate(conversion.rate())
+                    .build();
+        });
+    }
+
+    @Override
+    public TransferDto transfer(TransferRequest request) {
+        return transfer(request, null);
+    }
+
+    @Override
+    public TransferDto transfer(TransferRequest request, String idempotencyKey) {
+        return apply(idempotencyKey, OperationType.TRANSFER, request, () -> {
+            Long debitAccountId = request.getDebitAccountId();
+            Long creditAccountId = request.getCreditAccountId();
+            TransferDto transferDto = prepareTransfer(request);
+            MonetaryAmount debited = transferDto.getDebitedAmount();
+            MonetaryAmount credited = transferDto.getCreditedAmount();
+
+            if (engine.isSameShard(debitAccountId, creditAccountId)) {
+                engine.execute(debitAccountId, creditAccountId, (debitAccount, creditAccount) -> {
+                    debitAccount.debit(debited);
+                    creditAccount.credit(credited);
+                    return null;
+                });
+                return transferDto;
+            }
+            // Two shards: set the amount aside on the debit shard, credit the other shard, then commit the debit
+            engine.execute(debitAccountId, debitAccount -> {
+                debitAccount.reserve(debited);
+                return null;
+            });
+            try {
+                engine.execute(creditAccountId, creditAccount -> {
+                    creditAccount.credit(credited);
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                engine.execute(debitAccountId, debitAccount -> {
+                    debitAccount.release(debited);
+                    return null;
+                });
+                throw e;
+            }
+            engine.execute(debitAccountId, debitAccount -> {
+                debitAccount.commitReservation(debited);
+                return null;
+            });
+            return transferDto;
+        });
+    }
+
+    @Override
+    public CompletableFuture<TransferDto> depositAsync(OrderRequest request, String idempotencyKey) {
+        return CompletableFuture.supplyAsync(() -> deposit(request, idempotencyKey), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<TransferDto> withdrawAsync(OrderRequest request, String idempotencyKey) {
+        return CompletableFuture.supplyAsync(() -> withdraw(request, idempotencyKey), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<TransferDto> transferAsync(TransferRequest request, String idempotencyKey) {
+        return CompletableFuture.supplyAsync(() -> transfer(request, idempotencyKey), asyncExecutor);
+    }
+
+    /**
+     * Applies a list of transfers while the shards of every account involved are paused, which makes the batch
+     * atomic with respect to all other operations. FX conversions are computed before the shards are paused.
+     *
+     * @throws BatchTransferException in ALL_OR_NOTHING mode, if any transfer fails
+     */
+    @Override
+    public BatchTransferDto transferBatch(BatchTransferRequest request) {
+        List<TransferRequest> transfers = request.getTransfers();
+        List<Object> prepared = new ArrayList<>(transfers.size());
+        Set<Long> accountIds = new HashSet<>();
+        for (TransferRequest transfer : transfers) {
+            try {
+                TransferDto transferDto = prepareTransfer(transfer);
+                accountIds.add(transfer.getDebitAccountId());
+                accountIds.add(transfer.getCreditAccountId());
+                prepared.add(transferDto);
+            } catch (AccountNotFoundException | SameAccountTransferException | NotSupportedCurrencyException |
+                     UnavailableFXRatesException | InvalidFxQuoteException e) {
+                prepared.add(e);
+            }
+        }
+
+        BatchTransferDto result = engine.executeExclusively(accountIds, accounts -> {
+            Map<Long, MonetaryAmount> snapshot = new HashMap<>();
+            accounts.forEach((accountId, account) -> snapshot.put(accountId, account.getBalance()));
+            List<BatchTransferItemDto> results = new ArrayList<>(transfers.size());
+            for (int index = 0; index < prepared.size(); index++) {
+                try {
+                    if (prepared.get(index) instanceof RuntimeException e) {
+                        throw e;
+                    }
+                    TransferDto transferDto = (TransferDto) prepared.get(index);
+                    AccountBalance debitAccount = accounts.get(transferDto.getDebitAccountId());
+                    debitAccount.debit(transferDto.getDebitedAmount());
+                    accounts.get(transferDto.getCreditAccountId())
+                            .credit(transferDto.getCreditedAmount());
+                    results.add(BatchTransferItemDto.builder()
+                                        .index(index)
+                                        .status(BatchItemStatus.APPLIED)
+                                        .transfer(transferDto)
+                                        .build());
+                } catch (AccountNotFoundException | SameAccountTransferException | NotSupportedCurrencyException |
+                         UnsufficientFundsException | UnavailableFXRatesException | InvalidFxQuoteException e) {
+                    results.add(BatchTransferItemDto.builder()
+                                        .index(index)
+                                        .status(BatchItemStatus.FAILED)
+                                        .error(e.getMessage())
+                                        .build());
+                    if (request.getMode() == BatchMode.ALL_OR_NOTHING) {
+                        snapshot.forEach((accountId, balance) -> accounts.get(accountId)
+                                .restore(balance));
+                        return BatchTransferDto.rolledBack(results, transfers.size());
+                    }
+                }
+            }
+            return BatchTransferDto.of(results);
+        });
+        if (request.getMode() == BatchMode.ALL_OR_NOTHING && result.getFailed() > 0) {
+            throw new BatchTransferException(result);
+        }
+        result.getResults()
+                .stream()
+                .filter(item -> item.getStatus() == BatchItemStatus.APPLIED)
+                .forEach(item -> journal.append(item.getTransfer(), null, null, null));
+        return result;
+    }
+
+    /**
+     * Validates a transfer and computes its FX conversion, without touching any balance.
+     */
+    private TransferDto prepareTransfer(TransferRequest request) {
+        Long debitAccountId = request.getDebitAccountId();
+        Long creditAccountId = request.getCreditAccountId();
+        if (Objects.equals(debitAccountId, creditAccountId)) {
+            throw new SameAccountTransferException("Credit and Debit accounts are the same");
+        }
+        CurrencyUnit debitCurrency = engine.currencyOf(debitAccountId);
+        CurrencyUnit creditCurrency = engine.currencyOf(creditAccountId);
+        MonetaryAmount debited = money(request.getAmount(), request.getCurrency());
+        if (!debitCurrency.equals(debited.getCurrency())) {
+            throw new NotSupportedCurrencyException("The Request Currency should be " + debitCurrency);
+        }
+        Conversion conversion = convert(debited, creditCurrency, request.getQuoteId());
+        return TransferDto.builder()
+                .rate(conversion.rate())
+                .debitedAmount(debited)
+                .creditedAmount(conversion.amount())
+                .debitAccountId(debitAccountId)
+                .creditAccountId(creditAccountId)
+                .build();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        asyncExecutor.shutdown();
+    }
+
+    /**
+     * Runs an operation at most once per Idempotency-Key and queues its result to the journal.
+     * Keys still waiting for the journal are answered here; flushed keys are answered by the IdempotencyService.
+     */
+    private TransferDto apply(String idempotencyKey, OperationType operation, Object request,
+                              Supplier<TransferDto> command) {
+        if (idempotencyKey == null) {
+            TransferDto transferDto = command.get();
+            journal.append(transferDto, null, null, null);
+            return transferDto;
+        }
+        PendingOperation pending = new PendingOperation(operation, request, new CompletableFuture<>());
+        PendingOperation existing = pendingKeys.putIfAbsent(idempotencyKey, pending);
+        if (existing != null) {
+            if (existing.operation() != operation || !existing.request()
+                    .equals(request)) {
+                throw new IdempotencyKeyReusedException(idempotencyKey);
+            }
+            try {
+                return existing.result()
+                        .join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        TransferDto transferDto;
+        try {
+            transferDto = command.get();
+        } catch (RuntimeException e) {
+            pendingKeys.remove(idempotencyKey, pending);
+            pending.result()
+                    .completeExceptionally(e);
+            throw e;
+        }
+        pending.result()
+                .complete(transferDto);
+        journal.append(transferDto, idempotencyKey, operation, request)
+                .thenRun(() -> pendingKeys.remove(idempotencyKey, pending));
+        return transferDto;
+    }
+
+    /**
+     * Converts an amount at the current rate, or at the rate of the given FX quote. Same-currency amounts ignore
+     * the quote.
+     */
+    private Conversion convert(MonetaryAmount money, CurrencyUnit targetCurrency, String quoteId) {
+        if (money.getCurrency()
+                .equals(targetCurrency)) {
+            return new Conversion(money, BigDecimal.ONE);
+        }
+        FXRateResponse fxRateResponse = forexService.exchange(FXRateRequest.builder()
+                                                                      .monetaryAmount(money)
+                                                                      .targetCurrency(targetCurrency)
+                                                                      .quoteId(quoteId)
+                                                                      .build());
+        return new Conversion(fxRateResponse.getConvertedAmount(), fxRateResponse.getExchangeRate()
+                .getFactor()
+                .numberValue(BigDecimal.class));
+    }
+
+    private static MonetaryAmount money(BigDecimal amount, String currency) {
+        return Monetary.getDefaultAmountFactory()
+                .setCurrency(currency)
+                .setNumber(amount)
+                .create();
+    }
+
+    private record Conversion(MonetaryAmount amount, BigDecimal rate) {
+    }
+
+    private record PendingOperation(OperationType operation, Object request, CompletableFuture<TransferDto> result) {
+    }
+}
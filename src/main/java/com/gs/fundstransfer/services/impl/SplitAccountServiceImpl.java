@@ -0,0 +1,148 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.InvalidSplitException;
+import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.model.AccountSlot;
+import com.gs.fundstransfer.model.AccountSlotId;
+import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.repository.AccountSlotRepository;
+import com.gs.fundstransfer.services.SplitAccountService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service implementation of split accounts.
+ *
+ * A split account keeps its own row and gets K slot rows. Credits go to a random slot with a single in-place
+ * update, so K credits can run concurrently. Debits still lock the account row, and only sweep the slots back into
+ * it when the row alone does not cover the amount. The slot count of every split account is kept in memory, so
+ * operations on other accounts never query the slots.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SplitAccountServiceImpl implements SplitAccountService {
+
+    static final int MAX_SLOTS = 64;
+
+    private final AccountRepository accountRepository;
+    private final AccountSlotRepository accountSlotRepository;
+    private final Map<Long, Integer> slotCounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void loadSlotCounts() {
+        accountSlotRepository.countSlots()
+                .forEach(row -> slotCounts.put((Long) row[0], ((Number) row[1]).intValue()));
+    }
+
+    /**
+     * Splits an account into the given number of slots. An already split account can only get more slots.
+     *
+     * @param accountId the ID of the account owner
+     * @param slots     the number of slots, between 2 and {@value #MAX_SLOTS}
+     * @throws AccountNotFoundException if no account is found for the given ID
+     * @throws InvalidSplitException    if the number of slots is out of range or lower than the current one
+     */
+    @Override
+    @Transactional
+    public void split(Long accountId, int slots) {
+        if (slots < 2 || slots > MAX_SLOTS) {
+            throw new InvalidSplitException("The number of slots must be between 2 and " + MAX_SLOTS);
+        }
+        Account account = accountRepository.findByIdWithLock(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        int current = accountSlotRepository.countByOwnerId(accountId);
+        if (slots < current) {
+            throw new InvalidSplitException("Account " + accountId + " already has " + current + " slots");
+        }
+        String currency = account.getMoney()
+                .getCurrency()
+                .getCurrencyCode();
+        List<AccountSlot> newSlots = new ArrayList<>(slots - current);
+        for (int slot = current; slot < slots; slot++) {
+            newSlots.add(AccountSlot.builder()
+                                 .id(new AccountSlotId(accountId, slot))
+                                 .currency(currency)
+                                 .balance(BigDecimal.ZERO)
+                                 .build());
+        }
+        accountSlotRepository.saveAll(newSlots);
+        // Credits only target the new slots once they are visible to other transactions
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                slotCounts.put(accountId, slots);
+                log.info("Account {} is split into {} slots", accountId, slots);
+            }
+        });
+    }
+
+    @Override
+    public boolean isSplit(Long accountId) {
+        return slotCounts.containsKey(accountId);
+    }
+
+    /**
+     * Credits a random slot of a split account, in the caller's transaction.
+     *
+     * @return true if the account is split and holds the given currency, false if the caller must credit the account
+     */
+    @Override
+    public boolean credit(Long accountId, BigDecimal amount, String currency) {
+        Integer slots = slotCounts.get(accountId);
+        if (slots == null) {
+            return false;
+        }
+        int slot = ThreadLocalRandom.current()
+                .nextInt(slots);
+        return accountSlotRepository.creditSlot(accountId, slot, amount, currency) == 1;
+    }
+
+    /**
+     * Locks the slots of a split account and empties them, in the caller's transaction.
+     * The caller must add the returned amount to the account row.
+     *
+     * @return the total balance swept from the slots, zero if the account is not split
+     */
+    @Override
+    public BigDecimal consolidate(Long accountId) {
+        if (!isSplit(accountId)) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal swept = BigDecimal.ZERO;
+        for (AccountSlot slot : accountSlotRepository.findAllByOwnerIdWithLock(accountId)) {
+            swept = swept.add(slot.getBalance());
+            slot.setBalance(BigDecimal.ZERO);
+        }
+        return swept;
+    }
+
+    /**
+     * Returns the total slot balance of the split accounts among the given ones.
+     * Accounts which are not split are absent from the result, and are not queried.
+     */
+    @Override
+    public Map<Long, BigDecimal> getSlotBalances(Collection<Long> accountIds) {
+        List<Long> splitAccountIds = accountIds.stream()
+                .filter(slotCounts::containsKey)
+                .toList();
+        if (splitAccountIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        accountSlotRepository.sumBalances(splitAccountIds)
+                .forEach(row -> balances.put((Long) row[0], (BigDecimal) row[1]));
+        return balances;
+    }
+}
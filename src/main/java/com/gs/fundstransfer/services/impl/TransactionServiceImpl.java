@@ -1,69 +1,122 @@
 package com.gs.fundstransfer.services.impl;
 
+import com.gs.fundstransfer.dto.BatchItemStatus;
+import com.gs.fundstransfer.dto.BatchTransferDto;
+import com.gs.fundstransfer.dto.BatchTransferItemDto;
 import com.gs.fundstransfer.dto.TransferDto;
 import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.BatchTransferException;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
 import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
 import com.gs.fundstransfer.exceptions.SameAccountTransferException;
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
 import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
 import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.model.MinorUnits;
+import com.gs.fundstransfer.model.OperationType;
 import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.request.BatchMode;
+import com.gs.fundstransfer.request.BatchTransferRequest;
 import com.gs.fundstransfer.request.FXRateRequest;
 import com.gs.fundstransfer.request.OrderRequest;
 import com.gs.fundstransfer.request.TransferRequest;
 import com.gs.fundstransfer.response.FXRateResponse;
 import com.gs.fundstransfer.services.ForexService;
+import com.gs.fundstransfer.services.IdempotencyService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
 import com.gs.fundstransfer.services.TransactionService;
-import jakarta.persistence.PessimisticLockException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.dao.CannotAcquireLockException;
-import org.springframework.retry.annotation.Backoff;
+import org.javamoney.moneta.Money;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 
+import javax.money.CurrencyUnit;
 import javax.money.Monetary;
 import javax.money.MonetaryAmount;
 import java.math.BigDecimal;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionServiceImpl implements TransactionService {
 
     private final ForexService forexService;
     private final AccountRepository accountRepository;
-
-    @Retryable(retryFor = {PessimisticLockException.class, CannotAcquireLockException.class}, backoff = @Backoff(delay = 200))
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
+    private final AccountContentionTracker contentionTracker;
+    private final SplitAccountService splitAccountService;
+    private final AccountOperationCoalescer coalescer;
+    private final DepositGroupCommitter groupCommitter;
+
+    @Retryable(interceptor = "transactionRetryInterceptor")
     @Transactional
     @Override
     public TransferDto deposit(OrderRequest request) {
-        Account account = accountRepository.findByIdWithLock(request.getAccountId())
-                .orElseThrow(() -> new AccountNotFoundException(request.getAccountId()));
+        return applyDeposit(request);
+    }
+
+    /**
+     * Deposits like {@link #deposit(OrderRequest)} and records the result under the given Idempotency-Key,
+     * in the same transaction.
+     */
+    @Retryable(interceptor = "transactionRetryInterceptor")
+    @Transactional
+    @Override
+    public TransferDto deposit(OrderRequest request, String idempotencyKey) {
+        TransferDto transferDto = applyDeposit(request);
+        idempotencyService.record(idempotencyKey, OperationType.DEPOSIT, request, transferDto);
+        return transferDto;
+    }
+
+    private TransferDto applyDeposit(OrderRequest request) {
+        // Same-currency deposits are a single in-place update, of a random slot for split accounts, anything else
+        // needs the account
+        if (splitAccountService.credit(request.getAccountId(), request.getAmount(), request.getCurrency())
+                || accountRepository.creditBalance(request.getAccountId(), request.getAmount(), request.getCurrency()) == 1) {
+            TransferDto transferDto = TransferDto.builder()
+                    .creditAccountId(request.getAccountId())
+                    .creditedAmount(toMoney(request))
+                    .rate(BigDecimal.ONE)
+                    .build();
+            ledgerService.record(transferDto);
+            return transferDto;
+        }
+        FXRateResponse quoted = exchangeQuoted(request.getAmount(), request.getCurrency(), request.getQuoteId());
+        boolean optimistic = contentionTracker.isOptimistic(List.of(request.getAccountId()));
+        Account account = findForUpdate(request.getAccountId(), optimistic);
         // Check if the source and target currencies are the same
         if (request.getCurrency()
                 .equals(account.getMoney()
                                 .getCurrency()
                                 .getCurrencyCode())) {
             // No need for conversion if currencies are the same
-            MonetaryAmount moneyToDeposit = Monetary.getDefaultAmountFactory()
-                    .setCurrency(request.getCurrency())
-                    .setNumber(request.getAmount())
-                    .create();
-            account.setMoney(account.getMoney()
-                                     .add(moneyToDeposit));
+            MonetaryAmount moneyToDeposit = credit(account, request.getAmount());
             accountRepository.save(account);
-            return TransferDto.builder()
+            TransferDto transferDto = TransferDto.builder()
                     .creditAccountId(request.getAccountId())
                     .creditedAmount(moneyToDeposit) // No conversion, use the request amount
                     .rate(BigDecimal.ONE) // No exchange rate, so use 1.0
                     .build();
+            ledgerService.record(transferDto);
+            flushIfOptimistic(optimistic, List.of(request.getAccountId()));
+            return transferDto;
         }
 
         // If currencies are different, proceed with conversion
         FXRateRequest fXRateRequest = createFXRequest(request, account);
-        FXRateResponse fxRateResponse = forexService.exchange(fXRateRequest);
+        FXRateResponse fxRateResponse = exchange(fXRateRequest, quoted);
 
         account.setMoney(account.getMoney()
                                  .add(fxRateResponse.getConvertedAmount()));
@@ -71,21 +124,55 @@ public class TransactionServiceImpl implements TransactionService {
         BigDecimal rate = fxRateResponse.getExchangeRate()
                 .getFactor()
                 .numberValue(BigDecimal.class);
-        return TransferDto.builder()
+        TransferDto transferDto = TransferDto.builder()
                 .creditAccountId(request.getAccountId())
                 .creditedAmount(fxRateResponse.getConvertedAmount())
                 .rate(rate)
                 .build();
+        ledgerService.record(transferDto);
+        flushIfOptimistic(optimistic, List.of(request.getAccountId()));
+        return transferDto;
     }
 
 
-    @Retryable(retryFor = {PessimisticLockException.class, CannotAcquireLockException.class}, backoff = @Backoff(delay = 200))
+    @Retryable(interceptor = "transactionRetryInterceptor")
     @Transactional
     @Override
     public TransferDto withdraw(OrderRequest request) {
+        return applyWithdraw(request);
+    }
+
+    /**
+     * Withdraws like {@link #withdraw(OrderRequest)} and records the result under the given Idempotency-Key,
+     * in the same transaction.
+     */
+    @Retryable(interceptor = "transactionRetryInterceptor")
+    @Transactional
+    @Override
+    public TransferDto withdraw(OrderRequest request, String idempotencyKey) {
+        TransferDto transferDto = applyWithdraw(request);
+        idempotencyService.record(idempotencyKey, OperationType.WITHDRAW, request, transferDto);
+        return transferDto;
+    }
 
-        Account account = accountRepository.findByIdWithLock(request.getAccountId())
-                .orElseThrow(() -> new AccountNotFoundException(request.getAccountId()));
+    private TransferDto applyWithdraw(OrderRequest request) {
+
+        // Same-currency withdrawals covered by the balance are a single in-place update. Otherwise the account
+        // is loaded, to convert the amount or to tell a missing account from insufficient funds.
+        if (accountRepository.debitBalance(request.getAccountId(), request.getAmount(), request.getCurrency()) == 1) {
+            TransferDto transferDto = TransferDto.builder()
+                    .debitAccountId(request.getAccountId())
+                    .debitedAmount(toMoney(request))
+                    .rate(BigDecimal.ONE)
+                    .build();
+            ledgerService.record(transferDto);
+            return transferDto;
+        }
+        FXRateResponse quoted = exchangeQuoted(request.getAmount(), request.getCurrency(), request.getQuoteId());
+        boolean optimistic = contentionTracker.isOptimistic(List.of(request.getAccountId()));
+        Account account = findForUpdate(request.getAccountId(), optimistic);
+        // The account row alone was short, or the amount needs a conversion
+        consolidate(account);
 
         // Check if the source and target currencies are the same
         if (request.getCurrency()
@@ -93,28 +180,21 @@ public class TransactionServiceImpl implements TransactionService {
                                 .getCurrency()
                                 .getCurrencyCode())) {
             // No need for conversion if currencies are the same
-            MonetaryAmount moneyToWithdraw = Monetary.getDefaultAmountFactory()
-                    .setCurrency(request.getCurrency())
-                    .setNumber(request.getAmount())
-                    .create();
-            if (account.getMoney()
-                    .compareTo(moneyToWithdraw) < 0) {
-                throw new UnsufficientFundsException("InsufficientFunds in " + account);
-
-            }
-            account.setMoney(account.getMoney()
-                                     .subtract(moneyToWithdraw));
+            MonetaryAmount moneyToWithdraw = debit(account, request.getAmount());
             accountRepository.save(account);
-            return TransferDto.builder()
+            TransferDto transferDto = TransferDto.builder()
                     .debitAccountId(request.getAccountId())
                     .debitedAmount(moneyToWithdraw) // No conversion, use the request amount
                     .rate(BigDecimal.ONE) // No exchange rate, so use 1.0
                     .build();
+            ledgerService.record(transferDto);
+            flushIfOptimistic(optimistic, List.of(request.getAccountId()));
+            return transferDto;
         }
 
         FXRateRequest fXRateRequest = createFXRequest(request, account);
 
-        FXRateResponse fxRateResponse = forexService.exchange(fXRateRequest);
+        FXRateResponse fxRateResponse = exchange(fXRateRequest, quoted);
         if (account.getMoney()
                 .compareTo(fxRateResponse.getConvertedAmount()) < 0) {
             throw new UnsufficientFundsException("InsufficientFunds in " + account);
@@ -129,17 +209,37 @@ public class TransactionServiceImpl implements TransactionService {
                 .getFactor()
                 .numberValue(BigDecimal.class);
 
-        return TransferDto.builder()
+        TransferDto transferDto = TransferDto.builder()
                 .debitAccountId(request.getAccountId())
                 .debitedAmount(fxRateResponse.getConvertedAmount())
                 .rate(rate)
                 .build();
+        ledgerService.record(transferDto);
+        flushIfOptimistic(optimistic, List.of(request.getAccountId()));
+        return transferDto;
     }
 
-    @Retryable(retryFor = {PessimisticLockException.class, CannotAcquireLockException.class}, backoff = @Backoff(delay = 200))
+    @Retryable(interceptor = "transactionRetryInterceptor")
     @Transactional
     @Override
     public TransferDto transfer(TransferRequest request) {
+        return applyTransfer(request);
+    }
+
+    /**
+     * Transfers like {@link #transfer(TransferRequest)} and records the result under the given Idempotency-Key,
+     * in the same transaction.
+     */
+    @Retryable(interceptor = "transactionRetryInterceptor")
+    @Transactional
+    @Override
+    public TransferDto transfer(TransferRequest request, String idempotencyKey) {
+        TransferDto transferDto = applyTransfer(request);
+        idempotencyService.record(idempotencyKey, OperationType.TRANSFER, request, transferDto);
+        return transferDto;
+    }
+
+    private TransferDto applyTransfer(TransferRequest request) {
 
         Long debitAccountId = request.getDebitAccountId();
         Long creditAccountId = request.getCreditAccountId();
@@ -148,71 +248,344 @@ public class TransactionServiceImpl implements TransactionService {
             throw new SameAccountTransferException("Credit and Debit accounts are the same");
         }
 
-        Account debitAccount = accountRepository.findByIdWithLock(debitAccountId)
-                .orElseThrow(() -> new AccountNotFoundException(debitAccountId));
+        FXRateResponse quoted = exchangeQuoted(request.getAmount(), request.getCurrency(), request.getQuoteId());
+        List<Long> accountIds = List.of(debitAccountId, creditAccountId);
+        boolean optimistic = contentionTracker.isOptimistic(accountIds);
+        // Otherwise lock both accounts in one query; rows are locked in ownerId order to avoid deadlocks
+        List<Account> accounts = optimistic
+                ? accountRepository.findAllById(accountIds)
+                : accountRepository.findAllByIdWithLock(accountIds);
+        Account debitAccount = findLocked(accounts, debitAccountId);
+        Account creditAccount = findLocked(accounts, creditAccountId);
+        consolidateIfShort(debitAccount, request.getAmount());
+
+        TransferDto transferDto = applyTransfer(request, debitAccount, creditAccount, quoted);
+        accountRepository.save(debitAccount);
+        accountRepository.save(creditAccount);
+        flushIfOptimistic(optimistic, accountIds);
+        return transferDto;
+    }
 
-        Account creditAccount = accountRepository.findByIdWithLock(creditAccountId)
-                .orElseThrow(() -> new AccountNotFoundException(creditAccountId));
+    /**
+     * Applies a list of transfers in a single transaction.
+     *
+     * Every account involved in the batch is locked once, in ownerId order, then the transfers are applied
+     * in memory one after the other and flushed together on commit. In ALL_OR_NOTHING mode the first failing
+     * transfer rolls the whole batch back; in BEST_EFFORT mode failing transfers are skipped and reported.
+     *
+     * @param request the transfers to apply and the batch mode
+     * @return the outcome of every transfer, in request order
+     * @throws BatchTransferException in ALL_OR_NOTHING mode, if any transfer fails
+     */
+    @Retryable(interceptor = "transactionRetryInterceptor")
+    @Transactional
+    @Override
+    public BatchTransferDto transferBatch(BatchTransferRequest request) {
+        List<TransferRequest> transfers = request.getTransfers();
+        SortedSet<Long> accountIds = new TreeSet<>();
+        transfers.forEach(transfer -> {
+            accountIds.add(transfer.getDebitAccountId());
+            accountIds.add(transfer.getCreditAccountId());
+        });
+        // Quoted conversions are done before the accounts are locked, their errors are reported with their transfer
+        FXRateResponse[] quoted = new FXRateResponse[transfers.size()];
+        InvalidFxQuoteException[] quoteErrors = new InvalidFxQuoteException[transfers.size()];
+        for (int index = 0; index < transfers.size(); index++) {
+            TransferRequest transfer = transfers.get(index);
+            try {
+                quoted[index] = exchangeQuoted(transfer.getAmount(), transfer.getCurrency(), transfer.getQuoteId());
+            } catch (InvalidFxQuoteException e) {
+                quoteErrors[index] = e;
+            }
+        }
+        Map<Long, Account> lockedAccounts = accountRepository.findAllByIdWithLock(accountIds)
+                .stream()
+                .collect(Collectors.toMap(Account::getOwnerId, Function.identity()));
+
+        List<BatchTransferItemDto> results = new ArrayList<>(transfers.size());
+        for (int index = 0; index < transfers.size(); index++) {
+            TransferRequest transfer = transfers.get(index);
+            try {
+                if (Objects.equals(transfer.getDebitAccountId(), transfer.getCreditAccountId())) {
+                    throw new SameAccountTransferException("Credit and Debit accounts are the same");
+                }
+                if (quoteErrors[index] != null) {
+                    throw quoteErrors[index];
+                }
+                Account debitAccount = lockedAccount(lockedAccounts, transfer.getDebitAccountId());
+                consolidateIfShort(debitAccount, transfer.getAmount());
+                TransferDto transferDto = applyTransfer(transfer, debitAccount,
+                                                        lockedAccount(lockedAccounts, transfer.getCreditAccountId()),
+                                                        quoted[index]);
+                results.add(BatchTransferItemDto.builder()
+                                    .index(index)
+                                    .status(BatchItemStatus.APPLIED)
+                                    .transfer(transferDto)
+                                    .build());
+            } catch (AccountNotFoundException | SameAccountTransferException | NotSupportedCurrencyException |
+                     UnsufficientFundsException | UnavailableFXRatesException | InvalidFxQuoteException e) {
+                results.add(BatchTransferItemDto.builder()
+                                    .index(index)
+                                    .status(BatchItemStatus.FAILED)
+                                    .error(e.getMessage())
+                                    .build());
+                if (request.getMode() == BatchMode.ALL_OR_NOTHING) {
+                    throw new BatchTransferException(BatchTransferDto.rolledBack(results, transfers.size()));
+                }
+            }
+        }
+        accountRepository.saveAll(lockedAccounts.values());
+        return BatchTransferDto.of(results);
+    }
 
-        MonetaryAmount debitMoneyRequest = Monetary.getDefaultAmountFactory()
-                .setCurrency(request.getCurrency())
-                .setNumber(request.getAmount())
-                .create();
+    /**
+     * Queues the deposit for the next group commit if it is enabled, see {@link DepositGroupCommitter}, otherwise
+     * behind the other asynchronous operations of the account, see {@link AccountOperationCoalescer}.
+     */
+    @Override
+    public CompletableFuture<TransferDto> depositAsync(OrderRequest request, String idempotencyKey) {
+        Supplier<TransferDto> deposit = () -> {
+            TransferDto transferDto = applyDeposit(request);
+            idempotencyService.record(idempotencyKey, OperationType.DEPOSIT, request, transferDto);
+            return transferDto;
+        };
+        if (groupCommitter.isEnabled()) {
+            return groupCommitter.submit(request, idempotencyKey, deposit);
+        }
+        return coalescer.submit(request.getAccountId(), List.of(request.getAccountId()), deposit);
+    }
 
-        if (!debitAccount.getMoney()
-                .getCurrency()
-                .equals(debitMoneyRequest.getCurrency())) {
-            throw new NotSupportedCurrencyException("The Request Currency should be " + debitAccount.getMoney()
-                    .getCurrency());
+    @Override
+    public CompletableFuture<TransferDto> withdrawAsync(OrderRequest request, String idempotencyKey) {
+        return coalescer.submit(request.getAccountId(), List.of(request.getAccountId()), () -> {
+            TransferDto transferDto = applyWithdraw(request);
+            idempotencyService.record(idempotencyKey, OperationType.WITHDRAW, request, transferDto);
+            return transferDto;
+        });
+    }
+
+    /**
+     * Queues the transfer behind the other asynchronous operations of its debit account. Its credit account is
+     * locked with the batch.
+     */
+    @Override
+    public CompletableFuture<TransferDto> transferAsync(TransferRequest request, String idempotencyKey) {
+        List<Long> accountIds = Objects.equals(request.getDebitAccountId(), request.getCreditAccountId())
+                ? List.of(request.getDebitAccountId())
+                : List.of(request.getDebitAccountId(), request.getCreditAccountId());
+        return coalescer.submit(request.getDebitAccountId(), accountIds, () -> {
+            TransferDto transferDto = applyTransfer(request);
+            idempotencyService.record(idempotencyKey, OperationType.TRANSFER, request, transferDto);
+            return transferDto;
+        });
+    }
+
+    /**
+     * Moves money between two locked accounts and records it in the ledger.
+     * Everything that can fail is checked before either balance is touched.
+     *
+     * @param quoted the amount converted at the rate of the quote of the request, or null if it has none
+     */
+    private TransferDto applyTransfer(TransferRequest request, Account debitAccount, Account creditAccount,
+                                      FXRateResponse quoted) {
+        CurrencyUnit debitCurrency = debitAccount.getMoney()
+                .getCurrency();
+        if (!debitCurrency.getCurrencyCode()
+                .equals(request.getCurrency())) {
+            throw new NotSupportedCurrencyException("The Request Currency should be " + debitCurrency);
         }
-        if (debitAccount.getMoney()
-                .compareTo(debitMoneyRequest) < 0) {
-            throw new UnsufficientFundsException("InsufficientFunds in " + debitAccount);
+
+        MonetaryAmount debitMoneyRequest;
+        MonetaryAmount creditMoney;
+        BigDecimal rate;
+        // Check if debit and credit accounts have the same currency
+        if (debitCurrency.equals(creditAccount.getMoney()
+                                         .getCurrency())) {
+            // No conversion needed, so the credited amount is the same as debited
+            debitMoneyRequest = debit(debitAccount, request.getAmount());
+            creditMoney = credit(creditAccount, request.getAmount());
+            rate = BigDecimal.ONE; // Set rate to 1.0 since no conversion took place
+        } else {
+            // Converted before the debit, so that an unavailable rate leaves both balances untouched
+            FXRateRequest fXRateRequest = createFXRequest(request, creditAccount);
+            FXRateResponse fxRateResponse = exchange(fXRateRequest, quoted);
+            debitMoneyRequest = debit(debitAccount, request.getAmount());
+            creditMoney = fxRateResponse.getConvertedAmount();
+            rate = fxRateResponse.getExchangeRate()
+                    .getFactor()
+                    .numberValue(BigDecimal.class);
+            creditAccount.setMoney(creditAccount.getMoney()
+                                           .add(creditMoney));
         }
 
-        debitAccount.setMoney(debitAccount.getMoney()
-                                      .subtract(debitMoneyRequest));
+        TransferDto transferDto = TransferDto.builder()
+                .rate(rate)
+                .debitedAmount(debitMoneyRequest)
+                .creditedAmount(creditMoney)
+                .debitAccountId(debitAccount.getOwnerId())
+                .creditAccountId(creditAccount.getOwnerId())
+                .build();
+        ledgerService.record(transferDto);
+        return transferDto;
+    }
 
-        // Check if debit and credit accounts have the same currency
-        if (debitAccount.getMoney()
+    /**
+     * Converts an amount at the rate of its FX quote, before any account is locked. Unlike the current rate, which
+     * is read once the account currency is known, the quoted rate is fixed, so the lock is not held for it.
+     *
+     * @return the converted amount, or null if there is no quote
+     * @throws InvalidFxQuoteException if the quote has expired, or does not quote the currency of the amount
+     */
+    private FXRateResponse exchangeQuoted(BigDecimal amount, String currency, String quoteId) {
+        if (quoteId == null) {
+            return null;
+        }
+        return forexService.exchange(FXRateRequest.builder()
+                                             .monetaryAmount(Monetary.getDefaultAmountFactory()
+                                                                     .setCurrency(currency)
+                                                                     .setNumber(amount)
+                                                                     .create())
+                                             .quoteId(quoteId)
+                                             .build());
+    }
+
+    /**
+     * Converts into the account currency, reusing the quoted conversion if there is one.
+     *
+     * @throws InvalidFxQuoteException if the quote does not convert into the account currency
+     */
+    private FXRateResponse exchange(FXRateRequest fXRateRequest, FXRateResponse quoted) {
+        if (quoted == null) {
+            return forexService.exchange(fXRateRequest);
+        }
+        if (!quoted.getConvertedAmount()
                 .getCurrency()
-                .equals(creditAccount.getMoney()
-                                .getCurrency())) {
-            // No conversion needed
-            creditAccount.setMoney(creditAccount.getMoney()
-                                           .add(debitMoneyRequest));
+                .equals(fXRateRequest.getTargetCurrency())) {
+            throw new InvalidFxQuoteException("The FX quote " + fXRateRequest.getQuoteId() + " does not convert into "
+                                                      + fXRateRequest.getTargetCurrency());
+        }
+        return quoted;
+    }
 
-            accountRepository.save(debitAccount);
-            accountRepository.save(creditAccount);
+    /**
+     * Loads an account to update it. Contended accounts are locked, the others are read as is and their
+     * version is checked when the update is flushed.
+     */
+    private Account findForUpdate(Long id, boolean optimistic) {
+        Optional<Account> account = optimistic ? accountRepository.findById(id) : accountRepository.findByIdWithLock(id);
+        return account.orElseThrow(() -> new AccountNotFoundException(id));
+    }
 
-            return TransferDto.builder()
-                    .debitedAmount(debitMoneyRequest)
-                    .creditedAmount(debitMoneyRequest) // No conversion, so the credited amount is the same as debited
-                    .rate(BigDecimal.ONE) // Set rate to 1.0 since no conversion took place
-                    .debitAccountId(debitAccountId)
-                    .creditAccountId(creditAccountId)
-                    .build();
+    /**
+     * Flushes optimistic updates before the transaction commits, so that a version conflict can be counted
+     * against the account which caused it. The operation is then retried, locking the account once it is contended.
+     */
+    private void flushIfOptimistic(boolean optimistic, List<Long> accountIds) {
+        if (!optimistic) {
+            return;
         }
-        FXRateRequest fXRateRequest = createFXRequest(request, creditAccount);
+        try {
+            accountRepository.flush();
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (e.getIdentifier() instanceof Long accountId) {
+                contentionTracker.recordConflict(accountId);
+            } else {
+                // Batched updates do not report which row was stale
+                accountIds.forEach(contentionTracker::recordConflict);
+            }
+            throw e;
+        }
+    }
 
-        FXRateResponse fxRateResponse = forexService.exchange(fXRateRequest);
+    /**
+     * Sweeps the slots of a split account into the account row when the row alone does not cover the amount, so
+     * that most debits leave the slots, and the credits running on them, alone.
+     */
+    private void consolidateIfShort(Account account, BigDecimal amount) {
+        if (account.getMoney()
+                .getNumber()
+                .numberValue(BigDecimal.class)
+                .compareTo(amount) < 0) {
+            consolidate(account);
+        }
+    }
 
+    private void consolidate(Account account) {
+        if (!splitAccountService.isSplit(account.getOwnerId())) {
+            return;
+        }
+        BigDecimal swept = splitAccountService.consolidate(account.getOwnerId());
+        if (swept.signum() != 0) {
+            credit(account, swept);
+        }
+    }
 
-        creditAccount.setMoney(creditAccount.getMoney()
-                                       .add(fxRateResponse.getConvertedAmount()));
+    /**
+     * Adds an amount in the account currency to its balance. The sum is computed on minor units, without allocating
+     * intermediate amounts, unless the balance or the amount has digits below the minor unit.
+     *
+     * @return the credited amount
+     */
+    private static MonetaryAmount credit(Account account, BigDecimal amount) {
+        MonetaryAmount balance = account.getMoney();
+        MinorUnits balanceUnits = MinorUnits.of(balance);
+        MinorUnits amountUnits = balanceUnits == null ? null : MinorUnits.of(amount, balance.getCurrency());
+        if (amountUnits != null) {
+            account.setMoney(balanceUnits.plus(amountUnits)
+                                     .toMonetaryAmount());
+        } else {
+            account.setMoney(balance.add(Money.of(amount, balance.getCurrency())));
+        }
+        // The amount as requested, for the API
+        return Money.of(amount, balance.getCurrency());
+    }
 
-        accountRepository.save(debitAccount);
-        accountRepository.save(creditAccount);
-        BigDecimal rate = fxRateResponse.getExchangeRate()
-                .getFactor()
-                .numberValue(BigDecimal.class);
-        return TransferDto.builder()
-                .rate(rate)
-                .debitedAmount(debitMoneyRequest)
-                .creditedAmount(fxRateResponse.getConvertedAmount())
-                .debitAccountId(debitAccountId)
-                .creditAccountId(creditAccountId)
-                .build();
+    /**
+     * Subtracts an amount in the account currency from its balance, on minor units like {@link #credit}.
+     *
+     * @return the debited amount
+     * @throws UnsufficientFundsException if the balance does not cover the amount
+     */
+    private static MonetaryAmount debit(Account account, BigDecimal amount) {
+        MonetaryAmount balance = account.getMoney();
+        MinorUnits balanceUnits = MinorUnits.of(balance);
+        MinorUnits amountUnits = balanceUnits == null ? null : MinorUnits.of(amount, balance.getCurrency());
+        if (amountUnits != null) {
+            if (balanceUnits.compareTo(amountUnits) < 0) {
+                throw new UnsufficientFundsException("InsufficientFunds in " + account);
+            }
+            account.setMoney(balanceUnits.minus(amountUnits)
+                                     .toMonetaryAmount());
+            return Money.of(amount, balance.getCurrency());
+        }
+        MonetaryAmount money = Money.of(amount, balance.getCurrency());
+        if (balance.compareTo(money) < 0) {
+            throw new UnsufficientFundsException("InsufficientFunds in " + account);
+        }
+        account.setMoney(balance.subtract(money));
+        return money;
+    }
+
+    private static Account lockedAccount(Map<Long, Account> lockedAccounts, Long id) {
+        Account account = lockedAccounts.get(id);
+        if (account == null) {
+            throw new AccountNotFoundException(id);
+        }
+        return account;
+    }
+
+    private static Account findLocked(List<Account> lockedAccounts, Long id) {
+        return lockedAccounts.stream()
+                .filter(account -> id.equals(account.getOwnerId()))
+                .findFirst()
+                .orElseThrow(() -> new AccountNotFoundException(id));
+    }
+
+    private static MonetaryAmount toMoney(OrderRequest request) {
+        return Monetary.getDefaultAmountFactory()
+                .setCurrency(request.getCurrency())
+                .setNumber(request.getAmount())
+                .create();
     }
 
     private static FXRateRequest createFXRequest(OrderRequest request, Account account) {
@@ -223,6 +596,7 @@ public class TransactionServiceImpl implements TransactionService {
                                         .create())
                 .targetCurrency(account.getMoney()
                                         .getCurrency())
+                .quoteId(request.getQuoteId())
                 .build();
     }
 
@@ -234,6 +608,7 @@ public class TransactionServiceImpl implements TransactionService {
                                         .create())
                 .targetCurrency(account.getMoney()
                                         .getCurrency())
+                .quoteId(request.getQuoteId())
                 .build();
     }
 
@@ -0,0 +1,142 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.batch.TransferImportJobConfig;
+import com.gs.fundstransfer.dto.ImportJobDto;
+import com.gs.fundstransfer.exceptions.ImportJobNotFoundException;
+import com.gs.fundstransfer.request.ImportFormat;
+import com.gs.fundstransfer.services.TransferImportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.batch.core.*;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Service implementation that stores uploaded transfer files and imports them in the background.
+ *
+ * The upload is streamed to {@code imports.directory} as it is received, so files of any size are accepted without
+ * being held in memory. Each upload is a new job instance; a failed import is resumed by the job repository from its
+ * last committed chunk.
+ *
+ * @see TransferImportJobConfig
+ */
+@Service
+@ConditionalOnProperty(name = "transactions.engine", havingValue = "locking", matchIfMissing = true)
+@Slf4j
+public class TransferImportServiceImpl implements TransferImportService {
+
+    private final Job transferImportJob;
+    private final JobExplorer jobExplorer;
+    private final Path directory;
+    private final TaskExecutorJobLauncher jobLauncher;
+
+    public TransferImportServiceImpl(Job transferImportJob, JobRepository jobRepository, JobExplorer jobExplorer,
+                                     @Value("${imports.directory:data/imports}") Path directory) {
+        this.transferImportJob = transferImportJob;
+        this.jobExplorer = jobExplorer;
+        this.directory = directory;
+        this.jobLauncher = new TaskExecutorJobLauncher();
+        jobLauncher.setJobRepository(jobRepository);
+        jobLauncher.setTaskExecutor(new SimpleAsyncTaskExecutor("import-job-"));
+    }
+
+    /**
+     * Stores a transfer file and starts importing it.
+     *
+     * @param content the file, streamed from the request body
+     * @param format  the format of its lines
+     * @return the started job execution
+     */
+    @Override
+    public ImportJobDto start(InputStream content, ImportFormat format) {
+        String id = UUID.randomUUID()
+                .toString();
+        Path inputFile = directory.resolve(id + "." + format.name()
+                .toLowerCase());
+        Path resultFile = directory.resolve(id + ".results.ndjson");
+        try {
+            Files.createDirectories(directory);
+            Files.copy(content, inputFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        JobParameters parameters = new JobParametersBuilder()
+                .addString(TransferImportJobConfig.INPUT_FILE, inputFile.toString())
+                .addString(TransferImportJobConfig.RESULT_FILE, resultFile.toString())
+                .addString(TransferImportJobConfig.FORMAT, format.name())
+                .toJobParameters();
+        try {
+            JobExecution execution = jobLauncher.run(transferImportJob, parameters);
+            log.info("Started import of {}, execution {}", inputFile, execution.getId());
+            return toDto(execution);
+        } catch (JobExecutionException e) {
+            // The input file is new, so its job instance can neither be running nor complete
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Retrieves the progress of an import.
+     *
+     * @throws ImportJobNotFoundException if no import job execution has the given ID
+     */
+    @Override
+    public ImportJobDto get(Long executionId) {
+        return toDto(findExecution(executionId));
+    }
+
+    /**
+     * Retrieves the result file of an import, one JSON object per imported line. It only holds the lines of the
+     * chunks committed so far.
+     *
+     * @throws ImportJobNotFoundException if no import job execution has the given ID, or if it has no results yet
+     */
+    @Override
+    public Path getResults(Long executionId) {
+        Path resultFile = Path.of(findExecution(executionId).getJobParameters()
+                                          .getString(TransferImportJobConfig.RESULT_FILE));
+        if (!Files.exists(resultFile)) {
+            throw new ImportJobNotFoundException(executionId);
+        }
+        return resultFile;
+    }
+
+    private JobExecution findExecution(Long executionId) {
+        return Optional.ofNullable(jobExplorer.getJobExecution(executionId))
+                .filter(execution -> TransferImportJobConfig.JOB_NAME.equals(execution.getJobInstance()
+                                                                                     .getJobName()))
+                .orElseThrow(() -> new ImportJobNotFoundException(executionId));
+    }
+
+    private static ImportJobDto toDto(JobExecution execution) {
+        Optional<StepExecution> step = execution.getStepExecutions()
+                .stream()
+                .findFirst();
+        ExecutionContext context = step.map(StepExecution::getExecutionContext)
+                .orElseGet(ExecutionContext::new);
+        return ImportJobDto.builder()
+                .executionId(execution.getId())
+                .status(execution.getStatus()
+                                .name())
+                .read(step.map(StepExecution::getReadCount)
+                              .orElse(0L))
+                .applied(context.getLong(TransferImportJobConfig.APPLIED, 0))
+                .failed(context.getLong(TransferImportJobConfig.FAILED, 0))
+                .startTime(execution.getStartTime())
+                .endTime(execution.getEndTime())
+                .build();
+    }
+}
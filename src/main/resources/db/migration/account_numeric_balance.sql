@@ -0,0 +1,13 @@
+-- Moves account balances from the legacy "amount|currency" VARCHAR column to native columns.
+-- Run once against databases created before Account was mapped with MonetaryAmountType;
+-- the in-memory database is created with the new columns and does not need it.
+ALTER TABLE account ADD COLUMN balance DECIMAL(38, 10);
+ALTER TABLE account ADD COLUMN currency CHAR(3);
+
+UPDATE account
+SET balance  = CAST(SUBSTRING(money, 1, LOCATE('|', money) - 1) AS DECIMAL(38, 10)),
+    currency = SUBSTRING(money, LOCATE('|', money) + 1, 3);
+
+ALTER TABLE account ALTER COLUMN balance SET NOT NULL;
+ALTER TABLE account ALTER COLUMN currency SET NOT NULL;
+ALTER TABLE account DROP COLUMN money;
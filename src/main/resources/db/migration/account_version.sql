@@ -0,0 +1,4 @@
+-- Adds the optimistic locking version of accounts.
+-- Run once against databases created before Account had a @Version attribute;
+-- the in-memory database is created with the new column and does not need it.
+ALTER TABLE account ADD COLUMN version BIGINT DEFAULT 0 NOT NULL;
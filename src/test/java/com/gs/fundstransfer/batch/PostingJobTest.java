@@ -0,0 +1,200 @@
+package com.gs.fundstransfer.batch;
+
+import com.gs.fundstransfer.dto.LedgerEntryDto;
+import com.gs.fundstransfer.dto.PostingJobDto;
+import com.gs.fundstransfer.exceptions.PostingJobException;
+import com.gs.fundstransfer.model.AccountIdGenerator;
+import com.gs.fundstransfer.model.EntryType;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.PostingRequest;
+import com.gs.fundstransfer.request.PostingType;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.PostingService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobInstanceAlreadyCompleteException;
+import org.springframework.batch.item.Chunk;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:postings", "postings.chunk-size=2",
+        "postings.partitions=2"})
+public class PostingJobTest {
+
+    @Autowired
+    private JobLauncher jobLauncher;
+
+    @Autowired
+    private Job postingJob;
+
+    @Autowired
+    private PostingService postingService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private SplitAccountService splitAccountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void interest_is_posted_once_per_business_date() throws Exception {
+        Long usdAccount = openAccount("USD", new BigDecimal("100"));
+        Long jpyAccount = openAccount("JPY", new BigDecimal("1000"));
+        Long emptyAccount = openAccount("USD", BigDecimal.ZERO);
+        // Cached before the postings
+        assertBalance(usdAccount, new BigDecimal("100"));
+
+        JobParameters parameters = parameters(PostingType.INTEREST, "0.0155", LocalDate.of(2024, 1, 31));
+        assertEquals(BatchStatus.COMPLETED, jobLauncher.run(postingJob, parameters)
+                .getStatus());
+
+        assertBalance(usdAccount, new BigDecimal("101.55"));
+        // 15.5 yen rounded half even
+        assertBalance(jpyAccount, new BigDecimal("1016"));
+        assertBalance(emptyAccount, BigDecimal.ZERO);
+        LedgerEntryDto entry = ledgerService.getEntries(usdAccount, null, 1)
+                .getEntries()
+                .getFirst();
+        assertEquals(EntryType.CREDIT, entry.getType());
+        assertEquals(0, new BigDecimal("1.55").compareTo(entry.getAmount()));
+        assertThrows(JobInstanceAlreadyCompleteException.class, () -> jobLauncher.run(postingJob, parameters));
+    }
+
+    @Test
+    void fees_skip_accounts_which_cannot_pay() throws Exception {
+        Long richAccount = openAccount("EUR", new BigDecimal("10"));
+        Long poorAccount = openAccount("EUR", new BigDecimal("2"));
+
+        JobParameters parameters = parameters(PostingType.FEE, "2.5", LocalDate.of(2024, 1, 31));
+        assertEquals(BatchStatus.COMPLETED, jobLauncher.run(postingJob, parameters)
+                .getStatus());
+
+        assertBalance(richAccount, new BigDecimal("7.5"));
+        assertBalance(poorAccount, new BigDecimal("2"));
+        assertEquals(EntryType.DEBIT, ledgerService.getEntries(richAccount, null, 1)
+                .getEntries()
+                .getFirst()
+                .getType());
+    }
+
+    @Test
+    void fees_sweep_the_slots_of_split_accounts() throws Exception {
+        Long splitAccount = openAccount("CHF", BigDecimal.ONE);
+        splitAccountService.split(splitAccount, 4);
+        // Credited to the slots, the row alone does not cover the fee
+        transactionService.deposit(new OrderRequest(splitAccount, new BigDecimal("9"), "CHF"));
+
+        PostingJobDto execution = await(postingService.start(
+                new PostingRequest(PostingType.FEE, new BigDecimal("2.5"), LocalDate.of(2024, 3, 31))));
+
+        assertEquals(BatchStatus.COMPLETED.name(), execution.getStatus());
+        assertEquals(0, execution.getUncoveredFees());
+        assertBalance(splitAccount, new BigDecimal("7.5"));
+        assertEquals(EntryType.DEBIT, ledgerService.getEntries(splitAccount, null, 1)
+                .getEntries()
+                .getFirst()
+                .getType());
+    }
+
+    @Test
+    void failed_postings_resume_after_the_last_committed_chunk() throws Exception {
+        List<Long> accounts = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accounts.add(openAccount("GBP", new BigDecimal("100")));
+        }
+        // An account the processor cannot handle fails its partition in the middle of the range
+        long brokenAccount = accounts.getLast() + 1;
+        jdbcTemplate.update("insert into account (owner_id, balance, currency, version) values (?, 100, 'ZZZ', 0)",
+                            brokenAccount);
+        AccountIdGenerator.advancePast(brokenAccount);
+        for (int i = 0; i < 5; i++) {
+            accounts.add(openAccount("GBP", new BigDecimal("100")));
+        }
+        PostingRequest request = new PostingRequest(PostingType.INTEREST, new BigDecimal("0.01"),
+                                                    LocalDate.of(2024, 2, 29));
+
+        assertEquals(BatchStatus.FAILED.name(), await(postingService.start(request)).getStatus());
+        jdbcTemplate.update("update account set currency = 'GBP' where owner_id = ?", brokenAccount);
+        accounts.add(brokenAccount);
+
+        request.setAmount(new BigDecimal("0.02"));
+        assertThrows(PostingJobException.class, () -> postingService.start(request));
+        request.setAmount(new BigDecimal("0.010"));
+        assertEquals(BatchStatus.COMPLETED.name(), await(postingService.start(request)).getStatus());
+        accounts.forEach(account -> assertBalance(account, new BigDecimal("101")));
+        assertThrows(PostingJobException.class, () -> postingService.start(request));
+    }
+
+    private PostingJobDto await(PostingJobDto execution) throws InterruptedException {
+        PostingJobDto current = postingService.get(execution.getExecutionId());
+        while (current.getEndTime() == null) {
+            Thread.sleep(20);
+            current = postingService.get(execution.getExecutionId());
+        }
+        return current;
+    }
+
+    private static JobParameters parameters(PostingType type, String amount, LocalDate businessDate) {
+        return new JobParametersBuilder()
+                .addString(PostingJobConfig.TYPE, type.name())
+                .addLocalDate(PostingJobConfig.BUSINESS_DATE, businessDate)
+                .addString(PostingJobConfig.AMOUNT, amount, false)
+                .toJobParameters();
+    }
+
+    private void assertBalance(Long accountId, BigDecimal expected) {
+        assertEquals(0, expected.compareTo(accountService.get(accountId)
+                                                   .getBalance()), "balance of " + accountId);
+    }
+
+    private Long openAccount(String currency, BigDecimal balance) {
+        Long account = accountService.save(new CreateAccountRequest(currency))
+                .getOwnerId();
+        if (balance.signum() > 0) {
+            transactionService.deposit(new OrderRequest(account, balance, currency));
+        }
+        return account;
+    }
+
+    @Test
+    void fees_are_not_booked_without_update_counts() {
+        JdbcTemplate batchRewriting = mock(JdbcTemplate.class);
+        when(batchRewriting.batchUpdate(anyString(), anyList())).thenReturn(new int[]{Statement.SUCCESS_NO_INFO});
+        LedgerService ledger = mock(LedgerService.class);
+        PostingWriter writer = new PostingWriter(PostingType.FEE, batchRewriting, mock(SplitAccountService.class),
+                                                 ledger);
+
+        assertThrows(IllegalStateException.class,
+                     () -> writer.write(Chunk.of(new Posting(1L, BigDecimal.ONE, "USD"))));
+        verifyNoInteractions(ledger);
+    }
+}
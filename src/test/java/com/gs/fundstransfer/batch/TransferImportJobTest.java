@@ -0,0 +1,145 @@
+package com.gs.fundstransfer.batch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.dto.BatchItemStatus;
+import com.gs.fundstransfer.dto.ImportJobDto;
+import com.gs.fundstransfer.exceptions.ImportJobNotFoundException;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.ImportFormat;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import com.gs.fundstransfer.services.TransferImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:imports", "imports.chunk-size=2",
+        "imports.directory=target/imports"})
+public class TransferImportJobTest {
+
+    @Autowired
+    private TransferImportService transferImportService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void csv_lines_are_applied_in_order_and_each_gets_a_result() throws Exception {
+        Long alice = openAccount("USD", new BigDecimal("100"));
+        Long bob = openAccount("USD", BigDecimal.ZERO);
+        String file = String.join("\n",
+                                  "debitAccountId,creditAccountId,amount,currency",
+                                  alice + "," + bob + ",60,USD",
+                                  // Only funded by the previous line, in the same chunk
+                                  bob + "," + alice + ",10,USD",
+                                  alice + "," + bob + ",,USD",
+                                  "",
+                                  alice + "," + bob + ",100,USD",
+                                  alice + "," + bob + ",1",
+                                  "x," + bob + ",1,USD",
+                                  bob + "," + alice + ",50,USD");
+
+        ImportJobDto execution = await(transferImportService.start(stream(file), ImportFormat.CSV));
+
+        assertEquals(BatchStatus.COMPLETED.name(), execution.getStatus());
+        assertEquals(3, execution.getApplied());
+        assertEquals(4, execution.getFailed());
+        assertBalance(alice, new BigDecimal("100"));
+        assertBalance(bob, BigDecimal.ZERO);
+        List<ImportResult> results = results(execution);
+        assertEquals(List.of(2, 3, 4, 6, 7, 8, 9), results.stream()
+                .map(ImportResult::line)
+                .toList());
+        assertEquals(List.of(BatchItemStatus.APPLIED, BatchItemStatus.APPLIED, BatchItemStatus.FAILED,
+                             BatchItemStatus.FAILED, BatchItemStatus.FAILED, BatchItemStatus.FAILED,
+                             BatchItemStatus.APPLIED), results.stream()
+                             .map(ImportResult::status)
+                             .toList());
+        assertEquals("amount must not be null", results.get(2)
+                .error());
+        assertNull(results.getFirst()
+                           .error());
+    }
+
+    @Test
+    void ndjson_lines_are_validated_like_transfer_requests() throws Exception {
+        Long alice = openAccount("EUR", new BigDecimal("10"));
+        Long bob = openAccount("EUR", BigDecimal.ZERO);
+        String file = String.join("\n",
+                                  "{\"debitAccountId\": " + alice + ", \"creditAccountId\": " + bob
+                                          + ", \"amount\": 2.5, \"currency\": \"EUR\"}",
+                                  "{\"debitAccountId\": " + alice + "}",
+                                  "not json");
+
+        ImportJobDto execution = await(transferImportService.start(stream(file), ImportFormat.NDJSON));
+
+        assertEquals(1, execution.getApplied());
+        assertEquals(2, execution.getFailed());
+        assertBalance(bob, new BigDecimal("2.5"));
+        List<ImportResult> results = results(execution);
+        assertEquals("amount must not be null, creditAccountId must not be null, currency must not be null",
+                     results.get(1)
+                             .error());
+        assertTrue(results.get(2)
+                           .error()
+                           .startsWith("Invalid JSON"));
+    }
+
+    @Test
+    void unknown_executions_are_not_found() {
+        assertThrows(ImportJobNotFoundException.class, () -> transferImportService.get(Long.MAX_VALUE));
+    }
+
+    private ImportJobDto await(ImportJobDto execution) throws InterruptedException {
+        ImportJobDto current = transferImportService.get(execution.getExecutionId());
+        while (current.getEndTime() == null) {
+            Thread.sleep(20);
+            current = transferImportService.get(execution.getExecutionId());
+        }
+        return current;
+    }
+
+    private List<ImportResult> results(ImportJobDto execution) throws IOException {
+        List<ImportResult> results = new ArrayList<>();
+        for (String line : Files.readAllLines(transferImportService.getResults(execution.getExecutionId()))) {
+            results.add(objectMapper.readValue(line, ImportResult.class));
+        }
+        return results;
+    }
+
+    private static ByteArrayInputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void assertBalance(Long accountId, BigDecimal expected) {
+        assertEquals(0, expected.compareTo(accountService.get(accountId)
+                                                   .getBalance()), "balance of " + accountId);
+    }
+
+    private Long openAccount(String currency, BigDecimal balance) {
+        Long account = accountService.save(new CreateAccountRequest(currency))
+                .getOwnerId();
+        if (balance.signum() > 0) {
+            transactionService.deposit(new OrderRequest(account, balance, currency));
+        }
+        return account;
+    }
+}
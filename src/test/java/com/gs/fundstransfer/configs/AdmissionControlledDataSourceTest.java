@@ -0,0 +1,63 @@
+package com.gs.fundstransfer.configs;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AdmissionControlledDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+
+    @Test
+    void permit_is_held_until_the_connection_is_closed() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(pool, 1, Duration.ofSeconds(5));
+
+        Connection first = dataSource.getConnection();
+        CompletableFuture<Connection> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (dataSource.getWaiting() == 0) {
+            Thread.onSpinWait();
+        }
+        assertFalse(second.isDone());
+
+        first.close();
+        first.close();
+        second.get(5, TimeUnit.SECONDS)
+                .close();
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void waiting_longer_than_the_timeout_fails() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(pool, 1, Duration.ofMillis(50));
+
+        try (Connection ignored = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+    }
+
+    @Test
+    void permit_is_released_when_the_pool_fails() throws Exception {
+        when(pool.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        AdmissionControlledDataSource dataSource = new AdmissionControlledDataSource(pool, 1, Duration.ofSeconds(5));
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+}
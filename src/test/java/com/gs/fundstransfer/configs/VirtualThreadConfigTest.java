@@ -0,0 +1,42 @@
+package com.gs.fundstransfer.configs;
+
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:virtual", "spring.threads.virtual.enabled=true",
+        "datasource.admission.enabled=true", "datasource.admission.permits=4"})
+public class VirtualThreadConfigTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Test
+    void connections_go_through_the_admission_limiter() {
+        AdmissionControlledDataSource admission = assertInstanceOf(AdmissionControlledDataSource.class, dataSource);
+
+        Long account = accountService.save(new CreateAccountRequest("USD"))
+                .getOwnerId();
+        transactionService.deposit(new OrderRequest(account, BigDecimal.TEN, "USD"));
+
+        assertEquals(0, BigDecimal.TEN.compareTo(accountService.get(account)
+                                                         .getBalance()));
+        assertEquals(4, admission.getAvailablePermits());
+    }
+}
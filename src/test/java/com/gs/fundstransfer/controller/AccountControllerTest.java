@@ -2,9 +2,16 @@ package com.gs.fundstransfer.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.AccountPageDto;
+import com.gs.fundstransfer.dto.LedgerEntryDto;
+import com.gs.fundstransfer.dto.LedgerPageDto;
 import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.InvalidSplitException;
 import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.model.EntryType;
 import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockitoAnnotations;
@@ -15,18 +22,26 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -39,6 +54,12 @@ public class AccountControllerTest {
     @MockBean
     private AccountService accountService;
 
+    @MockBean
+    private LedgerService ledgerService;
+
+    @MockBean
+    private SplitAccountService splitAccountService;
+
     private ObjectMapper objectMapper;
 
     @Value("${url}")
@@ -130,27 +151,123 @@ public class AccountControllerTest {
         accountDto2.setOwnerId(1000000001L);
         accountDto2.setBalance(BigDecimal.ZERO);
 
-        when(accountService.getAll()).thenReturn(List.of(accountDto1, accountDto2));
+        when(accountService.getPage(null, 100)).thenReturn(AccountPageDto.builder()
+                                                                   .accounts(List.of(accountDto1, accountDto2))
+                                                                   .nextAfter(1000000001L)
+                                                                   .build());
 
         mockMvc.perform(get(baseUrl + "/accounts").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$[0].ownerId").value(accountDto1.getOwnerId()))
-                .andExpect(jsonPath("$[0].currency").value(accountDto1.getCurrency()))
-                .andExpect(jsonPath("$[0].balance").value(accountDto1.getBalance()))
-                .andExpect(jsonPath("$[1].ownerId").value(accountDto2.getOwnerId()))
-                .andExpect(jsonPath("$[1].currency").value(accountDto2.getCurrency()))
-                .andExpect(jsonPath("$[1].balance").value(accountDto2.getBalance()));
+                .andExpect(jsonPath("$.accounts").isArray())
+                .andExpect(jsonPath("$.accounts[0].ownerId").value(accountDto1.getOwnerId()))
+                .andExpect(jsonPath("$.accounts[0].currency").value(accountDto1.getCurrency()))
+                .andExpect(jsonPath("$.accounts[0].balance").value(accountDto1.getBalance()))
+                .andExpect(jsonPath("$.accounts[1].ownerId").value(accountDto2.getOwnerId()))
+                .andExpect(jsonPath("$.accounts[1].currency").value(accountDto2.getCurrency()))
+                .andExpect(jsonPath("$.accounts[1].balance").value(accountDto2.getBalance()))
+                .andExpect(jsonPath("$.nextAfter").value(1000000001L));
 
     }
 
     @Test
     void testGetAllAccounts_emptyList() throws Exception {
-        when(accountService.getAll()).thenReturn(Collections.emptyList());
+        when(accountService.getPage(1000000001L, 10)).thenReturn(AccountPageDto.builder()
+                                                                         .accounts(Collections.emptyList())
+                                                                         .build());
 
-        mockMvc.perform(get(baseUrl + "/accounts").contentType(MediaType.APPLICATION_JSON))
+        mockMvc.perform(get(baseUrl + "/accounts").param("after", "1000000001")
+                                .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts").isArray())
+                .andExpect(jsonPath("$.accounts").isEmpty())
+                .andExpect(jsonPath("$.nextAfter").doesNotExist());
+    }
+
+    @Test
+    void testStreamAllAccounts_writesOneAccountPerLine() throws Exception {
+        AccountDto accountDto1 = AccountDto.builder()
+                .ownerId(1000000000L)
+                .currency("EUR")
+                .balance(BigDecimal.ONE)
+                .build();
+        AccountDto accountDto2 = AccountDto.builder()
+                .ownerId(1000000001L)
+                .currency("USD")
+                .balance(BigDecimal.TEN)
+                .build();
+        doAnswer(invocation -> {
+            Consumer<AccountDto> consumer = invocation.getArgument(0);
+            consumer.accept(accountDto1);
+            consumer.accept(accountDto2);
+            return null;
+        }).when(accountService).streamAll(any());
+
+        MvcResult result = mockMvc.perform(get(baseUrl + "/accounts").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(accountDto1) + "\n"
+                                                    + objectMapper.writeValueAsString(accountDto2) + "\n"));
+    }
+
+    @Test
+    void testGetEntries_success() throws Exception {
+        Long accountId = 1000000000L;
+        LedgerEntryDto entry = LedgerEntryDto.builder()
+                .id(42L)
+                .transactionId(41L)
+                .accountId(accountId)
+                .type(EntryType.CREDIT)
+                .amount(BigDecimal.TEN)
+                .currency("EUR")
+                .rate(BigDecimal.ONE)
+                .build();
+        when(ledgerService.getEntries(accountId, 100L, 1)).thenReturn(new LedgerPageDto(List.of(entry), 42L));
+
+        mockMvc.perform(get(baseUrl + "/accounts/{id}/entries", accountId).param("before", "100")
+                                .param("limit", "1"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$").isArray())
-                .andExpect(jsonPath("$").isEmpty());
+                .andExpect(jsonPath("$.entries[0].id").value(42L))
+                .andExpect(jsonPath("$.entries[0].type").value("CREDIT"))
+                .andExpect(jsonPath("$.entries[0].amount").value(BigDecimal.TEN))
+                .andExpect(jsonPath("$.nextBefore").value(42L));
+    }
+
+    @Test
+    void testGetEntries_notFound() throws Exception {
+        Long accountId = 1000000000L;
+        when(ledgerService.getEntries(accountId, null, 50)).thenThrow(new AccountNotFoundException(accountId));
+
+        mockMvc.perform(get(baseUrl + "/accounts/{id}/entries", accountId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testSplitAccount_success() throws Exception {
+        Long accountId = 1000000000L;
+        AccountDto accountDto = new AccountDto();
+        accountDto.setCurrency("EUR");
+        accountDto.setBalance(BigDecimal.TEN);
+        accountDto.setOwnerId(accountId);
+        when(accountService.get(accountId)).thenReturn(accountDto);
+
+        mockMvc.perform(post(baseUrl + "/accounts/{id}/split", accountId).param("slots", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ownerId").value(accountId))
+                .andExpect(jsonPath("$.balance").value(BigDecimal.TEN));
+        verify(splitAccountService).split(accountId, 8);
+    }
+
+    @Test
+    void testSplitAccount_invalidSlots() throws Exception {
+        Long accountId = 1000000000L;
+        doThrow(new InvalidSplitException("The number of slots must be between 2 and 64")).when(splitAccountService)
+                .split(accountId, 1);
+
+        mockMvc.perform(post(baseUrl + "/accounts/{id}/split", accountId).param("slots", "1"))
+                .andExpect(status().isBadRequest());
     }
 }
@@ -1,11 +1,20 @@
 package com.gs.fundstransfer.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.dto.BatchItemStatus;
+import com.gs.fundstransfer.dto.BatchTransferDto;
+import com.gs.fundstransfer.dto.BatchTransferItemDto;
 import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.exceptions.BatchTransferException;
 import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.request.BatchMode;
+import com.gs.fundstransfer.request.BatchTransferRequest;
 import com.gs.fundstransfer.request.OrderRequest;
 import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.model.OperationType;
 import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.IdempotencyService;
 import com.gs.fundstransfer.services.TransactionService;
 import org.javamoney.moneta.Money;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,13 +27,22 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -40,6 +58,9 @@ public class TransactionControllerTest {
     @MockBean
     private TransactionService transactionService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     private ObjectMapper objectMapper;
 
     @Value("${url}")
@@ -69,7 +90,7 @@ public class TransactionControllerTest {
         expectedTransferDto.setCreditAccountId(creditAccountId);
         expectedTransferDto.setRate(BigDecimal.ONE);
 
-        when(transactionService.transfer(any(TransferRequest.class))).thenReturn(expectedTransferDto);
+        when(transactionService.transfer(any(TransferRequest.class), isNull())).thenReturn(expectedTransferDto);
 
         // Act & Assert
         mockMvc.perform(post(baseUrl + "/transactions/transfer").contentType(MediaType.APPLICATION_JSON)
@@ -103,7 +124,7 @@ public class TransactionControllerTest {
 
         TransferRequest transferRequest = new TransferRequest(debitAccountId, creditAccountId, amount, currency);
 
-        when(transactionService.transfer(any(TransferRequest.class))).thenThrow(new NotSupportedCurrencyException(
+        when(transactionService.transfer(any(TransferRequest.class), isNull())).thenThrow(new NotSupportedCurrencyException(
                 "Not supported currency"));
 
         // Act & Assert
@@ -124,7 +145,7 @@ public class TransactionControllerTest {
         transferDto.setDebitedAmount(Money.of(BigDecimal.valueOf(50), "EUR"));
         transferDto.setRate(BigDecimal.ONE);
 
-        when(transactionService.withdraw(any(OrderRequest.class))).thenReturn(transferDto);
+        when(transactionService.withdraw(any(OrderRequest.class), isNull())).thenReturn(transferDto);
 
         mockMvc.perform(post(baseUrl + "/transactions/withdraw").contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(orderRequest)))
@@ -151,7 +172,7 @@ public class TransactionControllerTest {
         transferDto.setCreditedAmount(Money.of(BigDecimal.valueOf(200), "EUR"));
         transferDto.setRate(BigDecimal.ONE);
 
-        when(transactionService.deposit(any(OrderRequest.class))).thenReturn(transferDto);
+        when(transactionService.deposit(any(OrderRequest.class), isNull())).thenReturn(transferDto);
 
         mockMvc.perform(post(baseUrl + "/transactions/deposit").contentType(MediaType.APPLICATION_JSON)
                                 .content(objectMapper.writeValueAsString(orderRequest)))
@@ -165,4 +186,138 @@ public class TransactionControllerTest {
                                                                              .doubleValue()))
                 .andExpect(jsonPath("$.rate").value(transferDto.getRate()));
     }
+
+    @Test
+    void testTransferBatch_Successful() throws Exception {
+        TransferRequest transferRequest = new TransferRequest(1000000000L, 1000000001L, BigDecimal.TEN, "EUR");
+        BatchTransferRequest batchRequest = new BatchTransferRequest(List.of(transferRequest), BatchMode.BEST_EFFORT);
+
+        BatchTransferDto batchTransferDto = BatchTransferDto.of(List.of(BatchTransferItemDto.builder()
+                                                                                .index(0)
+                                                                                .status(BatchItemStatus.FAILED)
+                                                                                .error("InsufficientFunds")
+                                                                                .build()));
+        when(transactionService.transferBatch(any(BatchTransferRequest.class))).thenReturn(batchTransferDto);
+
+        mockMvc.perform(post(baseUrl + "/transactions/transfers:batch").contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(0))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[0].error").value("InsufficientFunds"));
+    }
+
+    @Test
+    void testTransferBatch_rolledBack() throws Exception {
+        TransferRequest transferRequest = new TransferRequest(1000000000L, 1000000001L, BigDecimal.TEN, "EUR");
+        BatchTransferRequest batchRequest = new BatchTransferRequest(List.of(transferRequest), BatchMode.ALL_OR_NOTHING);
+
+        when(transactionService.transferBatch(any(BatchTransferRequest.class))).thenThrow(
+                new BatchTransferException(BatchTransferDto.of(List.of(BatchTransferItemDto.builder()
+                                                                               .index(0)
+                                                                               .status(BatchItemStatus.FAILED)
+                                                                               .build()))));
+
+        mockMvc.perform(post(baseUrl + "/transactions/transfers:batch").contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.results[0].status").value("FAILED"));
+    }
+
+    @Test
+    void testTransferBatch_invalidRequest() throws Exception {
+        BatchTransferRequest batchRequest = new BatchTransferRequest(List.of(new TransferRequest()), BatchMode.BEST_EFFORT);
+
+        mockMvc.perform(post(baseUrl + "/transactions/transfers:batch").contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(batchRequest)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testDeposit_sameIdempotencyKey_isAppliedOnce() throws Exception {
+        OrderRequest orderRequest = new OrderRequest(1000000000L, BigDecimal.TEN, "USD");
+        TransferDto transferDto = TransferDto.builder()
+                .creditAccountId(1000000000L)
+                .creditedAmount(Money.of(BigDecimal.TEN, "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+        when(transactionService.deposit(any(OrderRequest.class), eq("deposit-key-1"))).thenAnswer(invocation -> {
+            idempotencyService.record("deposit-key-1", OperationType.DEPOSIT, invocation.getArgument(0), transferDto);
+            return transferDto;
+        });
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post(baseUrl + "/transactions/deposit").header("Idempotency-Key", "deposit-key-1")
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.creditAccountId").value(1000000000L))
+                    .andExpect(jsonPath("$.creditedAmount.currency").value("USD"));
+        }
+        verify(transactionService, times(1)).deposit(any(OrderRequest.class), eq("deposit-key-1"));
+    }
+
+    @Test
+    void testDeposit_idempotencyKeyReusedForAnotherRequest_unprocessable() throws Exception {
+        TransferDto transferDto = TransferDto.builder()
+                .creditAccountId(1000000000L)
+                .creditedAmount(Money.of(BigDecimal.TEN, "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+        when(transactionService.deposit(any(OrderRequest.class), eq("deposit-key-2"))).thenAnswer(invocation -> {
+            idempotencyService.record("deposit-key-2", OperationType.DEPOSIT, invocation.getArgument(0), transferDto);
+            return transferDto;
+        });
+
+        mockMvc.perform(post(baseUrl + "/transactions/deposit").header("Idempotency-Key", "deposit-key-2")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(
+                                        new OrderRequest(1000000000L, BigDecimal.TEN, "USD"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post(baseUrl + "/transactions/withdraw").header("Idempotency-Key", "deposit-key-2")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(
+                                        new OrderRequest(1000000000L, BigDecimal.TEN, "USD"))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void testDepositAsync_Successful() throws Exception {
+        OrderRequest orderRequest = new OrderRequest(1000000001L, BigDecimal.valueOf(200), "EUR");
+        TransferDto transferDto = TransferDto.builder()
+                .creditAccountId(1000000001L)
+                .creditedAmount(Money.of(BigDecimal.valueOf(200), "EUR"))
+                .rate(BigDecimal.ONE)
+                .build();
+        CompletableFuture<TransferDto> result = new CompletableFuture<>();
+        when(transactionService.depositAsync(any(OrderRequest.class), isNull())).thenReturn(result);
+
+        MvcResult pending = mockMvc.perform(post(baseUrl + "/transactions/deposit:async").contentType(MediaType.APPLICATION_JSON)
+                                                    .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.complete(transferDto);
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.creditAccountId").value(transferDto.getCreditAccountId()))
+                .andExpect(jsonPath("$.creditedAmount.amount").value(200));
+    }
+
+    @Test
+    void testWithdrawAsync_failureIsHandledLikeTheSynchronousOne() throws Exception {
+        OrderRequest orderRequest = new OrderRequest(1000000001L, BigDecimal.valueOf(200), "EUR");
+        when(transactionService.withdrawAsync(any(OrderRequest.class), isNull())).thenReturn(
+                CompletableFuture.failedFuture(new UnsufficientFundsException("InsufficientFunds")));
+
+        MvcResult pending = mockMvc.perform(post(baseUrl + "/transactions/withdraw:async").contentType(MediaType.APPLICATION_JSON)
+                                                    .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(pending))
+                .andExpect(status().isBadRequest());
+    }
 }
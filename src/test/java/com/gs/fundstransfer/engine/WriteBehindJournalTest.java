@@ -0,0 +1,73 @@
+package com.gs.fundstransfer.engine;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.LedgerService;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:writebehind", "transactions.engine=sharded",
+        "transactions.engine.flush-interval=1h", "transactions.engine.flush-max-attempts=2"})
+public class WriteBehindJournalTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private WriteBehindJournal journal;
+
+    @Test
+    void a_rejected_movement_does_not_hold_back_the_others() {
+        Long account = accountService.save(new CreateAccountRequest("USD"))
+                .getOwnerId();
+        List<CompletableFuture<Void>> flushed = new ArrayList<>();
+        flushed.add(journal.append(deposit(account), "key-1", OperationType.DEPOSIT, order(account)));
+        // Longer than the idempotency_record key column
+        CompletableFuture<Void> rejected = journal.append(deposit(account), "k".repeat(300), OperationType.DEPOSIT,
+                                                          order(account));
+        flushed.add(journal.append(deposit(account), "key-2", OperationType.DEPOSIT, order(account)));
+        flushed.add(journal.append(deposit(account), null, null, null));
+
+        journal.flush();
+
+        flushed.forEach(future -> assertTrue(future.isDone() && !future.isCompletedExceptionally()));
+        assertFalse(rejected.isDone());
+        assertEquals(3, ledgerService.getEntries(account, null, 10)
+                .getEntries()
+                .size());
+
+        journal.flush();
+
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(3, ledgerService.getEntries(account, null, 10)
+                .getEntries()
+                .size());
+    }
+
+    private static TransferDto deposit(Long account) {
+        return TransferDto.builder()
+                .creditAccountId(account)
+                .creditedAmount(Money.of(BigDecimal.ONE, "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+    }
+
+    private static OrderRequest order(Long account) {
+        return new OrderRequest(account, BigDecimal.ONE, "USD");
+    }
+}
@@ -0,0 +1,94 @@
+package com.gs.fundstransfer.journal;
+
+import com.gs.fundstransfer.FundsTransferApplication;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.IdempotencyService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class BalanceJournalRecorderTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void balances_survive_a_restart() {
+        Long usdAccount;
+        Long eurAccount;
+        try (ConfigurableApplicationContext context = start("journal-before")) {
+            AccountService accountService = context.getBean(AccountService.class);
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            usdAccount = accountService.save(new CreateAccountRequest("USD"))
+                    .getOwnerId();
+            eurAccount = accountService.save(new CreateAccountRequest("EUR"))
+                    .getOwnerId();
+            transactionService.deposit(new OrderRequest(usdAccount, new BigDecimal("100"), "USD"));
+            transactionService.withdraw(new OrderRequest(usdAccount, new BigDecimal("30"), "USD"));
+            transactionService.transfer(new TransferRequest(usdAccount, eurAccount, new BigDecimal("20"), "USD"));
+        }
+
+        try (ConfigurableApplicationContext context = start("journal-after")) {
+            AccountService accountService = context.getBean(AccountService.class);
+            assertEquals(0, new BigDecimal("50").compareTo(accountService.get(usdAccount)
+                                                                   .getBalance()));
+            assertEquals(1, accountService.get(eurAccount)
+                    .getBalance()
+                    .signum());
+            // New accounts do not reuse restored IDs
+            Long newAccount = accountService.save(new CreateAccountRequest("USD"))
+                    .getOwnerId();
+            assertNotEquals(usdAccount, newAccount);
+            assertNotEquals(eurAccount, newAccount);
+        }
+    }
+
+    @Test
+    void idempotency_keys_survive_a_restart() {
+        OrderRequest request;
+        TransferDto applied;
+        try (ConfigurableApplicationContext context = start("journal-keys-before")) {
+            TransactionService transactionService = context.getBean(TransactionService.class);
+            Long account = context.getBean(AccountService.class)
+                    .save(new CreateAccountRequest("USD"))
+                    .getOwnerId();
+            request = new OrderRequest(account, new BigDecimal("100"), "USD");
+            applied = context.getBean(IdempotencyService.class)
+                    .execute("key-1", OperationType.DEPOSIT, request,
+                             () -> transactionService.deposit(request, "key-1"));
+        }
+
+        try (ConfigurableApplicationContext context = start("journal-keys-after")) {
+            TransferDto replayed = context.getBean(IdempotencyService.class)
+                    .execute("key-1", OperationType.DEPOSIT, request, () -> fail("must not run"));
+            assertEquals(applied.getCreditAccountId(), replayed.getCreditAccountId());
+            assertEquals(applied.getCreditedAmount(), replayed.getCreditedAmount());
+            assertEquals(0, new BigDecimal("100").compareTo(context.getBean(AccountService.class)
+                                                                    .get(request.getAccountId())
+                                                                    .getBalance()));
+        }
+    }
+
+    private ConfigurableApplicationContext start(String database) {
+        return new SpringApplicationBuilder(FundsTransferApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:" + database, "journal.enabled=true",
+                            "journal.directory=" + directory, "journal.segment-size=1MB")
+                .run();
+    }
+}
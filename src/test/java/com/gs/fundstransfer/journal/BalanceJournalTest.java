@@ -0,0 +1,138 @@
+package com.gs.fundstransfer.journal;
+
+import com.gs.fundstransfer.dto.TransferDto;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BalanceJournalTest {
+
+    private static final Duration SYNC_INTERVAL = Duration.ofMillis(1);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void replays_appended_records_in_order() {
+        try (BalanceJournal journal = BalanceJournal.open(directory, 1 << 16, SYNC_INTERVAL, 16, new Recorder())) {
+            journal.appendAccountOpened(1000000000L, "USD");
+            journal.appendAccountOpened(1000000001L, "EUR");
+            journal.appendMovement(deposit(1000000000L, "100.25"));
+            journal.appendMovement(TransferDto.builder()
+                                           .debitAccountId(1000000000L)
+                                           .creditAccountId(1000000001L)
+                                           .debitedAmount(Money.of(new BigDecimal("10"), "USD"))
+                                           .creditedAmount(Money.of(new BigDecimal("9.2234567891"), "EUR"))
+                                           .rate(new BigDecimal("0.92234567891"))
+                                           .build())
+                    .join();
+        }
+
+        Recorder recorder = new Recorder();
+        BalanceJournal.open(directory, 1 << 16, SYNC_INTERVAL, 16, recorder)
+                .close();
+
+        assertEquals(List.of("open 1000000000 USD", "open 1000000001 EUR", "move 0 null 1000000000 100.25",
+                             "move 1000000000 10 1000000001 9.2234567891"), recorder.records);
+    }
+
+    @Test
+    void rolls_over_to_new_segments_when_full() throws IOException {
+        try (BalanceJournal journal = BalanceJournal.open(directory, 1024, SYNC_INTERVAL, 16, new Recorder())) {
+            journal.appendAccountOpened(1000000000L, "USD");
+            for (int i = 0; i < 200; i++) {
+                journal.appendMovement(deposit(1000000000L, "1"));
+            }
+        }
+
+        Recorder recorder = new Recorder();
+        try (BalanceJournal journal = BalanceJournal.open(directory, 1024, SYNC_INTERVAL, 16, recorder)) {
+            journal.appendMovement(deposit(1000000000L, "2"))
+                    .join();
+        }
+        assertEquals(201, recorder.records.size());
+        try (Stream<Path> segments = Files.list(directory)) {
+            assertEquals(true, segments.count() > 1);
+        }
+
+        Recorder reopened = new Recorder();
+        BalanceJournal.open(directory, 1024, SYNC_INTERVAL, 16, reopened)
+                .close();
+        assertEquals("move 0 null 1000000000 2", reopened.records.getLast());
+    }
+
+    @Test
+    void stops_replay_at_a_torn_record_and_overwrites_it() throws IOException {
+        try (BalanceJournal journal = BalanceJournal.open(directory, 1 << 16, SYNC_INTERVAL, 16, new Recorder())) {
+            journal.appendAccountOpened(1000000000L, "USD");
+            journal.appendMovement(deposit(1000000000L, "5"));
+        }
+        // Corrupt the last byte of the deposit, as if the process died while writing it
+        Path segment = directory.resolve("journal-000000.bin");
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            int position = 0;
+            int lastRecord = 0;
+            while (true) {
+                file.seek(position);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                lastRecord = position;
+                position += 8 + length;
+            }
+            file.seek(position - 1);
+            int lastByte = file.read();
+            file.seek(position - 1);
+            file.write(~lastByte);
+            assertEquals(true, lastRecord > 0);
+        }
+
+        Recorder recorder = new Recorder();
+        try (BalanceJournal journal = BalanceJournal.open(directory, 1 << 16, SYNC_INTERVAL, 16, recorder)) {
+            journal.appendMovement(deposit(1000000000L, "7"))
+                    .join();
+        }
+        assertEquals(List.of("open 1000000000 USD"), recorder.records);
+
+        Recorder reopened = new Recorder();
+        BalanceJournal.open(directory, 1 << 16, SYNC_INTERVAL, 16, reopened)
+                .close();
+        assertEquals(List.of("open 1000000000 USD", "move 0 null 1000000000 7"), reopened.records);
+    }
+
+    private static TransferDto deposit(long accountId, String amount) {
+        return TransferDto.builder()
+                .creditAccountId(accountId)
+                .creditedAmount(Money.of(new BigDecimal(amount), "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+    }
+
+    private static final class Recorder implements BalanceJournal.Visitor {
+
+        private final List<String> records = new ArrayList<>();
+
+        @Override
+        public void accountOpened(long ownerId, String currency) {
+            records.add("open " + ownerId + " " + currency);
+        }
+
+        @Override
+        public void balanceMoved(long debitAccountId, BigDecimal debited, long creditAccountId, BigDecimal credited) {
+            records.add("move " + debitAccountId + " " + debited + " " + creditAccountId + " " + credited);
+        }
+    }
+}
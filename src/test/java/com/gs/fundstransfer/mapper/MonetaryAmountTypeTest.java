@@ -0,0 +1,37 @@
+package com.gs.fundstransfer.mapper;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MonetaryAmountTypeTest {
+
+    private final MonetaryAmountType type = new MonetaryAmountType();
+
+    @Test
+    void splits_amount_and_currency_into_columns() {
+        MonetaryAmount money = Money.of(new BigDecimal("12.34"), "EUR");
+        assertEquals(new BigDecimal("12.34"), type.getPropertyValue(money, 0));
+        assertEquals("EUR", type.getPropertyValue(money, 1));
+    }
+
+    @Test
+    void reads_columns_back_without_the_column_scale_padding() {
+        assertEquals(Money.of(new BigDecimal("100.00"), "USD"), read("100.0000000000", "USD"));
+        assertEquals(Money.of(new BigDecimal("0.125"), "USD"), read("0.1250000000", "USD"));
+        assertEquals(Money.of(new BigDecimal("1500"), "JPY"), read("1500.0000000000", "JPY"));
+    }
+
+    @Test
+    void null_columns_read_as_null() {
+        assertNull(type.instantiate(() -> new Object[]{null, null}, null));
+    }
+
+    private MonetaryAmount read(String amount, String currency) {
+        return type.instantiate(() -> new Object[]{new BigDecimal(amount), currency}, null);
+    }
+}
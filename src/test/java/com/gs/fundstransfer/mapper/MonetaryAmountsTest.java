@@ -0,0 +1,74 @@
+package com.gs.fundstransfer.mapper;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.configs.JacksonConfig;
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.model.Account;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Amounts must survive the DTO mapping and the JSON serialization digit for digit, whatever their magnitude and scale.
+ */
+public class MonetaryAmountsTest {
+
+    private static final int SAMPLES = 10_000;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final AccountMapper accountMapper = AccountMapper.INSTANCE;
+
+    @Test
+    void amounts_a_double_cannot_hold_are_mapped_exactly() throws Exception {
+        // The closest double is 12345678901234568
+        assertRoundTrip(new BigDecimal("12345678901234567.89"), "USD");
+        assertRoundTrip(new BigDecimal("0.1000000000000000055511151231257827"), "USD");
+        assertRoundTrip(new BigDecimal("99999999999999999999999999.9999999999"), "EUR");
+    }
+
+    @Test
+    void random_amounts_are_mapped_exactly() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Up to 38 significant digits and 10 fraction digits, the precision and scale of the balance column
+            BigDecimal amount = new BigDecimal(new BigInteger(1 + random.nextInt(125), random), random.nextInt(11));
+            assertRoundTrip(random.nextBoolean() ? amount : amount.negate(), random.nextBoolean() ? "USD" : "JPY");
+        }
+    }
+
+    @Test
+    void amounts_are_written_without_exponent() throws Exception {
+        TransferDto transfer = TransferDto.builder()
+                .debitedAmount(Money.of(new BigDecimal("1E+3"), "USD"))
+                .build();
+
+        assertEquals("{\"debitedAmount\":{\"amount\":1000,\"currency\":\"USD\"}}",
+                     objectMapper.writeValueAsString(transfer));
+    }
+
+    private void assertRoundTrip(BigDecimal amount, String currency) throws Exception {
+        AccountDto account = accountMapper.toDto(new Account(1L, Money.of(amount, currency)));
+        assertEquals(0, amount.compareTo(account.getBalance()), amount::toPlainString);
+        assertEquals(0, amount.compareTo(objectMapper.readTree(objectMapper.writeValueAsString(account))
+                .get("balance")
+                .decimalValue()), amount::toPlainString);
+
+        JsonNode debited = objectMapper.readTree(objectMapper.writeValueAsString(TransferDto.builder()
+                                                                                    .debitedAmount(Money.of(amount, currency))
+                                                                                    .build()))
+                .get("debitedAmount");
+        assertEquals(0, amount.compareTo(debited.get("amount")
+                                                 .decimalValue()), amount::toPlainString);
+        assertEquals(currency, debited.get("currency")
+                .asText());
+    }
+}
@@ -0,0 +1,138 @@
+package com.gs.fundstransfer.metrics;
+
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Pessimistic locking, so that every operation waits on its account row lock
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:metrics", "transactions.optimistic.enabled=false"})
+@AutoConfigureMockMvc
+public class TransactionMetricsAspectTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Value("${url}")
+    private String baseUrl;
+
+    @Test
+    void operations_are_timed_by_path_and_outcome() {
+        Long usdAccount = accountService.save(new CreateAccountRequest("USD"))
+                .getOwnerId();
+        Long eurAccount = accountService.save(new CreateAccountRequest("EUR"))
+                .getOwnerId();
+        // The other tests of this context may have loaded rows and rates already
+        long lockWaits = timerCount("accounts.lock.wait", "query", "findByIdWithLock");
+        long rateHits = timerCount("fx.rate.lookup", "result", "hit");
+
+        transactionService.deposit(new OrderRequest(usdAccount, BigDecimal.TEN, "USD"));
+        transactionService.deposit(new OrderRequest(usdAccount, BigDecimal.TEN, "EUR"));
+        transactionService.transfer(new TransferRequest(usdAccount, eurAccount, BigDecimal.ONE, "USD"));
+        assertThrows(UnsufficientFundsException.class,
+                     () -> transactionService.withdraw(new OrderRequest(eurAccount, BigDecimal.TEN, "EUR")));
+
+        assertEquals(1, operationCount("deposit", TransactionMetricsAspect.SAME_CURRENCY, "success"));
+        assertEquals(1, operationCount("deposit", TransactionMetricsAspect.FX, "success"));
+        assertEquals(1, operationCount("transfer", TransactionMetricsAspect.FX, "success"));
+        assertEquals(1, operationCount("withdraw", TransactionMetricsAspect.UNKNOWN, "UnsufficientFundsException"));
+        // The same-currency deposit is an in-place update, only the FX deposit and the failed withdrawal load a row
+        assertEquals(lockWaits + 2, timerCount("accounts.lock.wait", "query", "findByIdWithLock"));
+        assertEquals(rateHits + 2, timerCount("fx.rate.lookup", "result", "hit"));
+    }
+
+    @Test
+    void asynchronous_operations_are_timed_until_they_complete() throws InterruptedException {
+        Long account = accountService.save(new CreateAccountRequest("USD"))
+                .getOwnerId();
+
+        transactionService.depositAsync(new OrderRequest(account, BigDecimal.TEN, "USD"), null)
+                .join();
+        CompletionException e = assertThrows(CompletionException.class, () -> transactionService.withdrawAsync(
+                        new OrderRequest(999L, BigDecimal.ONE, "USD"), null)
+                .join());
+        assertInstanceOf(AccountNotFoundException.class, e.getCause());
+
+        // The sample is stopped by a completion callback, which may run just after join returns
+        awaitOperationCount("depositAsync", TransactionMetricsAspect.SAME_CURRENCY, "success");
+        awaitOperationCount("withdrawAsync", TransactionMetricsAspect.UNKNOWN, "AccountNotFoundException");
+        assertEquals(0, meterRegistry.find("transactions.operation")
+                .tag("operation", "withdrawAsync")
+                .tag("outcome", "success")
+                .timers()
+                .size());
+    }
+
+    @Test
+    void handled_exceptions_are_counted_by_type() throws Exception {
+        double before = exceptionCount();
+
+        mockMvc.perform(get(baseUrl + "/accounts/{id}", 42L))
+                .andExpect(status().isNotFound());
+
+        assertEquals(before + 1, exceptionCount());
+    }
+
+    private long operationCount(String operation, String path, String outcome) {
+        return meterRegistry.get("transactions.operation")
+                .tag("operation", operation)
+                .tag("path", path)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    private long timerCount(String name, String tag, String value) {
+        var timer = meterRegistry.find(name)
+                .tag(tag, value)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private void awaitOperationCount(String operation, String path, String outcome) throws InterruptedException {
+        for (int i = 0; i < 100 && meterRegistry.find("transactions.operation")
+                .tag("operation", operation)
+                .tag("path", path)
+                .tag("outcome", outcome)
+                .timer() == null; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(1, operationCount(operation, path, outcome));
+    }
+
+    private double exceptionCount() {
+        var counter = meterRegistry.find("api.exceptions")
+                .tag("exception", "AccountNotFoundException")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
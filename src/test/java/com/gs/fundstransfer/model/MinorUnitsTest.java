@@ -0,0 +1,56 @@
+package com.gs.fundstransfer.model;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MinorUnitsTest {
+
+    private static final CurrencyUnit USD = Monetary.getCurrency("USD");
+    private static final CurrencyUnit JPY = Monetary.getCurrency("JPY");
+    private static final CurrencyUnit BHD = Monetary.getCurrency("BHD");
+
+    @Test
+    void amounts_are_counted_in_the_iso_minor_unit() {
+        assertEquals(1234, MinorUnits.of(new BigDecimal("12.34"), USD)
+                .units());
+        assertEquals(1500, MinorUnits.of(new BigDecimal("1500"), JPY)
+                .units());
+        assertEquals(1234, MinorUnits.of(new BigDecimal("1.234"), BHD)
+                .units());
+        // The column scale of balances read from the database
+        assertEquals(10000, MinorUnits.of(Money.of(new BigDecimal("100.0000000000"), "USD"))
+                .units());
+        assertEquals(-5, MinorUnits.of(new BigDecimal("-0.05"), USD)
+                .units());
+    }
+
+    @Test
+    void amounts_without_exact_minor_units_have_no_representation() {
+        assertNull(MinorUnits.of(new BigDecimal("0.125"), USD));
+        assertNull(MinorUnits.of(new BigDecimal("0.5"), JPY));
+        assertNull(MinorUnits.of(new BigDecimal("10000000000000000"), USD));
+        assertNull(MinorUnits.of(BigDecimal.ONE, Monetary.getCurrency("XAU")));
+        assertNotNull(MinorUnits.of(new BigDecimal("9999999999999999.99"), USD));
+    }
+
+    @Test
+    void arithmetic_is_exact_and_checked() {
+        MinorUnits balance = MinorUnits.of(new BigDecimal("100.10"), USD);
+        MinorUnits amount = MinorUnits.of(new BigDecimal("0.20"), USD);
+
+        assertEquals(new BigDecimal("100.30"), balance.plus(amount)
+                .toBigDecimal());
+        assertEquals(Money.of(new BigDecimal("99.90"), "USD"), balance.minus(amount)
+                .toMonetaryAmount());
+        assertTrue(amount.compareTo(balance) < 0);
+        assertThrows(ArithmeticException.class, () -> new MinorUnits(Long.MAX_VALUE, USD).plus(amount));
+        assertThrows(ArithmeticException.class, () -> new MinorUnits(Long.MIN_VALUE, USD).minus(amount));
+        assertThrows(IllegalArgumentException.class, () -> balance.plus(new MinorUnits(1, JPY)));
+    }
+}
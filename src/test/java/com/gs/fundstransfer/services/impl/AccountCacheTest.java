@@ -0,0 +1,63 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:accountcache")
+public class AccountCacheTest {
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void account_reads_are_cached_until_the_balance_changes() {
+        Long accountA = accountService.save(new CreateAccountRequest("USD"))
+                .getOwnerId();
+        Long accountB = accountService.save(new CreateAccountRequest("USD"))
+                .getOwnerId();
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+
+        assertBalance(accountA, BigDecimal.ZERO);
+        assertBalance(accountA, BigDecimal.ZERO);
+        transactionService.deposit(new OrderRequest(accountA, BigDecimal.TEN, "USD"));
+        assertBalance(accountA, BigDecimal.TEN);
+        assertBalance(accountB, BigDecimal.ZERO);
+        transactionService.transfer(new TransferRequest(accountA, accountB, BigDecimal.ONE, "USD"));
+        assertBalance(accountA, new BigDecimal("9"));
+        assertBalance(accountB, BigDecimal.ONE);
+
+        assertEquals(hits + 1, cacheGets("hit"));
+        assertEquals(misses + 5, cacheGets("miss"));
+    }
+
+    private void assertBalance(Long accountId, BigDecimal expected) {
+        assertEquals(0, expected.compareTo(accountService.get(accountId)
+                                                   .getBalance()));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "accounts")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+}
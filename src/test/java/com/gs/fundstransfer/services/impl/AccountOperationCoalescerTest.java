@@ -0,0 +1,76 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:coalescing;LOCK_TIMEOUT=10000")
+public class AccountOperationCoalescerTest {
+
+    private static final int OPERATIONS = 2000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void concurrent_operations_on_an_account_are_coalesced_and_fail_alone() {
+        Long account = openAccount();
+        Long other = openAccount();
+
+        List<CompletableFuture<TransferDto>> applied = new ArrayList<>();
+        List<CompletableFuture<TransferDto>> withdrawals = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            applied.add(transactionService.depositAsync(new OrderRequest(account, BigDecimal.ONE, "USD"), null));
+            // Never covered, whatever the order
+            withdrawals.add(transactionService.withdrawAsync(
+                    new OrderRequest(account, new BigDecimal("1000000"), "USD"), null));
+            if (i % 10 == 0) {
+                applied.add(transactionService.transferAsync(
+                        new TransferRequest(account, other, BigDecimal.ONE, "USD"), null));
+            }
+        }
+
+        applied.forEach(CompletableFuture::join);
+        for (CompletableFuture<TransferDto> withdrawal : withdrawals) {
+            CompletionException e = assertThrows(CompletionException.class, withdrawal::join);
+            assertInstanceOf(UnsufficientFundsException.class, e.getCause());
+        }
+        assertEquals(0, new BigDecimal(OPERATIONS - OPERATIONS / 10).compareTo(accountService.get(account)
+                                                                                     .getBalance()));
+        assertEquals(0, new BigDecimal(OPERATIONS / 10).compareTo(accountService.get(other)
+                                                                          .getBalance()));
+        DistributionSummary batchSizes = meterRegistry.get("transactions.coalesced.batch.size")
+                .summary();
+        assertTrue(batchSizes.max() > 1);
+        assertTrue(batchSizes.count() < OPERATIONS);
+    }
+
+    private Long openAccount() {
+        AccountDto account = accountService.save(new CreateAccountRequest("USD"));
+        return account.getOwnerId();
+    }
+}
@@ -1,12 +1,18 @@
 package com.gs.fundstransfer.services.impl;
 
 import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.AccountPageDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.events.BalanceChangedEvent;
 import com.gs.fundstransfer.exceptions.AccountNotFoundException;
 import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
 import com.gs.fundstransfer.mapper.AccountMapper;
 import com.gs.fundstransfer.model.Account;
 import com.gs.fundstransfer.repository.AccountRepository;
 import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.services.SplitAccountService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +21,15 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.gs.fundstransfer.services.impl.AccountServiceImpl.createInitialAccount;
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,13 +47,29 @@ public class AccountServiceImplTest {
     @Mock
     private AccountMapper accountMapper;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private SplitAccountService splitAccountService;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
+    private SimpleMeterRegistry meterRegistry;
+
+    private AccountCache accountCache;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        accountService = new AccountServiceImpl(accountRepository, accountMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        accountCache = new AccountCache(meterRegistry, true, 100, Duration.ofMinutes(10));
+        accountService = new AccountServiceImpl(accountRepository, accountMapper, entityManager, eventPublisher, splitAccountService,
+                                                accountCache);
     }
 
 
@@ -143,9 +171,35 @@ public class AccountServiceImplTest {
         verify(accountRepository, times(1)).findById(accountId);
     }
 
+    @Test
+    void testGetAccountById_servedFromCacheUntilBalanceChanges() {
+        Account account = Account.builder()
+                .ownerId(ACCOUNT_ID_1)
+                .money(createInitialAccount("USD"))
+                .build();
+        when(accountRepository.findById(ACCOUNT_ID_1)).thenReturn(Optional.of(account));
+        when(accountMapper.toDto(account)).thenAnswer(invocation -> new AccountDto(ACCOUNT_ID_1, "USD", BigDecimal.ZERO));
+
+        AccountDto first = accountService.get(ACCOUNT_ID_1);
+        first.setBalance(BigDecimal.TEN);
+        AccountDto second = accountService.get(ACCOUNT_ID_1);
+
+        assertEquals(BigDecimal.ZERO, second.getBalance());
+        verify(accountRepository, times(1)).findById(ACCOUNT_ID_1);
+        assertEquals(1, cacheGets("hit"));
+        assertEquals(1, cacheGets("miss"));
+
+        TransferDto deposit = TransferDto.builder()
+                .creditAccountId(ACCOUNT_ID_1)
+                .build();
+        accountCache.onBalanceChanged(new BalanceChangedEvent(deposit));
+        accountService.get(ACCOUNT_ID_1);
+
+        verify(accountRepository, times(2)).findById(ACCOUNT_ID_1);
+    }
 
     @Test
-    void testGetAllAccounts_Successful() {
+    void testGetPage_returnsCursorWhenMoreAccountsExist() {
         Account account1 = Account.builder()
                 .ownerId(ACCOUNT_ID_1)
                 .money(createInitialAccount("USD"))
@@ -159,19 +213,83 @@ public class AccountServiceImplTest {
         AccountDto accountDto1 = new AccountDto();
         accountDto1.setOwnerId(ACCOUNT_ID_1);
 
+        when(accountRepository.findByOwnerIdGreaterThanOrderByOwnerId(Long.MIN_VALUE, Limit.of(2))).thenReturn(
+                List.of(account1, account2));
+        when(accountMapper.toDtos(List.of(account1))).thenReturn(List.of(accountDto1));
+
+        AccountPageDto result = accountService.getPage(null, 1);
+
+        assertEquals(1, result.getAccounts().size());
+        assertEquals(ACCOUNT_ID_1, result.getAccounts().getFirst().getOwnerId());
+        assertEquals(ACCOUNT_ID_1, result.getNextAfter());
+    }
+
+    @Test
+    void testGetPage_lastPageHasNoCursor() {
+        Account account2 = Account.builder()
+                .ownerId(ACCOUNT_ID_2)
+                .money(createInitialAccount("EUR"))
+                .build();
+
         AccountDto accountDto2 = new AccountDto();
         accountDto2.setOwnerId(ACCOUNT_ID_2);
 
-        when(accountRepository.findAll()).thenReturn(List.of(account1, account2));
-        when(accountMapper.toDtos(List.of(account1, account2))).thenReturn(List.of(accountDto1, accountDto2));
+        when(accountRepository.findByOwnerIdGreaterThanOrderByOwnerId(ACCOUNT_ID_1, Limit.of(101))).thenReturn(
+                List.of(account2));
+        when(accountMapper.toDtos(List.of(account2))).thenReturn(List.of(accountDto2));
 
-        List<AccountDto> result = accountService.getAll();
+        AccountPageDto result = accountService.getPage(ACCOUNT_ID_1, 100);
 
-        assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(ACCOUNT_ID_1, result.getFirst().getOwnerId());
-        assertEquals(ACCOUNT_ID_2, result.get(1).getOwnerId());
-        verify(accountRepository, times(1)).findAll();
-        verify(accountMapper, times(1)).toDtos(List.of(account1, account2));
+        assertEquals(1, result.getAccounts().size());
+        assertNull(result.getNextAfter());
+    }
+
+    @Test
+    void testGetPage_limitIsCapped() {
+        when(accountRepository.findByOwnerIdGreaterThanOrderByOwnerId(Long.MIN_VALUE,
+                                                                      Limit.of(AccountServiceImpl.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of());
+
+        AccountPageDto result = accountService.getPage(null, Integer.MAX_VALUE);
+
+        assertNull(result.getNextAfter());
+    }
+
+    @Test
+    void testStreamAll_detachesEachAccountOnceMapped() {
+        Account account1 = Account.builder()
+                .ownerId(ACCOUNT_ID_1)
+                .money(createInitialAccount("USD"))
+                .build();
+
+        Account account2 = Account.builder()
+                .ownerId(ACCOUNT_ID_2)
+                .money(createInitialAccount("EUR"))
+                .build();
+
+        AccountDto accountDto1 = new AccountDto();
+        accountDto1.setOwnerId(ACCOUNT_ID_1);
+
+        AccountDto accountDto2 = new AccountDto();
+        accountDto2.setOwnerId(ACCOUNT_ID_2);
+
+        when(accountRepository.streamAll()).thenReturn(Stream.of(account1, account2));
+        when(accountMapper.toDto(account1)).thenReturn(accountDto1);
+        when(accountMapper.toDto(account2)).thenReturn(accountDto2);
+
+        List<AccountDto> result = new ArrayList<>();
+        accountService.streamAll(result::add);
+
+        assertEquals(List.of(accountDto1, accountDto2), result);
+        verify(entityManager).detach(account1);
+        verify(entityManager).detach(account2);
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "accounts")
+                .tag("result", result)
+                .functionCounter()
+                .count();
     }
-}
\ No newline at end of file
+}
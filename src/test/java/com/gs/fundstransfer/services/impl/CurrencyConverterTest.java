@@ -0,0 +1,84 @@
+package com.gs.fundstransfer.services.impl;
+
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.Test;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The scaled-integer conversions must round exactly like the BigDecimal ones, for every rounding mode.
+ */
+public class CurrencyConverterTest {
+
+    private static final int SAMPLES = 20_000;
+    private static final String[] CURRENCIES = {"USD", "JPY", "BHD", "EUR", "CLF"};
+
+    @Test
+    void amounts_are_rounded_to_the_minor_unit_of_the_term_currency() {
+        CurrencyConverter converter = new CurrencyConverter(RoundingMode.HALF_EVEN);
+
+        assertEquals(Money.of(new BigDecimal("10.84"), "USD"),
+                     converter.convert(Money.of(BigDecimal.TEN, "EUR"), usd(), new BigDecimal("1.0842")));
+        // Ties go to the even neighbour
+        assertEquals(Money.of(new BigDecimal("0.12"), "USD"),
+                     converter.convert(Money.of(new BigDecimal("0.25"), "EUR"), usd(), new BigDecimal("0.5")));
+        assertEquals(Money.of(new BigDecimal("162"), "JPY"),
+                     converter.convert(Money.of(BigDecimal.ONE, "EUR"), Monetary.getCurrency("JPY"),
+                                       new BigDecimal("162.47")));
+        assertEquals(Money.of(new BigDecimal("0.125"), "BHD"),
+                     new CurrencyConverter(RoundingMode.HALF_UP).convert(Money.of(new BigDecimal("0.25"), "EUR"),
+                                                                         Monetary.getCurrency("BHD"),
+                                                                         new BigDecimal("0.4999")));
+    }
+
+    @Test
+    void rounding_is_directed_by_the_sign_of_the_amount() {
+        CurrencyConverter ceiling = new CurrencyConverter(RoundingMode.CEILING);
+        BigDecimal rate = new BigDecimal("0.33333");
+
+        assertEquals(Money.of(new BigDecimal("0.34"), "USD"),
+                     ceiling.convert(Money.of(BigDecimal.ONE, "EUR"), usd(), rate));
+        assertEquals(Money.of(new BigDecimal("-0.33"), "USD"),
+                     ceiling.convert(Money.of(BigDecimal.ONE.negate(), "EUR"), usd(), rate));
+        assertThrows(ArithmeticException.class, () -> new CurrencyConverter(RoundingMode.UNNECESSARY)
+                .convert(Money.of(BigDecimal.ONE, "EUR"), usd(), rate));
+    }
+
+    @Test
+    void random_conversions_match_the_big_decimal_ones() {
+        Random random = new Random(42);
+        for (RoundingMode roundingMode : RoundingMode.values()) {
+            if (roundingMode == RoundingMode.UNNECESSARY) {
+                continue;
+            }
+            CurrencyConverter converter = new CurrencyConverter(roundingMode);
+            for (int i = 0; i < SAMPLES; i++) {
+                CurrencyUnit base = Monetary.getCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+                CurrencyUnit term = Monetary.getCurrency(CURRENCIES[random.nextInt(CURRENCIES.length)]);
+                BigDecimal amount = BigDecimal.valueOf(random.nextLong() >> random.nextInt(64),
+                                                       base.getDefaultFractionDigits());
+                // Quoted rates have a few digits, derived ones up to 16
+                BigDecimal rate = BigDecimal.valueOf(Math.exp(random.nextGaussian() * 5))
+                        .round(new MathContext(random.nextBoolean() ? 5 : 16));
+                MonetaryAmount converted = converter.convert(Money.of(amount, base), term, rate);
+                BigDecimal expected = converter.convert(amount, term.getDefaultFractionDigits(), rate);
+                assertEquals(0, expected.compareTo(converted.getNumber()
+                                                           .numberValue(BigDecimal.class)),
+                             () -> roundingMode + " " + amount + " " + base + " * " + rate + " " + term);
+                assertEquals(term, converted.getCurrency());
+            }
+        }
+    }
+
+    private static CurrencyUnit usd() {
+        return Monetary.getCurrency("USD");
+    }
+}
@@ -0,0 +1,161 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.configs.RetryConfig;
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.IdempotencyService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:groupcommit;LOCK_TIMEOUT=10000",
+        "transactions.group-commit.enabled=true", "transactions.group-commit.max-batch-size=50"})
+public class DepositGroupCommitterTest {
+
+    private static final int DEPOSITS = 1000;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SplitAccountService splitAccountService;
+
+    @Test
+    void concurrent_deposits_share_group_commits_and_fail_alone() {
+        Long first = openAccount("USD");
+        Long second = openAccount("USD");
+        Long euroAccount = openAccount("EUR");
+
+        List<CompletableFuture<TransferDto>> applied = new ArrayList<>();
+        for (int i = 0; i < DEPOSITS; i++) {
+            applied.add(transactionService.depositAsync(
+                    new OrderRequest(i % 2 == 0 ? first : second, BigDecimal.ONE, "USD"), null));
+        }
+        // Converted, and missing accounts, leave the batch
+        CompletableFuture<TransferDto> converted = transactionService.depositAsync(
+                new OrderRequest(euroAccount, BigDecimal.TEN, "USD"), null);
+        CompletableFuture<TransferDto> missing = transactionService.depositAsync(
+                new OrderRequest(999L, BigDecimal.ONE, "USD"), null);
+
+        applied.forEach(CompletableFuture::join);
+        assertEquals("EUR", converted.join()
+                .getCreditedAmount()
+                .getCurrency()
+                .getCurrencyCode());
+        CompletionException e = assertThrows(CompletionException.class, missing::join);
+        assertInstanceOf(AccountNotFoundException.class, e.getCause());
+
+        assertEquals(0, new BigDecimal(DEPOSITS / 2).compareTo(accountService.get(first)
+                                                                      .getBalance()));
+        assertEquals(0, new BigDecimal(DEPOSITS / 2).compareTo(accountService.get(second)
+                                                                       .getBalance()));
+        assertEquals(1, ledgerService.getEntries(euroAccount, null, 10)
+                .getEntries()
+                .size());
+        assertEquals(DEPOSITS / 2, ledgerService.getEntries(first, null, 500)
+                .getEntries()
+                .size());
+        DistributionSummary batchSizes = meterRegistry.get("transactions.group-commit.batch.size")
+                .summary();
+        assertTrue(batchSizes.max() > 1);
+        assertTrue(batchSizes.max() <= 50);
+        assertTrue(batchSizes.count() < DEPOSITS);
+    }
+
+    @Test
+    void deposits_to_split_accounts_credit_their_slots() {
+        Long hot = openAccount("USD");
+        Long other = openAccount("USD");
+        splitAccountService.split(hot, 4);
+
+        List<CompletableFuture<TransferDto>> applied = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            applied.add(transactionService.depositAsync(new OrderRequest(i % 2 == 0 ? hot : other, BigDecimal.ONE,
+                                                                         "USD"), null));
+        }
+        applied.forEach(CompletableFuture::join);
+
+        assertEquals(0, new BigDecimal(50).compareTo(splitAccountService.getSlotBalances(List.of(hot))
+                                                             .get(hot)));
+        assertEquals(0, new BigDecimal(50).compareTo(accountService.get(hot)
+                                                             .getBalance()));
+        assertEquals(0, new BigDecimal(50).compareTo(accountService.get(other)
+                                                             .getBalance()));
+        assertEquals(50, ledgerService.getEntries(hot, null, 100)
+                .getEntries()
+                .size());
+    }
+
+    @Test
+    void deposits_are_applied_alone_when_the_driver_does_not_report_update_counts() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{Statement.SUCCESS_NO_INFO});
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(
+                invocation -> invocation.<TransactionCallback<?>>getArgument(0)
+                        .doInTransaction(null));
+        IdempotencyService idempotencyService = mock(IdempotencyService.class);
+        DepositGroupCommitter committer = new DepositGroupCommitter(jdbcTemplate, transactionTemplate,
+                                                                    new RetryConfig().transactionRetryTemplate(
+                                                                            List.of()),
+                                                                    idempotencyService, mock(LedgerService.class),
+                                                                    mock(SplitAccountService.class),
+                                                                    new SimpleMeterRegistry(), true, 50,
+                                                                    Duration.ofMillis(2));
+        try {
+            TransferDto appliedAlone = TransferDto.builder()
+                    .build();
+            OrderRequest request = new OrderRequest(1L, BigDecimal.ONE, "USD");
+
+            // Rolled back, then applied alone
+            assertSame(appliedAlone, committer.submit(request, "key-1", () -> appliedAlone)
+                    .join());
+            // No longer batched
+            assertSame(appliedAlone, committer.submit(request, "key-2", () -> appliedAlone)
+                    .join());
+            verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+            verifyNoInteractions(idempotencyService);
+        } finally {
+            committer.shutdown();
+        }
+    }
+
+    private Long openAccount(String currency) {
+        AccountDto account = accountService.save(new CreateAccountRequest(currency));
+        return account.getOwnerId();
+    }
+}
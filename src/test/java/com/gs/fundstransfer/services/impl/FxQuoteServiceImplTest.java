@@ -0,0 +1,90 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.FxQuoteDto;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
+import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.request.FXRateRequest;
+import com.gs.fundstransfer.request.FxQuoteRequest;
+import com.gs.fundstransfer.response.FXRateResponse;
+import com.gs.fundstransfer.services.ExchangeRateProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.money.Monetary;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class FxQuoteServiceImplTest {
+
+    private final ExchangeRateProvider exchangeRateProvider = mock(ExchangeRateProvider.class);
+
+    private FxQuoteServiceImpl quoteService(Duration ttl) {
+        return new FxQuoteServiceImpl(exchangeRateProvider, new SimpleMeterRegistry(), ttl, 1000);
+    }
+
+    @Test
+    void quoted_rate_is_used_until_the_quote_expires() {
+        when(exchangeRateProvider.getRate("EUR", "USD")).thenReturn(new BigDecimal("1.0842"));
+        FxQuoteServiceImpl quoteService = quoteService(Duration.ofMinutes(1));
+        ForexServiceImpl forexService = new ForexServiceImpl(exchangeRateProvider, quoteService,
+                                                               new CurrencyConverter(RoundingMode.HALF_EVEN));
+
+        FxQuoteDto quote = quoteService.create(new FxQuoteRequest("EUR", "USD"));
+        // The current rate moves, the quoted one does not
+        when(exchangeRateProvider.getRate("EUR", "USD")).thenReturn(new BigDecimal("2"));
+        FXRateResponse response = forexService.exchange(FXRateRequest.builder()
+                                                                .monetaryAmount(Monetary.getDefaultAmountFactory()
+                                                                                        .setCurrency("EUR")
+                                                                                        .setNumber(BigDecimal.TEN)
+                                                                                        .create())
+                                                                .quoteId(quote.getQuoteId())
+                                                                .build());
+
+        assertEquals(new BigDecimal("1.0842"), quote.getRate());
+        assertEquals(quote, quoteService.get(quote.getQuoteId()));
+        assertEquals("USD", response.getConvertedAmount()
+                .getCurrency()
+                .getCurrencyCode());
+        assertEquals(0, new BigDecimal("10.84").compareTo(response.getConvertedAmount()
+                                                                   .getNumber()
+                                                                   .numberValue(BigDecimal.class)));
+        verify(exchangeRateProvider, times(1)).getRate("EUR", "USD");
+    }
+
+    @Test
+    void quote_of_another_pair_is_refused() {
+        when(exchangeRateProvider.getRate("EUR", "USD")).thenReturn(new BigDecimal("1.0842"));
+        FxQuoteServiceImpl quoteService = quoteService(Duration.ofMinutes(1));
+        ForexServiceImpl forexService = new ForexServiceImpl(exchangeRateProvider, quoteService,
+                                                               new CurrencyConverter(RoundingMode.HALF_EVEN));
+        FxQuoteDto quote = quoteService.create(new FxQuoteRequest("EUR", "USD"));
+
+        assertThrows(InvalidFxQuoteException.class, () -> forexService.exchange(
+                new FXRateRequest(Monetary.getDefaultAmountFactory()
+                                          .setCurrency("GBP")
+                                          .setNumber(BigDecimal.TEN)
+                                          .create(), Monetary.getCurrency("USD"), quote.getQuoteId())));
+        assertThrows(InvalidFxQuoteException.class, () -> forexService.exchange(
+                new FXRateRequest(Monetary.getDefaultAmountFactory()
+                                          .setCurrency("EUR")
+                                          .setNumber(BigDecimal.TEN)
+                                          .create(), Monetary.getCurrency("JPY"), quote.getQuoteId())));
+    }
+
+    @Test
+    void expired_or_unknown_quote_is_refused() {
+        when(exchangeRateProvider.getRate("EUR", "USD")).thenReturn(new BigDecimal("1.0842"));
+        FxQuoteServiceImpl quoteService = quoteService(Duration.ZERO);
+
+        FxQuoteDto quote = quoteService.create(new FxQuoteRequest("EUR", "USD"));
+
+        assertThrows(InvalidFxQuoteException.class, () -> quoteService.get(quote.getQuoteId()));
+        assertThrows(InvalidFxQuoteException.class, () -> quoteService.get("unknown"));
+        assertThrows(NotSupportedCurrencyException.class,
+                     () -> quoteService.create(new FxQuoteRequest("EUR", "EUR")));
+    }
+}
@@ -0,0 +1,150 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.exceptions.IdempotencyKeyReusedException;
+import com.gs.fundstransfer.exceptions.InvalidIdempotencyKeyException;
+import com.gs.fundstransfer.mapper.IdempotencyRecordMapper;
+import com.gs.fundstransfer.model.IdempotencyRecord;
+import com.gs.fundstransfer.model.OperationType;
+import com.gs.fundstransfer.repository.IdempotencyRecordRepository;
+import com.gs.fundstransfer.request.OrderRequest;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyServiceImplTest {
+
+    public static final long ACCOUNT_ID_1 = 1000000000L;
+    private static final String KEY = "key-1";
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Mock
+    private IdempotencyRecordMapper idempotencyRecordMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private final OrderRequest request = new OrderRequest(ACCOUNT_ID_1, BigDecimal.TEN, "USD");
+
+    private final TransferDto deposit = TransferDto.builder()
+            .creditAccountId(ACCOUNT_ID_1)
+            .creditedAmount(Money.of(BigDecimal.TEN, "USD"))
+            .rate(BigDecimal.ONE)
+            .build();
+
+    @BeforeEach
+    public void setup() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyRecordRepository, idempotencyRecordMapper,
+                                                        new ObjectMapper(), eventPublisher, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void without_key_the_call_always_runs() {
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute(null, OperationType.DEPOSIT, request, () -> count(calls));
+        idempotencyService.execute(null, OperationType.DEPOSIT, request, () -> count(calls));
+        assertEquals(2, calls.get());
+        verifyNoInteractions(idempotencyRecordRepository);
+    }
+
+    @Test
+    void recorded_key_is_replayed_from_cache() {
+        AtomicInteger calls = new AtomicInteger();
+        when(idempotencyRecordRepository.findById(KEY)).thenReturn(Optional.empty());
+
+        idempotencyService.execute(KEY, OperationType.DEPOSIT, request, () -> {
+            idempotencyService.record(KEY, OperationType.DEPOSIT, request, deposit);
+            return count(calls);
+        });
+        TransferDto replay = idempotencyService.execute(KEY, OperationType.DEPOSIT, request, () -> count(calls));
+
+        assertEquals(1, calls.get());
+        assertSame(deposit, replay);
+        verify(idempotencyRecordRepository, times(1)).findById(KEY);
+        verify(idempotencyRecordRepository, times(1)).saveAndFlush(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void cache_miss_is_answered_from_the_database() {
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        idempotencyService.record(KEY, OperationType.DEPOSIT, request, deposit);
+        verify(idempotencyRecordRepository).saveAndFlush(captor.capture());
+        IdempotencyRecord stored = captor.getValue();
+        assertEquals(deposit.getCreditedAmount(), stored.getCreditedAmount());
+
+        IdempotencyServiceImpl restarted = new IdempotencyServiceImpl(idempotencyRecordRepository,
+                                                                      idempotencyRecordMapper, new ObjectMapper(),
+                                                                      eventPublisher, 100, Duration.ofHours(1));
+        when(idempotencyRecordRepository.findById(KEY)).thenReturn(Optional.of(stored));
+        when(idempotencyRecordMapper.toDto(stored)).thenReturn(deposit);
+
+        TransferDto replay = restarted.execute(KEY, OperationType.DEPOSIT, request, () -> fail("must not run"));
+        assertSame(deposit, replay);
+    }
+
+    @Test
+    void key_reused_for_another_request_is_rejected() {
+        idempotencyService.record(KEY, OperationType.DEPOSIT, request, deposit);
+        OrderRequest other = new OrderRequest(ACCOUNT_ID_1, BigDecimal.ONE, "USD");
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                     () -> idempotencyService.execute(KEY, OperationType.DEPOSIT, other, () -> deposit));
+        assertThrows(IdempotencyKeyReusedException.class,
+                     () -> idempotencyService.execute(KEY, OperationType.WITHDRAW, request, () -> deposit));
+    }
+
+    @Test
+    void concurrent_duplicate_is_answered_with_the_winning_result() {
+        IdempotencyRecord winner = IdempotencyRecord.builder()
+                .idempotencyKey(KEY)
+                .build();
+        ArgumentCaptor<IdempotencyRecord> captor = ArgumentCaptor.forClass(IdempotencyRecord.class);
+        when(idempotencyRecordRepository.saveAndFlush(captor.capture())).thenReturn(winner);
+        idempotencyService.record("other", OperationType.DEPOSIT, request, deposit);
+        IdempotencyRecord committed = captor.getValue();
+
+        IdempotencyServiceImpl second = new IdempotencyServiceImpl(idempotencyRecordRepository,
+                                                                   idempotencyRecordMapper, new ObjectMapper(),
+                                                                   eventPublisher, 100, Duration.ofHours(1));
+        when(idempotencyRecordRepository.findById(KEY)).thenReturn(Optional.empty(), Optional.of(committed));
+        when(idempotencyRecordMapper.toDto(committed)).thenReturn(deposit);
+
+        TransferDto result = second.execute(KEY, OperationType.DEPOSIT, request, () -> {
+            throw new DataIntegrityViolationException("duplicate key");
+        });
+        assertSame(deposit, result);
+    }
+
+    @Test
+    void oversized_key_is_rejected() {
+        assertThrows(InvalidIdempotencyKeyException.class,
+                     () -> idempotencyService.execute("k".repeat(256), OperationType.DEPOSIT, request, () -> deposit));
+        assertThrows(InvalidIdempotencyKeyException.class,
+                     () -> idempotencyService.execute(" ", OperationType.DEPOSIT, request, () -> deposit));
+    }
+
+    private TransferDto count(AtomicInteger calls) {
+        calls.incrementAndGet();
+        return deposit;
+    }
+}
@@ -0,0 +1,181 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
+import com.gs.fundstransfer.exceptions.UnavailableFXRatesException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class InMemoryExchangeRateProviderTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final Clock clock = mock(Clock.class);
+
+    private InMemoryExchangeRateProvider provider(String location, Duration ttl) {
+        return new InMemoryExchangeRateProvider(new DefaultResourceLoader(), location, ttl, "EUR", clock);
+    }
+
+    @Test
+    void loads_rates_file_and_derives_inverse_pairs() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:fx-rates.properties", Duration.ZERO);
+        provider.loadInitialRates();
+
+        assertEquals(new BigDecimal("1.0842"), provider.getRate("EUR", "USD"));
+        assertEquals(0, BigDecimal.ONE.divide(new BigDecimal("1.0842"), java.math.MathContext.DECIMAL64)
+                .compareTo(provider.getRate("USD", "EUR")));
+        assertEquals(BigDecimal.ONE, provider.getRate("JPY", "JPY"));
+        assertEquals(NOW, provider.getLoadedAt());
+    }
+
+    @Test
+    void explicit_quote_wins_over_derived_inverse() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ZERO);
+        provider.load(Map.of("EUR/USD", new BigDecimal("1.10"), "USD/EUR", new BigDecimal("0.90")));
+
+        assertEquals(new BigDecimal("1.10"), provider.getRate("EUR", "USD"));
+        assertEquals(new BigDecimal("0.90"), provider.getRate("USD", "EUR"));
+    }
+
+    @Test
+    void unknown_pair_is_unavailable() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ZERO);
+        provider.loadInitialRates();
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("EUR", "USD"));
+
+        provider.load(Map.of("EUR/USD", new BigDecimal("1.10")));
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("EUR", "GBP"));
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("eur", "USD"));
+    }
+
+    @Test
+    void stale_rates_are_unavailable_until_reloaded() {
+        when(clock.instant()).thenReturn(NOW, NOW.plus(Duration.ofHours(2)), NOW.plus(Duration.ofHours(2)));
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ofHours(1));
+        provider.load(Map.of("EUR/USD", new BigDecimal("1.10")));
+
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("EUR", "USD"));
+
+        provider.load(Map.of("EUR/USD", new BigDecimal("1.11")));
+        assertEquals(new BigDecimal("1.11"), provider.getRate("EUR", "USD"));
+    }
+
+    @Test
+    void updating_one_quote_does_not_refresh_the_others() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ofHours(1));
+        provider.load(Map.of("EUR/USD", new BigDecimal("1.10"), "EUR/GBP", new BigDecimal("0.85")));
+
+        when(clock.instant()).thenReturn(NOW.plus(Duration.ofHours(2)));
+        provider.update("EUR/USD", new BigDecimal("1.11"));
+
+        assertEquals(new BigDecimal("1.11"), provider.getRate("EUR", "USD"));
+        assertEquals("1/(EUR/USD)", provider.getRateWithDerivation("USD", "EUR")
+                .getDerivation());
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("EUR", "GBP"));
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("GBP", "EUR"));
+        // Triangulated through the stale EUR/GBP
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("USD", "GBP"));
+        assertEquals(NOW, provider.getLoadedAt());
+
+        provider.update("EUR/CAD", new BigDecimal("1.47"));
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("EUR", "GBP"));
+        assertEquals(new BigDecimal("1.47"), provider.getRate("EUR", "CAD"));
+    }
+
+    @Test
+    void invalid_rates_are_rejected() {
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ZERO);
+        assertThrows(NotSupportedCurrencyException.class, () -> provider.load(Map.of("EURUSD", BigDecimal.ONE)));
+        assertThrows(NotSupportedCurrencyException.class, () -> provider.load(Map.of("EUR/USD", BigDecimal.ZERO)));
+    }
+
+    @Test
+    void pairs_quoted_in_neither_direction_are_triangulated_through_the_pivot() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ZERO);
+        provider.load(Map.of("EUR/GBP", new BigDecimal("0.80"), "EUR/JPY", new BigDecimal("160"),
+                             "USD/EUR", new BigDecimal("0.90")));
+
+        assertEquals(0, new BigDecimal("200").compareTo(provider.getRate("GBP", "JPY")));
+        assertEquals("1/(EUR/GBP) * EUR/JPY", provider.getDerivation("GBP", "JPY"));
+        assertEquals(0, new BigDecimal("144").compareTo(provider.getRate("USD", "JPY")));
+        assertEquals("USD/EUR * EUR/JPY", provider.getDerivation("USD", "JPY"));
+        assertEquals("EUR/GBP", provider.getDerivation("EUR", "GBP"));
+        assertEquals("1/(USD/EUR)", provider.getDerivation("EUR", "USD"));
+    }
+
+    @Test
+    void direct_quotes_win_over_triangulation() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ZERO);
+        provider.load(Map.of("EUR/GBP", new BigDecimal("0.80"), "EUR/JPY", new BigDecimal("160"),
+                             "GBP/JPY", new BigDecimal("199.5")));
+
+        assertEquals(new BigDecimal("199.5"), provider.getRate("GBP", "JPY"));
+        assertEquals("1/(GBP/JPY)", provider.getDerivation("JPY", "GBP"));
+    }
+
+    @Test
+    void single_quote_updates_match_a_full_reload() {
+        when(clock.instant()).thenReturn(NOW);
+        Map<String, BigDecimal> rates = new HashMap<>(Map.of("EUR/USD", new BigDecimal("1.08"),
+                                                                       "EUR/GBP", new BigDecimal("0.84"),
+                                                                       "EUR/JPY", new BigDecimal("162"),
+                                                                       "GBP/CHF", new BigDecimal("1.12"),
+                                                                       "CHF/EUR", new BigDecimal("1.06")));
+        InMemoryExchangeRateProvider updated = provider("classpath:missing.properties", Duration.ZERO);
+        updated.load(rates);
+        InMemoryExchangeRateProvider reloaded = provider("classpath:missing.properties", Duration.ZERO);
+
+        // A pivot leg, a pivot leg quoted the other way, a cross quote, then a new currency
+        for (Map.Entry<String, BigDecimal> quote : List.of(Map.entry("EUR/GBP", new BigDecimal("0.85")),
+                                                           Map.entry("CHF/EUR", new BigDecimal("1.07")),
+                                                           Map.entry("GBP/CHF", new BigDecimal("1.13")),
+                                                           Map.entry("EUR/CAD", new BigDecimal("1.47")))) {
+            updated.update(quote.getKey(), quote.getValue());
+            rates.put(quote.getKey(), quote.getValue());
+            reloaded.load(rates);
+
+            for (String base : rates.keySet()) {
+                for (String term : rates.keySet()) {
+                    String pair = base.substring(0, 3) + "/" + term.substring(4);
+                    assertEquals(rate(reloaded, pair), rate(updated, pair), pair);
+                    assertEquals(reloaded.getDerivation(pair.substring(0, 3), pair.substring(4)),
+                                 updated.getDerivation(pair.substring(0, 3), pair.substring(4)), pair);
+                }
+            }
+        }
+        assertEquals("CHF/EUR * EUR/CAD", updated.getDerivation("CHF", "CAD"));
+        assertEquals(0, new BigDecimal("1.07").multiply(new BigDecimal("162"))
+                .compareTo(updated.getRate("CHF", "JPY")));
+    }
+
+    private static BigDecimal rate(InMemoryExchangeRateProvider provider, String pair) {
+        return provider.getRate(pair.substring(0, 3), pair.substring(4));
+    }
+
+    @Test
+    void currencies_without_a_pivot_leg_stay_unavailable() {
+        when(clock.instant()).thenReturn(NOW);
+        InMemoryExchangeRateProvider provider = provider("classpath:missing.properties", Duration.ZERO);
+        provider.load(Map.of("EUR/USD", new BigDecimal("1.08"), "GBP/CHF", new BigDecimal("1.12")));
+
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getRate("USD", "GBP"));
+        assertThrows(UnavailableFXRatesException.class, () -> provider.getDerivation("USD", "GBP"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.gs.fundstransfer.services.impl;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LedgerEntryIdGeneratorTest {
+
+    private static final int IDS = 100000;
+
+    @Test
+    void ids_of_one_node_are_strictly_increasing() {
+        LedgerEntryIdGenerator generator = new LedgerEntryIdGenerator(0);
+        long last = generator.nextId();
+        for (int i = 0; i < IDS; i++) {
+            long id = generator.nextId();
+            assertTrue(id > last);
+            last = id;
+        }
+    }
+
+    @Test
+    void every_id_carries_the_node_id() {
+        // Two nodes in the same millisecond and at the same sequence only differ by these bits
+        for (int nodeId : new int[]{0, 1, 5, LedgerEntryIdGenerator.MAX_NODE_ID}) {
+            LedgerEntryIdGenerator generator = new LedgerEntryIdGenerator(nodeId);
+            for (int i = 0; i < IDS; i++) {
+                assertEquals(nodeId, generator.nextId() >>> 12 & LedgerEntryIdGenerator.MAX_NODE_ID);
+            }
+        }
+    }
+
+    @Test
+    void node_id_must_fit_in_its_bits() {
+        assertThrows(IllegalArgumentException.class, () -> new LedgerEntryIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new LedgerEntryIdGenerator(LedgerEntryIdGenerator.MAX_NODE_ID + 1));
+    }
+}
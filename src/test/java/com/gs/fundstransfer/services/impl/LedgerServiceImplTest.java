@@ -0,0 +1,203 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.LedgerEntryDto;
+import com.gs.fundstransfer.dto.LedgerPageDto;
+import com.gs.fundstransfer.dto.TransferDto;
+import com.gs.fundstransfer.events.BalanceChangedEvent;
+import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.mapper.LedgerEntryMapper;
+import com.gs.fundstransfer.model.EntryType;
+import com.gs.fundstransfer.model.LedgerEntry;
+import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.repository.LedgerEntryRepository;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LedgerServiceImplTest {
+
+    public static final long ACCOUNT_ID_1 = 1000000000L;
+    public static final long ACCOUNT_ID_2 = 1000000001L;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private LedgerEntryMapper ledgerEntryMapper;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LedgerServiceImpl ledgerService;
+
+    @BeforeEach
+    public void setup() {
+        ledgerService = new LedgerServiceImpl(ledgerEntryRepository, accountRepository, ledgerEntryMapper, eventPublisher,
+                                              jdbcTemplate, new LedgerEntryIdGenerator(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void record_transfer_writes_both_legs_in_one_batch() {
+        TransferDto transfer = TransferDto.builder()
+                .debitAccountId(ACCOUNT_ID_1)
+                .creditAccountId(ACCOUNT_ID_2)
+                .debitedAmount(Money.of(new BigDecimal("100"), "USD"))
+                .creditedAmount(Money.of(new BigDecimal("85"), "EUR"))
+                .rate(new BigDecimal("0.85"))
+                .build();
+
+        ledgerService.record(transfer);
+
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository, times(1)).saveAll(captor.capture());
+        List<LedgerEntry> entries = captor.getValue();
+        assertEquals(2, entries.size());
+        LedgerEntry debit = entries.get(0);
+        LedgerEntry credit = entries.get(1);
+        assertEquals(EntryType.DEBIT, debit.getType());
+        assertEquals(ACCOUNT_ID_1, debit.getAccountId());
+        assertEquals(ACCOUNT_ID_2, debit.getCounterpartyAccountId());
+        assertEquals("USD", debit.getCurrency());
+        assertEquals(EntryType.CREDIT, credit.getType());
+        assertEquals(ACCOUNT_ID_2, credit.getAccountId());
+        assertEquals(0, new BigDecimal("85").compareTo(credit.getAmount()));
+        assertEquals("EUR", credit.getCurrency());
+        assertEquals(debit.getTransactionId(), credit.getTransactionId());
+        // Assigned before the entries are saved, in the order of the legs
+        assertTrue(debit.getId() < credit.getId());
+        verify(eventPublisher).publishEvent(new BalanceChangedEvent(transfer));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void record_deposit_writes_credit_leg_only() {
+        TransferDto deposit = TransferDto.builder()
+                .creditAccountId(ACCOUNT_ID_1)
+                .creditedAmount(Money.of(BigDecimal.TEN, "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+
+        ledgerService.record(deposit);
+
+        ArgumentCaptor<List<LedgerEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerEntryRepository).saveAll(captor.capture());
+        assertEquals(1, captor.getValue()
+                .size());
+        assertEquals(EntryType.CREDIT, captor.getValue()
+                .getFirst()
+                .getType());
+        assertNull(captor.getValue()
+                           .getFirst()
+                           .getCounterpartyAccountId());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void recordAll_writes_every_leg_in_one_jdbc_batch() {
+        TransferDto deposit = TransferDto.builder()
+                .creditAccountId(ACCOUNT_ID_1)
+                .creditedAmount(Money.of(BigDecimal.TEN, "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+        TransferDto transfer = TransferDto.builder()
+                .debitAccountId(ACCOUNT_ID_1)
+                .creditAccountId(ACCOUNT_ID_2)
+                .debitedAmount(Money.of(BigDecimal.ONE, "USD"))
+                .creditedAmount(Money.of(BigDecimal.ONE, "USD"))
+                .rate(BigDecimal.ONE)
+                .build();
+
+        ledgerService.recordAll(List.of(deposit, transfer));
+
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), captor.capture());
+        List<Object[]> rows = captor.getValue();
+        assertEquals(3, rows.size());
+        assertEquals(List.of(ACCOUNT_ID_1, "CREDIT"), List.of(rows.get(0)[2], rows.get(0)[4]));
+        assertEquals(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2, "DEBIT"), List.of(rows.get(1)[2], rows.get(1)[3], rows.get(1)[4]));
+        assertEquals(List.of(ACCOUNT_ID_2, ACCOUNT_ID_1, "CREDIT"), List.of(rows.get(2)[2], rows.get(2)[3], rows.get(2)[4]));
+        // Legs of the same movement share its transaction ID, IDs are unique
+        assertEquals(rows.get(1)[1], rows.get(2)[1]);
+        assertNotEquals(rows.get(0)[1], rows.get(1)[1]);
+        assertNotEquals(rows.get(1)[0], rows.get(2)[0]);
+        verify(eventPublisher).publishEvent(new BalanceChangedEvent(deposit));
+        verify(eventPublisher).publishEvent(new BalanceChangedEvent(transfer));
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+
+    @Test
+    void getEntries_returns_cursor_when_more_entries_exist() {
+        LedgerEntry newest = LedgerEntry.builder()
+                .id(30L)
+                .build();
+        LedgerEntry older = LedgerEntry.builder()
+                .id(20L)
+                .build();
+        LedgerEntry oldest = LedgerEntry.builder()
+                .id(10L)
+                .build();
+        when(accountRepository.existsById(ACCOUNT_ID_1)).thenReturn(true);
+        when(ledgerEntryRepository.findByAccountIdAndIdLessThanOrderByIdDesc(ACCOUNT_ID_1, Long.MAX_VALUE,
+                                                                             Limit.of(3))).thenReturn(
+                List.of(newest, older, oldest));
+        when(ledgerEntryMapper.toDtos(List.of(newest, older))).thenReturn(
+                List.of(LedgerEntryDto.builder()
+                                .id(30L)
+                                .build(), LedgerEntryDto.builder()
+                                .id(20L)
+                                .build()));
+
+        LedgerPageDto page = ledgerService.getEntries(ACCOUNT_ID_1, null, 2);
+
+        assertEquals(2, page.getEntries()
+                .size());
+        assertEquals(20L, page.getNextBefore());
+    }
+
+    @Test
+    void getEntries_last_page_has_no_cursor() {
+        LedgerEntry entry = LedgerEntry.builder()
+                .id(10L)
+                .build();
+        when(accountRepository.existsById(ACCOUNT_ID_1)).thenReturn(true);
+        when(ledgerEntryRepository.findByAccountIdAndIdLessThanOrderByIdDesc(ACCOUNT_ID_1, 20L, Limit.of(51)))
+                .thenReturn(List.of(entry));
+        when(ledgerEntryMapper.toDtos(List.of(entry))).thenReturn(List.of(LedgerEntryDto.builder()
+                                                                                  .id(10L)
+                                                                                  .build()));
+
+        LedgerPageDto page = ledgerService.getEntries(ACCOUNT_ID_1, 20L, 50);
+
+        assertEquals(1, page.getEntries()
+                .size());
+        assertNull(page.getNextBefore());
+    }
+
+    @Test
+    void getEntries_account_not_found_exception() {
+        when(accountRepository.existsById(ACCOUNT_ID_1)).thenReturn(false);
+        assertThrows(AccountNotFoundException.class, () -> ledgerService.getEntries(ACCOUNT_ID_1, null, 50));
+        verifyNoInteractions(ledgerEntryRepository);
+    }
+}
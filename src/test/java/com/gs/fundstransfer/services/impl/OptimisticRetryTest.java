@@ -0,0 +1,108 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Accounts never switch to locks up front, so every request relies on its own retry
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:optimisticretry;LOCK_TIMEOUT=10000",
+        "transactions.optimistic.max-conflicts=1000000"})
+public class OptimisticRetryTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 2000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000");
+
+    private static final String CONFLICTS = "test.conflicts";
+    private static final AtomicInteger conflicts = new AtomicInteger();
+    private static final AtomicInteger maxConflictsPerTransfer = new AtomicInteger();
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @TestConfiguration
+    static class ConflictCountingConfig {
+        @Bean
+        public RetryListener conflictCountingListener() {
+            return new RetryListener() {
+                @Override
+                public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+                    if (throwable instanceof OptimisticLockingFailureException) {
+                        conflicts.incrementAndGet();
+                        // The context lives as long as the operation, across its attempts
+                        Integer before = (Integer) context.getAttribute(CONFLICTS);
+                        int count = before == null ? 1 : before + 1;
+                        context.setAttribute(CONFLICTS, count);
+                        maxConflictsPerTransfer.accumulateAndGet(count, Math::max);
+                    }
+                }
+            };
+        }
+    }
+
+    @Test
+    void contended_transfers_lock_after_a_conflict_instead_of_failing() throws Exception {
+        Long accountA = openAccount();
+        Long accountB = openAccount();
+        conflicts.set(0);
+        maxConflictsPerTransfer.set(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < TRANSFERS; i++) {
+                boolean aToB = i % 2 == 0;
+                TransferRequest request = new TransferRequest(aToB ? accountA : accountB, aToB ? accountB : accountA,
+                                                              BigDecimal.ONE, "USD");
+                futures.add(executor.submit(() -> transactionService.transfer(request)));
+            }
+            // Throws if any transfer ran out of attempts
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(conflicts.get() > 0);
+        // A transfer which hit a conflict locks on its retry, so it never hits a second one
+        assertEquals(1, maxConflictsPerTransfer.get());
+        BigDecimal total = accountService.get(accountA)
+                .getBalance()
+                .add(accountService.get(accountB)
+                             .getBalance());
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.TWO)
+                .compareTo(total));
+    }
+
+    private Long openAccount() {
+        AccountDto account = accountService.save(new CreateAccountRequest("USD"));
+        transactionService.deposit(new OrderRequest(account.getOwnerId(), INITIAL_BALANCE, "USD"));
+        return account.getOwnerId();
+    }
+}
@@ -0,0 +1,140 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.engine.ShardedBalanceEngine;
+import com.gs.fundstransfer.engine.WriteBehindJournal;
+import com.gs.fundstransfer.exceptions.BatchTransferException;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.request.BatchMode;
+import com.gs.fundstransfer.request.BatchTransferRequest;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:sharded", "transactions.engine=sharded",
+        "transactions.engine.shards=4", "transactions.engine.flush-interval=1h"})
+public class ShardedTransactionServiceImplTest {
+
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000");
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private ShardedBalanceEngine engine;
+
+    @Autowired
+    private WriteBehindJournal journal;
+
+    @Test
+    void sharded_engine_replaces_the_locking_service() {
+        assertInstanceOf(ShardedTransactionServiceImpl.class, transactionService);
+    }
+
+    @Test
+    void concurrent_transfers_conserve_money_once_flushed() throws Exception {
+        List<Long> accounts = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            accounts.add(openAccount());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                Long debit = accounts.get(i % accounts.size());
+                Long credit = accounts.get((i * 3 + 1) % accounts.size());
+                if (!debit.equals(credit)) {
+                    TransferRequest request = new TransferRequest(debit, credit, BigDecimal.ONE, "USD");
+                    futures.add(executor.submit(() -> transactionService.transfer(request)));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        journal.flush();
+
+        BigDecimal total = accounts.stream()
+                .map(accountService::get)
+                .map(AccountDto::getBalance)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(accounts.size()))
+                .compareTo(total));
+    }
+
+    @Test
+    void failed_cross_shard_transfer_releases_its_reservation() {
+        Long debit = openAccount();
+        Long credit = openAccount();
+        while (engine.isSameShard(debit, credit)) {
+            credit = openAccount();
+        }
+        TransferRequest tooMuch = new TransferRequest(debit, credit, INITIAL_BALANCE.add(BigDecimal.ONE), "USD");
+        assertThrows(UnsufficientFundsException.class, () -> transactionService.transfer(tooMuch));
+
+        transactionService.transfer(new TransferRequest(debit, credit, INITIAL_BALANCE, "USD"));
+        journal.flush();
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountService.get(debit)
+                                                         .getBalance()));
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.TWO)
+                .compareTo(accountService.get(credit)
+                                   .getBalance()));
+    }
+
+    @Test
+    void all_or_nothing_batch_restores_balances() {
+        Long accountA = openAccount();
+        Long accountB = openAccount();
+        BatchTransferRequest request = BatchTransferRequest.builder()
+                .mode(BatchMode.ALL_OR_NOTHING)
+                .transfers(List.of(new TransferRequest(accountA, accountB, BigDecimal.TEN, "USD"),
+                                   new TransferRequest(accountB, accountA, new BigDecimal("5000"), "USD")))
+                .build();
+
+        assertThrows(BatchTransferException.class, () -> transactionService.transferBatch(request));
+
+        transactionService.withdraw(new OrderRequest(accountA, INITIAL_BALANCE, "USD"));
+        assertThrows(UnsufficientFundsException.class,
+                     () -> transactionService.withdraw(new OrderRequest(accountA, BigDecimal.ONE, "USD")));
+    }
+
+    @Test
+    void same_idempotency_key_is_applied_once_before_and_after_flush() {
+        Long account = openAccount();
+        OrderRequest request = new OrderRequest(account, BigDecimal.TEN, "USD");
+
+        transactionService.deposit(request, "sharded-key");
+        transactionService.deposit(request, "sharded-key");
+        journal.flush();
+
+        assertEquals(0, INITIAL_BALANCE.add(BigDecimal.TEN)
+                .compareTo(accountService.get(account)
+                                   .getBalance()));
+    }
+
+    private Long openAccount() {
+        AccountDto account = accountService.save(new CreateAccountRequest("USD"));
+        transactionService.deposit(new OrderRequest(account.getOwnerId(), INITIAL_BALANCE, "USD"));
+        return account.getOwnerId();
+    }
+}
@@ -0,0 +1,121 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.exceptions.InvalidSplitException;
+import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.model.AccountSlot;
+import com.gs.fundstransfer.model.AccountSlotId;
+import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.repository.AccountSlotRepository;
+import org.javamoney.moneta.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SplitAccountServiceImplTest {
+
+    public static final long ACCOUNT_ID_1 = 1000000000L;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountSlotRepository accountSlotRepository;
+
+    private SplitAccountServiceImpl splitAccountService;
+
+    @BeforeEach
+    public void setup() {
+        splitAccountService = new SplitAccountServiceImpl(accountRepository, accountSlotRepository);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void split_rejects_out_of_range_slot_counts() {
+        assertThrows(InvalidSplitException.class, () -> splitAccountService.split(ACCOUNT_ID_1, 1));
+        assertThrows(InvalidSplitException.class,
+                     () -> splitAccountService.split(ACCOUNT_ID_1, SplitAccountServiceImpl.MAX_SLOTS + 1));
+        verifyNoInteractions(accountRepository, accountSlotRepository);
+    }
+
+    @Test
+    void split_cannot_remove_slots() {
+        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account()));
+        when(accountSlotRepository.countByOwnerId(ACCOUNT_ID_1)).thenReturn(8);
+
+        assertThrows(InvalidSplitException.class, () -> splitAccountService.split(ACCOUNT_ID_1, 4));
+        verify(accountSlotRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void split_account_is_credited_only_after_commit() {
+        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account()));
+        when(accountSlotRepository.countByOwnerId(ACCOUNT_ID_1)).thenReturn(2);
+
+        splitAccountService.split(ACCOUNT_ID_1, 4);
+
+        verify(accountSlotRepository).saveAll(argThat(slots -> {
+            List<Integer> added = ((List<AccountSlot>) slots).stream()
+                    .map(slot -> slot.getId()
+                            .getSlot())
+                    .toList();
+            return added.equals(List.of(2, 3));
+        }));
+        assertFalse(splitAccountService.isSplit(ACCOUNT_ID_1));
+        assertFalse(splitAccountService.credit(ACCOUNT_ID_1, BigDecimal.TEN, "USD"));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(TransactionSynchronization::afterCommit);
+        when(accountSlotRepository.creditSlot(eq(ACCOUNT_ID_1), anyInt(), eq(BigDecimal.TEN), eq("USD"))).thenReturn(1);
+
+        assertTrue(splitAccountService.isSplit(ACCOUNT_ID_1));
+        assertTrue(splitAccountService.credit(ACCOUNT_ID_1, BigDecimal.TEN, "USD"));
+        verify(accountSlotRepository).creditSlot(eq(ACCOUNT_ID_1), intThat(slot -> slot >= 0 && slot < 4),
+                                                 eq(BigDecimal.TEN), eq("USD"));
+    }
+
+    @Test
+    void consolidate_empties_the_slots() {
+        when(accountSlotRepository.countSlots()).thenReturn(List.<Object[]>of(new Object[]{ACCOUNT_ID_1, 2L}));
+        splitAccountService.loadSlotCounts();
+        AccountSlot slot0 = new AccountSlot(new AccountSlotId(ACCOUNT_ID_1, 0), "USD", new BigDecimal("1.50"));
+        AccountSlot slot1 = new AccountSlot(new AccountSlotId(ACCOUNT_ID_1, 1), "USD", new BigDecimal("2.25"));
+        when(accountSlotRepository.findAllByOwnerIdWithLock(ACCOUNT_ID_1)).thenReturn(List.of(slot0, slot1));
+
+        BigDecimal swept = splitAccountService.consolidate(ACCOUNT_ID_1);
+
+        assertEquals(0, new BigDecimal("3.75").compareTo(swept));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slot0.getBalance()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(slot1.getBalance()));
+    }
+
+    @Test
+    void accounts_which_are_not_split_never_query_the_slots() {
+        assertEquals(BigDecimal.ZERO, splitAccountService.consolidate(ACCOUNT_ID_1));
+        assertTrue(splitAccountService.getSlotBalances(List.of(ACCOUNT_ID_1))
+                           .isEmpty());
+        verifyNoInteractions(accountSlotRepository);
+    }
+
+    private static Account account() {
+        return new Account(ACCOUNT_ID_1, Money.of(BigDecimal.ZERO, "USD"));
+    }
+}
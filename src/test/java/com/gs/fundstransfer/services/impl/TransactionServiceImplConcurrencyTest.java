@@ -0,0 +1,169 @@
+package com.gs.fundstransfer.services.impl;
+
+import com.gs.fundstransfer.dto.AccountDto;
+import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
+import com.gs.fundstransfer.request.CreateAccountRequest;
+import com.gs.fundstransfer.request.OrderRequest;
+import com.gs.fundstransfer.request.TransferRequest;
+import com.gs.fundstransfer.services.AccountService;
+import com.gs.fundstransfer.services.SplitAccountService;
+import com.gs.fundstransfer.services.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:concurrency;LOCK_TIMEOUT=10000")
+public class TransactionServiceImplConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS = 4000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000");
+
+    private static final AtomicInteger retries = new AtomicInteger();
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountContentionTracker contentionTracker;
+
+    @Autowired
+    private SplitAccountService splitAccountService;
+
+    @TestConfiguration
+    static class RetryCountingConfig {
+        @Bean
+        public RetryListener retryCountingListener() {
+            return new RetryListener() {
+                @Override
+                public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+                    retries.incrementAndGet();
+                }
+            };
+        }
+    }
+
+    @Test
+    void opposing_transfers_do_not_deadlock_and_conserve_money() throws Exception {
+        Long accountA = openAccount();
+        Long accountB = openAccount();
+        // Contended accounts are locked up front, in ownerId order
+        for (int i = 0; i < 3; i++) {
+            contentionTracker.recordConflict(accountA);
+            contentionTracker.recordConflict(accountB);
+        }
+        retries.set(0);
+
+        runOpposingTransfers(accountA, accountB);
+
+        assertEquals(0, retries.get());
+        assertTotalBalance(accountA, accountB);
+    }
+
+    @Test
+    void optimistic_transfers_retry_conflicts_and_conserve_money() throws Exception {
+        Long accountA = openAccount();
+        Long accountB = openAccount();
+        retries.set(0);
+
+        runOpposingTransfers(accountA, accountB);
+
+        assertTrue(retries.get() > 0);
+        assertFalse(contentionTracker.isOptimistic(List.of(accountA, accountB)));
+        assertTotalBalance(accountA, accountB);
+    }
+
+    @Test
+    void split_account_deposits_and_withdrawals_conserve_money() throws Exception {
+        Long account = openAccount(new BigDecimal("100"));
+        splitAccountService.split(account, 8);
+
+        AtomicInteger refusedWithdrawals = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < TRANSFERS; i++) {
+                // Once the account row is drained, withdrawals sweep the slots back into it
+                OrderRequest request = new OrderRequest(account, BigDecimal.ONE, "USD");
+                boolean withdraw = i % 4 == 0;
+                futures.add(executor.submit(() -> {
+                    if (!withdraw) {
+                        return transactionService.deposit(request);
+                    }
+                    try {
+                        return transactionService.withdraw(request);
+                    } catch (UnsufficientFundsException e) {
+                        // Ran before the deposits which would have covered it were committed
+                        refusedWithdrawals.incrementAndGet();
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, new BigDecimal(2100 + refusedWithdrawals.get()).compareTo(accountService.get(account)
+                                                                                          .getBalance()));
+    }
+
+    private void runOpposingTransfers(Long accountA, Long accountB) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < TRANSFERS; i++) {
+                boolean aToB = i % 2 == 0;
+                TransferRequest request = new TransferRequest(aToB ? accountA : accountB, aToB ? accountB : accountA,
+                                                              BigDecimal.ONE, "USD");
+                futures.add(executor.submit(() -> transactionService.transfer(request)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertTotalBalance(Long accountA, Long accountB) {
+        BigDecimal total = accountService.get(accountA)
+                .getBalance()
+                .add(accountService.get(accountB)
+                             .getBalance());
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.TWO)
+                .compareTo(total));
+    }
+
+    private Long openAccount() {
+        return openAccount(INITIAL_BALANCE);
+    }
+
+    private Long openAccount(BigDecimal balance) {
+        AccountDto account = accountService.save(new CreateAccountRequest("USD"));
+        transactionService.deposit(new OrderRequest(account.getOwnerId(), balance, "USD"));
+        return account.getOwnerId();
+    }
+}
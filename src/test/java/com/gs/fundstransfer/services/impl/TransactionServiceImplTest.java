@@ -1,34 +1,49 @@
 package com.gs.fundstransfer.services.impl;
 
+import com.gs.fundstransfer.dto.BatchItemStatus;
+import com.gs.fundstransfer.dto.BatchTransferDto;
 import com.gs.fundstransfer.dto.TransferDto;
 import com.gs.fundstransfer.exceptions.AccountNotFoundException;
+import com.gs.fundstransfer.exceptions.BatchTransferException;
+import com.gs.fundstransfer.exceptions.InvalidFxQuoteException;
 import com.gs.fundstransfer.exceptions.NotSupportedCurrencyException;
 import com.gs.fundstransfer.exceptions.SameAccountTransferException;
 import com.gs.fundstransfer.exceptions.UnsufficientFundsException;
 import com.gs.fundstransfer.model.Account;
+import com.gs.fundstransfer.model.OperationType;
 import com.gs.fundstransfer.repository.AccountRepository;
+import com.gs.fundstransfer.request.BatchMode;
+import com.gs.fundstransfer.request.BatchTransferRequest;
 import com.gs.fundstransfer.request.FXRateRequest;
+import com.gs.fundstransfer.request.OrderRequest;
 import com.gs.fundstransfer.request.TransferRequest;
 import com.gs.fundstransfer.response.FXRateResponse;
 import com.gs.fundstransfer.services.ForexService;
+import com.gs.fundstransfer.services.IdempotencyService;
+import com.gs.fundstransfer.services.LedgerService;
+import com.gs.fundstransfer.services.SplitAccountService;
 import org.javamoney.moneta.spi.DefaultNumberValue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import javax.money.Monetary;
 import javax.money.convert.ExchangeRate;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
+import java.util.TreeSet;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class TransactionServiceImplTest {
@@ -42,13 +57,40 @@ public class TransactionServiceImplTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private SplitAccountService splitAccountService;
+
+    @Mock
+    private AccountOperationCoalescer coalescer;
+
+    @Mock
+    private DepositGroupCommitter groupCommitter;
+
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
+    private AccountContentionTracker contentionTracker;
+
     @BeforeEach
     public void setup() {
         MockitoAnnotations.openMocks(this);
-        transactionService = new TransactionServiceImpl(forexService, accountRepository);
+        // Pessimistic unless a test enables optimistic updates
+        transactionService = new TransactionServiceImpl(forexService, accountRepository, ledgerService, idempotencyService,
+                                                        new AccountContentionTracker(false, 3, Duration.ofMinutes(1)), splitAccountService,
+                                                        coalescer, groupCommitter);
+    }
+
+    private void enableOptimisticUpdates(int maxConflicts) {
+        contentionTracker = new AccountContentionTracker(true, maxConflicts, Duration.ofMinutes(1));
+        transactionService = new TransactionServiceImpl(forexService, accountRepository, ledgerService, idempotencyService,
+                                                        contentionTracker, splitAccountService, coalescer,
+                                                        groupCommitter);
     }
 
     @Test
@@ -61,7 +103,7 @@ public class TransactionServiceImplTest {
     @Test
     void transfer_account_not_found_exception() {
         TransferRequest request = new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("100.00"), "USD");
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.empty());
+        when(accountRepository.findAllByIdWithLock(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2))).thenReturn(List.of());
         assertThrows(AccountNotFoundException.class, () ->
                 transactionService.transfer(request));
     }
@@ -77,8 +119,7 @@ public class TransactionServiceImplTest {
                 .setCurrency("USD")
                 .setNumber(BigDecimal.TEN)
                 .create());
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account1));
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_2)).thenReturn(Optional.of(account2));
+        when(accountRepository.findAllByIdWithLock(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2))).thenReturn(List.of(account1, account2));
         assertThrows(NotSupportedCurrencyException.class, () ->
                 transactionService.transfer(request));
     }
@@ -86,7 +127,7 @@ public class TransactionServiceImplTest {
     @Test
     void transfer_unsufficient_funds_exception() {
         TransferRequest request = new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("100.00"), "USD");
-        Account account1 = new Account(1L, Monetary.getDefaultAmountFactory()
+        Account account1 = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
                 .setCurrency("USD")
                 .setNumber(BigDecimal.TEN)
                 .create());
@@ -94,8 +135,7 @@ public class TransactionServiceImplTest {
                 .setCurrency("USD")
                 .setNumber(BigDecimal.TEN)
                 .create());
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account1));
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_2)).thenReturn(Optional.of(account2));
+        when(accountRepository.findAllByIdWithLock(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2))).thenReturn(List.of(account1, account2));
         assertThrows(UnsufficientFundsException.class, () ->
                 transactionService.transfer(request));
     }
@@ -111,8 +151,7 @@ public class TransactionServiceImplTest {
                 .setCurrency("USD")
                 .setNumber(BigDecimal.ZERO)
                 .create());
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account1));
-        when(accountRepository.findByIdWithLock(ACCOUNT_ID_2)).thenReturn(Optional.of(account2));
+        when(accountRepository.findAllByIdWithLock(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2))).thenReturn(List.of(account1, account2));
         TransferDto result = transactionService.transfer(request);
         assertNotNull(result);
         assertEquals(new BigDecimal("5"),
@@ -124,6 +163,96 @@ public class TransactionServiceImplTest {
                              .getNumber()
                              .numberValue(BigDecimal.class));
         assertEquals(BigDecimal.ONE, result.getRate());
+        verify(ledgerService).record(result);
+    }
+
+    @Test
+    void transfer_with_idempotency_key_records_result() {
+        TransferRequest request = new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("5.00"), "USD");
+        Account account1 = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.TEN)
+                .create());
+        Account account2 = new Account(ACCOUNT_ID_2, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.ZERO)
+                .create());
+        when(accountRepository.findAllByIdWithLock(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2))).thenReturn(List.of(account1, account2));
+        TransferDto result = transactionService.transfer(request, "transfer-key");
+        verify(idempotencyService).record("transfer-key", OperationType.TRANSFER, request, result);
+    }
+
+    @Test
+    void transfer_reads_cold_accounts_without_locks_and_checks_versions() {
+        enableOptimisticUpdates(3);
+        TransferRequest request = new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("5.00"), "USD");
+        Account account1 = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.TEN)
+                .create());
+        Account account2 = new Account(ACCOUNT_ID_2, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.ZERO)
+                .create());
+        when(accountRepository.findAllById(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2))).thenReturn(List.of(account1, account2));
+
+        transactionService.transfer(request);
+
+        verify(accountRepository, never()).findAllByIdWithLock(any());
+        verify(accountRepository).flush();
+    }
+
+    @Test
+    void deposit_locks_account_after_repeated_version_conflicts() {
+        enableOptimisticUpdates(2);
+        OrderRequest request = new OrderRequest(ACCOUNT_ID_1, BigDecimal.ONE, "USD");
+        Account account = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.TEN)
+                .create());
+        when(accountRepository.findById(ACCOUNT_ID_1)).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account));
+        doThrow(new ObjectOptimisticLockingFailureException(Account.class, ACCOUNT_ID_1)).when(accountRepository)
+                .flush();
+
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transactionService.deposit(request));
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> transactionService.deposit(request));
+        assertFalse(contentionTracker.isOptimistic(List.of(ACCOUNT_ID_1)));
+        assertTrue(contentionTracker.isOptimistic(List.of(ACCOUNT_ID_2)));
+
+        transactionService.deposit(request);
+        verify(accountRepository).findByIdWithLock(ACCOUNT_ID_1);
+        verify(accountRepository, times(2)).flush();
+    }
+
+    @Test
+    void deposit_same_currency_updates_balance_in_place() {
+        OrderRequest request = new OrderRequest(ACCOUNT_ID_1, new BigDecimal("5.00"), "USD");
+        when(accountRepository.creditBalance(ACCOUNT_ID_1, new BigDecimal("5.00"), "USD")).thenReturn(1);
+
+        TransferDto result = transactionService.deposit(request);
+
+        assertEquals(ACCOUNT_ID_1, result.getCreditAccountId());
+        assertEquals(0, new BigDecimal("5").compareTo(result.getCreditedAmount()
+                                                              .getNumber()
+                                                              .numberValue(BigDecimal.class)));
+        verify(ledgerService).record(result);
+        verify(accountRepository, never()).findByIdWithLock(any());
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void withdraw_not_applied_in_place_reports_unsufficient_funds() {
+        OrderRequest request = new OrderRequest(ACCOUNT_ID_1, new BigDecimal("50.00"), "USD");
+        Account account = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.TEN)
+                .create());
+        when(accountRepository.debitBalance(ACCOUNT_ID_1, new BigDecimal("50.00"), "USD")).thenReturn(0);
+        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account));
+
+        assertThrows(UnsufficientFundsException.class, () -> transactionService.withdraw(request));
+        verify(ledgerService, never()).record(any());
     }
 
     @Test
@@ -141,19 +270,20 @@ public class TransactionServiceImplTest {
         TransferRequest request = new TransferRequest(debitAccountId, creditAccountId, amount, debitCurrency);
 
         Account debitAccount = new Account();
+        debitAccount.setOwnerId(debitAccountId);
         debitAccount.setMoney(Monetary.getDefaultAmountFactory()
                                       .setCurrency(debitCurrency)
                                       .setNumber(amount.add(BigDecimal.valueOf(1000)))
                                       .create());
 
         Account creditAccount = new Account();
+        creditAccount.setOwnerId(creditAccountId);
         creditAccount.setMoney(Monetary.getDefaultAmountFactory()
                                        .setCurrency(creditCurrency)
                                        .setNumber(BigDecimal.ZERO)
                                        .create());
 
-        when(accountRepository.findByIdWithLock(debitAccountId)).thenReturn(Optional.of(debitAccount));
-        when(accountRepository.findByIdWithLock(creditAccountId)).thenReturn(Optional.of(creditAccount));
+        when(accountRepository.findAllByIdWithLock(List.of(debitAccountId, creditAccountId))).thenReturn(List.of(debitAccount, creditAccount));
 
         FXRateRequest fxRateRequest = FXRateRequest.builder()
                 .monetaryAmount(Monetary.getDefaultAmountFactory()
@@ -186,4 +316,126 @@ public class TransactionServiceImplTest {
                              .getFactor()
                              .numberValue(BigDecimal.class), result.getRate());
     }
-}
\ No newline at end of file
+
+    @Test
+    void transfer_batch_best_effort_skips_failed_transfers() {
+        Account account1 = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.TEN)
+                .create());
+        Account account2 = new Account(ACCOUNT_ID_2, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.ZERO)
+                .create());
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("6"), "USD"),
+                new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("6"), "USD"),
+                new TransferRequest(ACCOUNT_ID_2, ACCOUNT_ID_1, new BigDecimal("1"), "USD")), BatchMode.BEST_EFFORT);
+        when(accountRepository.findAllByIdWithLock(new TreeSet<>(List.of(ACCOUNT_ID_1, ACCOUNT_ID_2)))).thenReturn(
+                List.of(account1, account2));
+
+        BatchTransferDto result = transactionService.transferBatch(request);
+
+        assertEquals(2, result.getApplied());
+        assertEquals(1, result.getFailed());
+        assertEquals(BatchItemStatus.APPLIED, result.getResults()
+                .get(0)
+                .getStatus());
+        assertEquals(BatchItemStatus.FAILED, result.getResults()
+                .get(1)
+                .getStatus());
+        assertEquals(BatchItemStatus.APPLIED, result.getResults()
+                .get(2)
+                .getStatus());
+        assertEquals(0, new BigDecimal("5").compareTo(account1.getMoney()
+                                                              .getNumber()
+                                                              .numberValue(BigDecimal.class)));
+        assertEquals(0, new BigDecimal("5").compareTo(account2.getMoney()
+                                                              .getNumber()
+                                                              .numberValue(BigDecimal.class)));
+        verify(accountRepository, times(1)).findAllByIdWithLock(any());
+    }
+
+    @Test
+    void transfer_batch_all_or_nothing_reports_rolled_back_transfers() {
+        Account account1 = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.TEN)
+                .create());
+        Account account2 = new Account(ACCOUNT_ID_2, Monetary.getDefaultAmountFactory()
+                .setCurrency("USD")
+                .setNumber(BigDecimal.ZERO)
+                .create());
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                new TransferRequest(ACCOUNT_ID_1, ACCOUNT_ID_2, new BigDecimal("6"), "USD"),
+                new TransferRequest(ACCOUNT_ID_1, 1000000002L, new BigDecimal("1"), "USD"),
+                new TransferRequest(ACCOUNT_ID_2, ACCOUNT_ID_1, new BigDecimal("1"), "USD")), BatchMode.ALL_OR_NOTHING);
+        when(accountRepository.findAllByIdWithLock(any())).thenReturn(List.of(account1, account2));
+
+        BatchTransferException exception = assertThrows(BatchTransferException.class,
+                                                        () -> transactionService.transferBatch(request));
+
+        BatchTransferDto result = exception.getResult();
+        assertEquals(0, result.getApplied());
+        assertEquals(1, result.getFailed());
+        assertEquals(BatchItemStatus.ROLLED_BACK, result.getResults()
+                .get(0)
+                .getStatus());
+        assertEquals(BatchItemStatus.FAILED, result.getResults()
+                .get(1)
+                .getStatus());
+        assertEquals(BatchItemStatus.SKIPPED, result.getResults()
+                .get(2)
+                .getStatus());
+        verify(accountRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void withdraw_with_quote_converts_before_locking_the_account() {
+        OrderRequest request = new OrderRequest(ACCOUNT_ID_1, new BigDecimal("10.00"), "USD", "quote-1");
+        Account account = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("EUR")
+                .setNumber(new BigDecimal("100"))
+                .create());
+        ExchangeRate exchangeRate = mock(ExchangeRate.class);
+        when(exchangeRate.getFactor()).thenReturn(new DefaultNumberValue(new BigDecimal("0.9")));
+        FXRateResponse quoted = new FXRateResponse(Monetary.getDefaultAmountFactory()
+                                                           .setCurrency("EUR")
+                                                           .setNumber(new BigDecimal("9.000"))
+                                                           .create(), exchangeRate);
+        when(forexService.exchange(any(FXRateRequest.class))).thenReturn(quoted);
+        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account));
+
+        TransferDto result = transactionService.withdraw(request);
+
+        assertEquals(quoted.getConvertedAmount(), result.getDebitedAmount());
+        assertEquals(0, new BigDecimal("91").compareTo(account.getMoney()
+                                                               .getNumber()
+                                                               .numberValue(BigDecimal.class)));
+        InOrder inOrder = inOrder(forexService, accountRepository);
+        inOrder.verify(forexService)
+                .exchange(argThat(fxRequest -> "quote-1".equals(fxRequest.getQuoteId())));
+        inOrder.verify(accountRepository)
+                .findByIdWithLock(ACCOUNT_ID_1);
+        verify(forexService, times(1)).exchange(any());
+    }
+
+    @Test
+    void deposit_with_quote_into_another_currency_is_refused() {
+        OrderRequest request = new OrderRequest(ACCOUNT_ID_1, BigDecimal.TEN, "USD", "quote-1");
+        Account account = new Account(ACCOUNT_ID_1, Monetary.getDefaultAmountFactory()
+                .setCurrency("GBP")
+                .setNumber(BigDecimal.ZERO)
+                .create());
+        FXRateResponse quoted = new FXRateResponse(Monetary.getDefaultAmountFactory()
+                                                           .setCurrency("EUR")
+                                                           .setNumber(new BigDecimal("9"))
+                                                           .create(), mock(ExchangeRate.class));
+        when(forexService.exchange(any(FXRateRequest.class))).thenReturn(quoted);
+        when(accountRepository.findByIdWithLock(ACCOUNT_ID_1)).thenReturn(Optional.of(account));
+
+        assertThrows(InvalidFxQuoteException.class, () -> transactionService.deposit(request));
+        verify(accountRepository, never()).save(any());
+        verify(ledgerService, never()).record(any());
+    }
+}